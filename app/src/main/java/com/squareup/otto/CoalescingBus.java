@@ -0,0 +1,167 @@
+package com.squareup.otto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import info.nightscout.androidaps.events.CoalescedEvent;
+import info.nightscout.androidaps.logging.L;
+
+/**
+ * Bus delivering CoalescedEvent asynchronously.
+ * <p>
+ * Every receiver has its own queue holding at most one pending event per event class, so bursts
+ * (progress of calculation, refresh requests) are collapsed to the latest event and the posting
+ * thread doesn't wait for UI receivers. Queues are served by shared thread pool, one receiver
+ * is never called from more threads at once.
+ * All other events are dispatched synchronously as in Bus.
+ */
+public class CoalescingBus extends Bus {
+    private static Logger log = LoggerFactory.getLogger(L.EVENTS);
+
+    private final Executor executor;
+    private final Map<EventHandler, ReceiverQueue> queues = new HashMap<>();
+    private final Map<String, Stats> stats = new HashMap<>();
+    private int queueDepth = 0; // events waiting in all queues
+    private int maxQueueDepth = 0;
+
+    private static class ReceiverQueue {
+        // pending events by class, insertion order is not important for idempotent events
+        final Map<Class<?>, Object> pending = new HashMap<>();
+        boolean scheduled = false;
+    }
+
+    private static class Stats {
+        long delivered;
+        long coalesced;
+        long totalNanos;
+        long maxNanos;
+    }
+
+    public CoalescingBus(ThreadEnforcer enforcer) {
+        this(enforcer, createExecutor());
+    }
+
+    CoalescingBus(ThreadEnforcer enforcer, Executor executor) {
+        super(enforcer);
+        this.executor = executor;
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "CoalescingBus-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected void dispatch(Object event, EventHandler wrapper) {
+        if (!(event instanceof CoalescedEvent)) {
+            super.dispatch(event, wrapper);
+            return;
+        }
+        boolean schedule;
+        synchronized (this) {
+            ReceiverQueue queue = queues.get(wrapper);
+            if (queue == null) {
+                queue = new ReceiverQueue();
+                queues.put(wrapper, queue);
+            }
+            if (queue.pending.put(event.getClass(), event) != null) {
+                stats(event).coalesced++;
+            } else {
+                queueDepth++;
+                maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+            }
+            schedule = !queue.scheduled;
+            queue.scheduled = true;
+        }
+        if (schedule)
+            executor.execute(() -> drain(wrapper));
+    }
+
+    private void drain(EventHandler wrapper) {
+        while (true) {
+            Object event;
+            synchronized (this) {
+                ReceiverQueue queue = queues.get(wrapper);
+                if (queue.pending.isEmpty()) {
+                    queues.remove(wrapper);
+                    return;
+                }
+                Class<?> next = queue.pending.keySet().iterator().next();
+                event = queue.pending.remove(next);
+                queueDepth--;
+            }
+            if (!wrapper.isValid())
+                continue; // receiver unregistered in the meantime
+            long start = System.nanoTime();
+            try {
+                wrapper.handleEvent(event);
+            } catch (InvocationTargetException e) {
+                log.error("Could not dispatch event: " + event.getClass() + " to handler " + wrapper, e.getCause());
+            } catch (IllegalStateException ignored) {
+                // invalidated between isValid() and handleEvent()
+            }
+            long duration = System.nanoTime() - start;
+            synchronized (this) {
+                Stats s = stats(event);
+                s.delivered++;
+                s.totalNanos += duration;
+                s.maxNanos = Math.max(s.maxNanos, duration);
+            }
+        }
+    }
+
+    // must be called while holding lock
+    private Stats stats(Object event) {
+        String key = event.getClass().getSimpleName();
+        Stats s = stats.get(key);
+        if (s == null) {
+            s = new Stats();
+            stats.put(key, s);
+        }
+        return s;
+    }
+
+    synchronized int queueDepth() {
+        return queueDepth;
+    }
+
+    synchronized long delivered(Class<?> eventClass) {
+        Stats s = stats.get(eventClass.getSimpleName());
+        return s == null ? 0 : s.delivered;
+    }
+
+    synchronized long coalesced(Class<?> eventClass) {
+        Stats s = stats.get(eventClass.getSimpleName());
+        return s == null ? 0 : s.coalesced;
+    }
+
+    /**
+     * @return per event type statistics of asynchronous delivery
+     */
+    public synchronized String log() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Queue depth: ").append(queueDepth).append(" max: ").append(maxQueueDepth);
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(stats).entrySet()) {
+            Stats s = entry.getValue();
+            sb.append("\n  ").append(entry.getKey())
+                    .append(" delivered: ").append(s.delivered)
+                    .append(" coalesced: ").append(s.coalesced)
+                    .append(" avg: ").append(s.delivered > 0 ? s.totalNanos / s.delivered / 1000 : 0).append("us")
+                    .append(" max: ").append(s.maxNanos / 1000).append("us");
+        }
+        return sb.toString();
+    }
+}
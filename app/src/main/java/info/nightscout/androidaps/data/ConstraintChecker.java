@@ -2,12 +2,15 @@ package info.nightscout.androidaps.data;
 
 import android.support.annotation.NonNull;
 
+import com.squareup.otto.Subscribe;
+
 import java.util.ArrayList;
 
 import javax.annotation.Nonnull;
 
 import info.nightscout.androidaps.Constants;
 import info.nightscout.androidaps.MainApp;
+import info.nightscout.androidaps.events.EventConfigBuilderChange;
 import info.nightscout.androidaps.interfaces.Constraint;
 import info.nightscout.androidaps.interfaces.ConstraintsInterface;
 import info.nightscout.androidaps.interfaces.PluginBase;
@@ -19,6 +22,9 @@ import info.nightscout.androidaps.interfaces.PluginType;
 
 public class ConstraintChecker implements ConstraintsInterface {
 
+    private volatile PluginBase[] constraintsPlugins = null;
+    private volatile boolean pluginsInitialized = false;
+
     public Constraint<Boolean> isLoopInvokationAllowed() {
         return isLoopInvocationAllowed(new Constraint<>(true));
     }
@@ -75,11 +81,43 @@ public class ConstraintChecker implements ConstraintsInterface {
         return applyMaxIOBConstraints(new Constraint<>(Constants.REALLYHIGHIOB));
     }
 
+    /**
+     * Called by MainApp when all plugins are registered, from now on the list may be cached
+     */
+    public void initialize() {
+        pluginsInitialized = true;
+        constraintsPlugins = resolveConstraintsPlugins();
+    }
+
+    /**
+     * Plugins implementing ConstraintsInterface are resolved once and kept until configuration changes.
+     * Until MainApp finishes plugin registration the list may be empty or partial and is not cached.
+     * Enabled state is still checked on every call because it depends on active pump and APS.
+     */
+    private PluginBase[] getConstraintsPlugins() {
+        PluginBase[] plugins = constraintsPlugins;
+        if (plugins == null) {
+            plugins = resolveConstraintsPlugins();
+            if (pluginsInitialized)
+                constraintsPlugins = plugins;
+        }
+        return plugins;
+    }
+
+    private static PluginBase[] resolveConstraintsPlugins() {
+        ArrayList<PluginBase> list = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
+        return list.toArray(new PluginBase[0]);
+    }
+
+    @Subscribe
+    public void onEventConfigBuilderChange(EventConfigBuilderChange ev) {
+        constraintsPlugins = null;
+    }
+
     @Override
     public Constraint<Boolean> isLoopInvocationAllowed(@NonNull Constraint<Boolean> value) {
 
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constraint = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constraint.isLoopInvocationAllowed(value);
@@ -90,8 +128,7 @@ public class ConstraintChecker implements ConstraintsInterface {
     @Override
     public Constraint<Boolean> isClosedLoopAllowed(@NonNull Constraint<Boolean> value) {
 
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constraint = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constraint.isClosedLoopAllowed(value);
@@ -102,8 +139,7 @@ public class ConstraintChecker implements ConstraintsInterface {
     @Override
     public Constraint<Boolean> isAutosensModeEnabled(@NonNull Constraint<Boolean> value) {
 
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constraint = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constraint.isAutosensModeEnabled(value);
@@ -114,8 +150,7 @@ public class ConstraintChecker implements ConstraintsInterface {
     @Override
     public Constraint<Boolean> isAMAModeEnabled(@NonNull Constraint<Boolean> value) {
 
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constrain = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constrain.isAMAModeEnabled(value);
@@ -126,8 +161,7 @@ public class ConstraintChecker implements ConstraintsInterface {
     @Override
     public Constraint<Boolean> isSMBModeEnabled(@NonNull Constraint<Boolean> value) {
 
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constraint = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constraint.isSMBModeEnabled(value);
@@ -138,8 +172,7 @@ public class ConstraintChecker implements ConstraintsInterface {
     @Override
     public Constraint<Boolean> isUAMEnabled(@NonNull Constraint<Boolean> value) {
 
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constraint = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constraint.isUAMEnabled(value);
@@ -149,8 +182,7 @@ public class ConstraintChecker implements ConstraintsInterface {
 
     @Override
     public Constraint<Boolean> isAdvancedFilteringEnabled(@NonNull Constraint<Boolean> value) {
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constraint = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constraint.isAdvancedFilteringEnabled(value);
@@ -160,8 +192,7 @@ public class ConstraintChecker implements ConstraintsInterface {
 
     @Override
     public Constraint<Boolean> isSuperBolusEnabled(@NonNull Constraint<Boolean> value) {
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constraint = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constraint.isSuperBolusEnabled(value);
@@ -171,8 +202,7 @@ public class ConstraintChecker implements ConstraintsInterface {
 
     @Override
     public Constraint<Double> applyBasalConstraints(@NonNull Constraint<Double> absoluteRate, Profile profile) {
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constraint = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constraint.applyBasalConstraints(absoluteRate, profile);
@@ -182,8 +212,7 @@ public class ConstraintChecker implements ConstraintsInterface {
 
     @Override
     public Constraint<Integer> applyBasalPercentConstraints(@NonNull Constraint<Integer> percentRate, Profile profile) {
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constrain = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constrain.applyBasalPercentConstraints(percentRate, profile);
@@ -193,8 +222,7 @@ public class ConstraintChecker implements ConstraintsInterface {
 
     @Override
     public Constraint<Double> applyBolusConstraints(@NonNull Constraint<Double> insulin) {
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constrain = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constrain.applyBolusConstraints(insulin);
@@ -204,8 +232,7 @@ public class ConstraintChecker implements ConstraintsInterface {
 
     @Override
     public Constraint<Double> applyExtendedBolusConstraints(@NonNull Constraint<Double> insulin) {
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constrain = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constrain.applyExtendedBolusConstraints(insulin);
@@ -215,8 +242,7 @@ public class ConstraintChecker implements ConstraintsInterface {
 
     @Override
     public Constraint<Integer> applyCarbsConstraints(@NonNull Constraint<Integer> carbs) {
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constrain = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constrain.applyCarbsConstraints(carbs);
@@ -226,8 +252,7 @@ public class ConstraintChecker implements ConstraintsInterface {
 
     @Override
     public Constraint<Double> applyMaxIOBConstraints(@NonNull Constraint<Double> maxIob) {
-        ArrayList<PluginBase> constraintsPlugins = MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class);
-        for (PluginBase p : constraintsPlugins) {
+        for (PluginBase p : getConstraintsPlugins()) {
             ConstraintsInterface constrain = (ConstraintsInterface) p;
             if (!p.isEnabled(PluginType.CONSTRAINTS)) continue;
             constrain.applyMaxIOBConstraints(maxIob);
@@ -0,0 +1,120 @@
+package info.nightscout.androidaps.data;
+
+import android.support.annotation.Nullable;
+import android.support.v4.util.LongSparseArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.nightscout.androidaps.interfaces.Interval;
+
+/**
+ * Immutable snapshot of intervals sorted by start, oldest at index 0.
+ * Published by Intervals/ProfileIntervals after every change so readers don't need to lock.
+ * <p>
+ * Intervals may only be shortened by cutEndTo() after the snapshot is made,
+ * so ends stored here are upper bounds and can be used to stop searching.
+ */
+public class IntervalIndex<T extends Interval> {
+    private final Interval[] values;
+    private final long[] starts;
+    private final long[] maxEnd; // maximal end of intervals 0..i
+
+    IntervalIndex(LongSparseArray<T> rawData) {
+        int size = rawData.size();
+        values = new Interval[size];
+        starts = new long[size];
+        maxEnd = new long[size];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            Interval interval = rawData.valueAt(i);
+            values[i] = interval;
+            starts[i] = rawData.keyAt(i);
+            max = Math.max(max, Math.max(interval.end(), interval.originalEnd()));
+            maxEnd[i] = max;
+        }
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) values[index];
+    }
+
+    public T getReversed(int index) {
+        return get(values.length - 1 - index);
+    }
+
+    public List<T> getList() {
+        List<T> list = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++)
+            list.add(get(i));
+        return list;
+    }
+
+    public List<T> getReversedList() {
+        List<T> list = new ArrayList<>(values.length);
+        for (int i = values.length - 1; i >= 0; i--)
+            list.add(get(i));
+        return list;
+    }
+
+    /**
+     * @return index of the newest interval starting at or before time, -1 if there is none
+     */
+    public int lastStartingAtOrBefore(long time) {
+        int lo = 0;
+        int hi = starts.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] <= time)
+                lo = mid + 1;
+            else
+                hi = mid - 1;
+        }
+        return hi;
+    }
+
+    /**
+     * Binary search for non overlapping intervals
+     *
+     * @return index of matching interval or ~(insertion point)
+     */
+    int binarySearch(long value) {
+        int lo = 0;
+        int hi = values.length - 1;
+
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final Interval midVal = values[mid];
+
+            if (midVal.before(value)) {
+                lo = mid + 1;
+            } else if (midVal.after(value)) {
+                hi = mid - 1;
+            } else if (midVal.match(value)) {
+                return mid;  // value found
+            }
+        }
+        return ~lo;  // value not present
+    }
+
+    /**
+     * Search for overlapping intervals
+     *
+     * @return the newest interval matching time
+     */
+    @Nullable
+    public T findNewestMatch(long time) {
+        for (int index = lastStartingAtOrBefore(time); index >= 0; index--) {
+            if (maxEnd[index] < time)
+                break; // nothing older can reach time
+            if (values[index].match(time))
+                return get(index);
+        }
+        return null;
+    }
+}
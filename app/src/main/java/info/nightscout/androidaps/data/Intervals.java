@@ -1,9 +1,7 @@
 package info.nightscout.androidaps.data;
 
-import android.support.annotation.Nullable;
 import android.support.v4.util.LongSparseArray;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import info.nightscout.androidaps.interfaces.Interval;
@@ -16,19 +14,38 @@ import info.nightscout.androidaps.interfaces.Interval;
 
 public abstract class Intervals<T extends Interval> {
 
-    LongSparseArray<T> rawData; // oldest at index 0
+    LongSparseArray<T> rawData; // oldest at index 0, modified only when holding lock
+    volatile IntervalIndex<T> index; // readers use this without locking
 
     public Intervals() {
         rawData = new LongSparseArray<T>();
+        index = new IntervalIndex<>(rawData);
+    }
+
+    Intervals(Intervals<T> other) {
+        synchronized (other) {
+            rawData = other.rawData.clone();
+            index = other.index;
+        }
     }
 
     public synchronized Intervals reset() {
         rawData = new LongSparseArray<T>();
+        index = new IntervalIndex<>(rawData);
         return this;
     }
 
     protected abstract void merge();
 
+    /**
+     * Replaces all data at once so readers never see empty list in between.
+     * The List must be sorted by `T.start()` in ascending order
+     */
+    public synchronized void replace(List<T> list) {
+        rawData = new LongSparseArray<T>();
+        add(list);
+    }
+
     /**
      * The List must be sorted by `T.start()` in ascending order
      */
@@ -37,60 +54,47 @@ public abstract class Intervals<T extends Interval> {
             rawData.put(interval.start(), interval);
         }
         merge();
+        index = new IntervalIndex<>(rawData);
     }
 
     public synchronized void add(T interval) {
         rawData.put(interval.start(), interval);
         merge();
+        index = new IntervalIndex<>(rawData);
     }
 
+    /**
+     * @return consistent immutable view of current data
+     */
+    public IntervalIndex<T> getIndex() {
+        return index;
+    }
 
-    public synchronized List<T> getList() {
-        List<T> list = new ArrayList<>();
-        for (int i = 0; i < rawData.size(); i++)
-            list.add(rawData.valueAt(i));
-        return list;
+    public List<T> getList() {
+        return index.getList();
     }
 
-    public synchronized List<T> getReversedList() {
-        List<T> list = new ArrayList<>();
-        for (int i = rawData.size() - 1; i >= 0; i--)
-            list.add(rawData.valueAt(i));
-        return list;
+    public List<T> getReversedList() {
+        return index.getReversedList();
     }
 
-    protected synchronized int binarySearch(long value) {
-        int lo = 0;
-        int hi = rawData.size() - 1;
-
-        while (lo <= hi) {
-            final int mid = (lo + hi) >>> 1;
-            final Interval midVal = rawData.valueAt(mid);
-
-            if (midVal.before(value)) {
-                lo = mid + 1;
-            } else if (midVal.after(value)) {
-                hi = mid - 1;
-            } else if (midVal.match(value)) {
-                return mid;  // value found
-            }
-        }
-        return ~lo;  // value not present
+    protected int binarySearch(long value) {
+        return index.binarySearch(value);
     }
 
     public abstract T getValueByInterval(long time);
 
-    public synchronized int size() {
-        return rawData.size();
+    public int size() {
+        return index.size();
     }
 
-    public synchronized T get(int index) {
-        return rawData.valueAt(index);
+    public T get(int index) {
+        return this.index.get(index);
     }
 
-    public synchronized T getReversed(int index) {
-        return rawData.valueAt(size() - 1 - index);
+    public T getReversed(int index) {
+        return this.index.getReversed(index);
     }
 
 
-}
\ No newline at end of file
+}
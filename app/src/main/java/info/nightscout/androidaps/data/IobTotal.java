@@ -1,7 +1,5 @@
 package info.nightscout.androidaps.data;
 
-import com.rits.cloning.Cloner;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -35,8 +33,19 @@ public class IobTotal {
 
 
     public IobTotal copy() {
-        Cloner cloner = new Cloner();
-        return cloner.deepClone(this);
+        IobTotal copy = new IobTotal(time);
+        copy.iob = iob;
+        copy.activity = activity;
+        copy.bolussnooze = bolussnooze;
+        copy.basaliob = basaliob;
+        copy.netbasalinsulin = netbasalinsulin;
+        copy.hightempinsulin = hightempinsulin;
+        copy.lastBolusTime = lastBolusTime;
+        copy.iobWithZeroTemp = iobWithZeroTemp != null ? iobWithZeroTemp.copy() : null;
+        copy.netInsulin = netInsulin;
+        copy.netRatio = netRatio;
+        copy.extendedBolusInsulin = extendedBolusInsulin;
+        return copy;
     }
 
     public IobTotal(long time) {
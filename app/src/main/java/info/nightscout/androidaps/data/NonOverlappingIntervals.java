@@ -2,9 +2,7 @@ package info.nightscout.androidaps.data;
 
 
 import android.support.annotation.Nullable;
-import android.support.v4.util.LongSparseArray;
 
-import info.nightscout.androidaps.db.TemporaryBasal;
 import info.nightscout.androidaps.interfaces.Interval;
 
 /**
@@ -18,7 +16,7 @@ public class NonOverlappingIntervals<T extends Interval> extends Intervals<T> {
     }
 
     public NonOverlappingIntervals (Intervals<T> other) {
-        rawData = other.rawData.clone();
+        super(other);
     }
 
     protected synchronized void merge() {
@@ -32,9 +30,10 @@ public class NonOverlappingIntervals<T extends Interval> extends Intervals<T> {
     }
 
     @Nullable
-    public synchronized T getValueByInterval(long time) {
-        int index = binarySearch(time);
-        if (index >= 0) return rawData.valueAt(index);
+    public T getValueByInterval(long time) {
+        IntervalIndex<T> snapshot = this.index;
+        int index = snapshot.binarySearch(time);
+        if (index >= 0) return snapshot.get(index);
         return null;
     }
 
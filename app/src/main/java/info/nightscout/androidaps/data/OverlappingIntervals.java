@@ -16,7 +16,7 @@ public class OverlappingIntervals<T extends Interval> extends Intervals<T> {
     }
 
     public OverlappingIntervals(Intervals<T> other) {
-        rawData = other.rawData.clone();
+        super(other);
     }
 
     protected synchronized void merge() {
@@ -38,14 +38,8 @@ public class OverlappingIntervals<T extends Interval> extends Intervals<T> {
     }
 
     @Nullable
-    public synchronized T getValueByInterval(long time) {
-        for (int index = rawData.size() - 1; index >= 0; index--) { //begin with newest
-            T cur = rawData.valueAt(index);
-            if (cur.match(time)) {
-                return cur;
-            }
-        }
-        return null;
+    public T getValueByInterval(long time) {
+        return index.findNewestMatch(time);
     }
 
 }
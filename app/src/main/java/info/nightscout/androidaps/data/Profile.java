@@ -42,6 +42,13 @@ public class Profile {
     private JSONArray targetHigh;
     private LongSparseArray<Double> targetHigh_v; // oldest at index 0
 
+    // compiled lock-free lookups, rebuilt from *_v arrays when null
+    private volatile ProfileSchedule isf_s;
+    private volatile ProfileSchedule ic_s;
+    private volatile ProfileSchedule basal_s;
+    private volatile ProfileSchedule targetLow_s;
+    private volatile ProfileSchedule targetHigh_s;
+
     private int percentage;
     private int timeshift;
 
@@ -86,6 +93,11 @@ public class Profile {
         basal_v = null;
         targetLow_v = null;
         targetHigh_v = null;
+        isf_s = null;
+        ic_s = null;
+        basal_s = null;
+        targetLow_s = null;
+        targetHigh_s = null;
 
         isValid = true;
         isValidated = false;
@@ -235,21 +247,28 @@ public class Profile {
             // Check for minimal basal value
             if (pump != null) {
                 PumpDescription description = pump.getPumpDescription();
+                boolean changed = false;
                 for (int i = 0; i < basal_v.size(); i++) {
                     if (basal_v.valueAt(i) < description.basalMinimumRate) {
                         basal_v.setValueAt(i, description.basalMinimumRate);
+                        changed = true;
                         if (notify)
                             sendBelowMinimumNotification(from);
                     } else if (basal_v.valueAt(i) > description.basalMaximumRate) {
                         basal_v.setValueAt(i, description.basalMaximumRate);
+                        changed = true;
                         if (notify)
                             sendAboveMaximumNotification(from);
                     }
                 }
+                // clamped values must be visible in lookups
+                if (changed)
+                    basal_s = null;
             } else {
                 // if pump not available (at start)
                 // do not store converted array
                 basal_v = null;
+                basal_s = null;
                 isValidated = false;
             }
 
@@ -338,19 +357,49 @@ public class Profile {
         return multiplier;
     }
 
-    private double getValueToTime(LongSparseArray<Double> array, Integer timeAsSeconds) {
-        Double lastValue = null;
+    private synchronized ProfileSchedule compileIsf() {
+        if (isf_s == null) {
+            if (isf_v == null)
+                isf_v = convertToSparseArray(isf);
+            isf_s = new ProfileSchedule(isf_v);
+        }
+        return isf_s;
+    }
 
-        for (Integer index = 0; index < array.size(); index++) {
-            long tas = array.keyAt(index);
-            double value = array.valueAt(index);
-            if (lastValue == null) lastValue = value;
-            if (timeAsSeconds < tas) {
-                break;
-            }
-            lastValue = value;
+    private synchronized ProfileSchedule compileIc() {
+        if (ic_s == null) {
+            if (ic_v == null)
+                ic_v = convertToSparseArray(ic);
+            ic_s = new ProfileSchedule(ic_v);
         }
-        return lastValue;
+        return ic_s;
+    }
+
+    private synchronized ProfileSchedule compileBasal() {
+        if (basal_s == null) {
+            if (basal_v == null)
+                basal_v = convertToSparseArray(basal);
+            basal_s = new ProfileSchedule(basal_v);
+        }
+        return basal_s;
+    }
+
+    private synchronized ProfileSchedule compileTargetLow() {
+        if (targetLow_s == null) {
+            if (targetLow_v == null)
+                targetLow_v = convertToSparseArray(targetLow);
+            targetLow_s = new ProfileSchedule(targetLow_v);
+        }
+        return targetLow_s;
+    }
+
+    private synchronized ProfileSchedule compileTargetHigh() {
+        if (targetHigh_s == null) {
+            if (targetHigh_v == null)
+                targetHigh_v = convertToSparseArray(targetHigh);
+            targetHigh_s = new ProfileSchedule(targetHigh_v);
+        }
+        return targetHigh_s;
     }
 
     protected String format_HH_MM(Integer timeAsSeconds) {
@@ -389,9 +438,10 @@ public class Profile {
     }
 
     double getIsfTimeFromMidnight(int timeAsSeconds) {
-        if (isf_v == null)
-            isf_v = convertToSparseArray(isf);
-        return getValueToTime(isf_v, timeAsSeconds);
+        ProfileSchedule schedule = isf_s;
+        if (schedule == null)
+            schedule = compileIsf();
+        return schedule.valueAt(timeAsSeconds);
     }
 
     public String getIsfList() {
@@ -409,9 +459,10 @@ public class Profile {
     }
 
     public double getIcTimeFromMidnight(int timeAsSeconds) {
-        if (ic_v == null)
-            ic_v = convertToSparseArray(ic);
-        return getValueToTime(ic_v, timeAsSeconds);
+        ProfileSchedule schedule = ic_s;
+        if (schedule == null)
+            schedule = compileIc();
+        return schedule.valueAt(timeAsSeconds);
     }
 
     public String getIcList() {
@@ -428,11 +479,11 @@ public class Profile {
         return getBasalTimeFromMidnight(secondsFromMidnight(time));
     }
 
-    public synchronized double getBasalTimeFromMidnight(int timeAsSeconds) {
-        if (basal_v == null) {
-            basal_v = convertToSparseArray(basal);
-        }
-        return getValueToTime(basal_v, timeAsSeconds);
+    public double getBasalTimeFromMidnight(int timeAsSeconds) {
+        ProfileSchedule schedule = basal_s;
+        if (schedule == null)
+            schedule = compileBasal();
+        return schedule.valueAt(timeAsSeconds);
     }
 
     public String getBasalList() {
@@ -481,9 +532,10 @@ public class Profile {
     }
 
     public double getTargetLowTimeFromMidnight(int timeAsSeconds) {
-        if (targetLow_v == null)
-            targetLow_v = convertToSparseArray(targetLow);
-        return getValueToTime(targetLow_v, timeAsSeconds);
+        ProfileSchedule schedule = targetLow_s;
+        if (schedule == null)
+            schedule = compileTargetLow();
+        return schedule.valueAt(timeAsSeconds);
     }
 
     public double getTargetHigh() {
@@ -495,9 +547,10 @@ public class Profile {
     }
 
     public double getTargetHighTimeFromMidnight(int timeAsSeconds) {
-        if (targetHigh_v == null)
-            targetHigh_v = convertToSparseArray(targetHigh);
-        return getValueToTime(targetHigh_v, timeAsSeconds);
+        ProfileSchedule schedule = targetHigh_s;
+        if (schedule == null)
+            schedule = compileTargetHigh();
+        return schedule.valueAt(timeAsSeconds);
     }
 
     public String getTargetList() {
@@ -21,25 +21,38 @@ import info.nightscout.androidaps.interfaces.Interval;
 public class ProfileIntervals<T extends Interval> {
     private static Logger log = LoggerFactory.getLogger(ProfileIntervals.class);
 
-    private LongSparseArray<T> rawData; // oldest at index 0
+    private LongSparseArray<T> rawData; // oldest at index 0, modified only when holding lock
+    private volatile IntervalIndex<T> index; // readers use this without locking
 
     public ProfileIntervals () {
         rawData = new LongSparseArray<>();
+        index = new IntervalIndex<>(rawData);
     }
 
     public ProfileIntervals (ProfileIntervals<T> other) {
-        rawData = other.rawData.clone();
+        synchronized (other) {
+            rawData = other.rawData.clone();
+            index = other.index;
+        }
     }
 
     public synchronized ProfileIntervals reset() {
         rawData = new LongSparseArray<>();
+        index = new IntervalIndex<>(rawData);
         return this;
     }
 
+    // replaces all data at once so readers never see empty list in between
+    public synchronized void replace(List<T> list) {
+        rawData = new LongSparseArray<>();
+        add(list);
+    }
+
     public synchronized void add(T newInterval) {
         if (newInterval.isValid()) {
             rawData.put(newInterval.start(), newInterval);
             merge();
+            index = new IntervalIndex<>(rawData);
         }
     }
 
@@ -49,6 +62,7 @@ public class ProfileIntervals<T extends Interval> {
                 rawData.put(interval.start(), interval);
         }
         merge();
+        index = new IntervalIndex<>(rawData);
     }
 
     private synchronized void merge() {
@@ -62,42 +76,37 @@ public class ProfileIntervals<T extends Interval> {
     }
 
     @Nullable
-    public synchronized Interval getValueToTime(long time) {
-        int index = binarySearch(time);
-        if (index >= 0) return rawData.valueAt(index);
+    public Interval getValueToTime(long time) {
+        IntervalIndex<T> snapshot = this.index;
+        int index = binarySearch(snapshot, time);
+        if (index >= 0) return snapshot.get(index);
         // if we request data older than first record, use oldest with zero duration instead
-        for (index = 0; index < rawData.size(); index++) {
-            if (rawData.valueAt(index).durationInMsec() == 0) {
+        for (index = 0; index < snapshot.size(); index++) {
+            if (snapshot.get(index).durationInMsec() == 0) {
                 //log.debug("Requested profile for time: " + DateUtil.dateAndTimeString(time) + ". Providing oldest record: " + rawData.valueAt(0).toString());
-                return rawData.valueAt(index);
+                return snapshot.get(index);
             }
         }
         return null;
     }
 
-    public synchronized List<T> getList() {
-        List<T> list = new ArrayList<>();
-        for (int i = 0; i < rawData.size(); i++)
-            list.add(rawData.valueAt(i));
-        return list;
+    public List<T> getList() {
+        return index.getList();
     }
 
-    public synchronized List<T> getReversedList() {
-        List<T> list = new ArrayList<>();
-        for (int i = rawData.size() - 1; i >= 0; i--)
-            list.add(rawData.valueAt(i));
-        return list;
+    public List<T> getReversedList() {
+        return index.getReversedList();
     }
 
-    private synchronized int binarySearch(long value) {
-        if (rawData.size() == 0)
+    private static int binarySearch(IntervalIndex<? extends Interval> snapshot, long value) {
+        if (snapshot.size() == 0)
             return -1;
         int lo = 0;
-        int hi = rawData.size() - 1;
+        int hi = snapshot.size() - 1;
 
         while (lo <= hi) {
             final int mid = (lo + hi) >>> 1;
-            final Interval midVal = rawData.valueAt(mid);
+            final Interval midVal = snapshot.get(mid);
 
             if (midVal.match(value)) {
                 return mid;  // value found
@@ -109,28 +118,32 @@ public class ProfileIntervals<T extends Interval> {
         }
         // not found, try nearest older with duration 0
         lo = lo - 1;
-        while (lo >= 0 && lo < rawData.size()) {
-            if (rawData.valueAt(lo).isEndingEvent())
+        while (lo >= 0 && lo < snapshot.size()) {
+            if (snapshot.get(lo).isEndingEvent())
                 return lo;
             lo--;
         }
         return -1;  // value not present
     }
 
-    public synchronized int size() {
-        return rawData.size();
+    public IntervalIndex<T> getIndex() {
+        return index;
+    }
+
+    public int size() {
+        return index.size();
     }
 
-    public synchronized T get(int index) {
-        return rawData.valueAt(index);
+    public T get(int index) {
+        return this.index.get(index);
     }
 
-    public synchronized T getReversed(int index) {
-        return rawData.valueAt(size() - 1 - index);
+    public T getReversed(int index) {
+        return this.index.getReversed(index);
     }
 
     @Override
     public String toString() {
-        return rawData.toString();
+        return index.getList().toString();
     }
 }
\ No newline at end of file
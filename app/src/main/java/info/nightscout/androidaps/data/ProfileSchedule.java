@@ -0,0 +1,56 @@
+package info.nightscout.androidaps.data;
+
+import android.support.v4.util.LongSparseArray;
+
+/**
+ * Compiled profile schedule (basal, ISF, IC, targets) with percentage and timeshift already applied.
+ * Every minute of the day points to the block active at its start so lookup is O(1)
+ * without boxing. Blocks starting in the middle of a minute are resolved by checking the following block.
+ * <p>
+ * Immutable, safe to share between threads
+ */
+class ProfileSchedule {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int[] starts; // seconds from midnight, ascending
+    private final double[] values;
+    private final short[] blockAtMinute = new short[MINUTES_PER_DAY];
+
+    ProfileSchedule(LongSparseArray<Double> array) {
+        int size = array.size();
+        starts = new int[size];
+        values = new double[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = (int) array.keyAt(i);
+            values[i] = array.valueAt(i);
+        }
+        int block = 0;
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            while (block + 1 < size && starts[block + 1] <= minute * 60)
+                block++;
+            blockAtMinute[minute] = (short) block;
+        }
+    }
+
+    int size() {
+        return starts.length;
+    }
+
+    /**
+     * Same result as scanning the original array: value of the last block starting before or at timeAsSeconds,
+     * first value if timeAsSeconds precedes all blocks
+     */
+    double valueAt(int timeAsSeconds) {
+        if (timeAsSeconds < 0)
+            return values[0];
+        if (timeAsSeconds >= MINUTES_PER_DAY * 60)
+            return valueAfter(starts.length - 1, timeAsSeconds);
+        return valueAfter(blockAtMinute[timeAsSeconds / 60], timeAsSeconds);
+    }
+
+    private double valueAfter(int block, int timeAsSeconds) {
+        while (block + 1 < starts.length && starts[block + 1] <= timeAsSeconds)
+            block++;
+        return values[block];
+    }
+}
@@ -8,9 +8,11 @@ import android.support.annotation.Nullable;
 import com.j256.ormlite.android.apptools.OrmLiteSqliteOpenHelper;
 import com.j256.ormlite.dao.CloseableIterator;
 import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.PreparedQuery;
 import com.j256.ormlite.stmt.QueryBuilder;
 import com.j256.ormlite.stmt.Where;
+import com.j256.ormlite.misc.TransactionManager;
 import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.table.TableUtils;
 
@@ -21,7 +23,9 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -54,8 +58,10 @@ import info.nightscout.androidaps.plugins.pump.insight.database.InsightBolusID;
 import info.nightscout.androidaps.plugins.pump.insight.database.InsightHistoryOffset;
 import info.nightscout.androidaps.plugins.pump.insight.database.InsightPumpID;
 import info.nightscout.androidaps.plugins.pump.virtual.VirtualPumpPlugin;
+import info.nightscout.androidaps.plugins.treatments.TreatmentsPlugin;
 import info.nightscout.androidaps.utils.JsonHelper;
 import info.nightscout.androidaps.utils.PercentageSplitter;
+import info.nightscout.androidaps.utils.SafeParse;
 import info.nightscout.androidaps.utils.ToastUtils;
 
 /**
@@ -83,12 +89,16 @@ public class DatabaseHelper extends OrmLiteSqliteOpenHelper {
     public static final String DATABASE_INSIGHT_BOLUS_IDS = "InsightBolusIDs";
     public static final String DATABASE_INSIGHT_PUMP_IDS = "InsightPumpIDs";
 
-    private static final int DATABASE_VERSION = 11;
+    private static final int DATABASE_VERSION = 12;
+
+    private static final int BATCH_QUERY_SIZE = 500; // SQLite allows 999 variables in one statement
 
     public static Long earliestDataChange = null;
 
     private static final ScheduledExecutorService bgWorker = Executors.newSingleThreadScheduledExecutor();
     private static ScheduledFuture<?> scheduledBgPost = null;
+    private static final Object bgChangeLock = new Object();
+    private static long bgChangedFrom = Long.MAX_VALUE; // oldest BgReading changed since last EventNewBG
 
     private static final ScheduledExecutorService tempBasalsWorker = Executors.newSingleThreadScheduledExecutor();
     private static ScheduledFuture<?> scheduledTemBasalsPost = null;
@@ -170,6 +180,10 @@ public class DatabaseHelper extends OrmLiteSqliteOpenHelper {
                 database.execSQL("UPDATE sqlite_sequence SET seq = " + System.currentTimeMillis() + " WHERE name = \"" + DATABASE_INSIGHT_BOLUS_IDS + "\"");
                 database.execSQL("UPDATE sqlite_sequence SET seq = " + System.currentTimeMillis() + " WHERE name = \"" + DATABASE_INSIGHT_PUMP_IDS + "\"");
             }
+            if (oldVersion < 12) {
+                // same index as created by OrmLite for new tables, DbRequests are deleted by mongo _id
+                database.execSQL("CREATE INDEX IF NOT EXISTS `" + DATABASE_DBREQUESTS + "__id_idx` ON `" + DATABASE_DBREQUESTS + "` ( `_id` )");
+            }
         } catch (SQLException e) {
             log.error("Can't drop databases", e);
             throw new RuntimeException(e);
@@ -203,6 +217,29 @@ public class DatabaseHelper extends OrmLiteSqliteOpenHelper {
         return DatabaseUtils.queryNumEntries(getReadableDatabase(), database);
     }
 
+    /**
+     * Runs all writes of a batch (like NS sync) in one transaction instead of committing every row.
+     * Change events are delayed and merged already, so each of them is fired once for the batch.
+     */
+    public void runInTransaction(Runnable batch) {
+        try {
+            TransactionManager.callInTransaction(connectionSource, () -> {
+                batch.run();
+                return null;
+            });
+        } catch (SQLException e) {
+            log.error("Unhandled exception", e);
+            // nothing is stored but changes may be announced already, reload everything
+            scheduleBgChange(null);
+            scheduleTemporaryBasalChange();
+            scheduleExtendedBolusChange();
+            scheduleTemporaryTargetChange();
+            scheduleCareportalEventChange();
+            scheduleProfileSwitchChange();
+            TreatmentsPlugin.getPlugin().getService().reloadTreatments();
+        }
+    }
+
     // --------------------- DB resets ---------------------
 
     public void resetDatabases() {
@@ -395,24 +432,100 @@ public class DatabaseHelper extends OrmLiteSqliteOpenHelper {
         return false;
     }
 
+    /**
+     * Same as createIfNotExists for every reading, but with one query for existing records
+     * per chunk and all writes in one transaction. EventNewBG is fired once.
+     *
+     * @return number of new records
+     */
+    public int createIfNotExists(List<BgReading> bgReadings, String from) {
+        try {
+            Dao<BgReading, Long> dao = getDaoBgReadings();
+            return dao.callBatchTasks(() -> {
+                int created = 0;
+                BgReading newestChange = null;
+                for (int start = 0; start < bgReadings.size(); start += BATCH_QUERY_SIZE) {
+                    List<BgReading> chunk = bgReadings.subList(start, Math.min(start + BATCH_QUERY_SIZE, bgReadings.size()));
+                    List<Long> dates = new ArrayList<>(chunk.size());
+                    for (BgReading bgReading : chunk) {
+                        bgReading.date = roundDateToSec(bgReading.date);
+                        dates.add(bgReading.date);
+                    }
+                    Map<Long, BgReading> existing = new HashMap<>();
+                    for (BgReading old : dao.queryBuilder().where().in("date", dates).query())
+                        existing.put(old.date, old);
+
+                    for (BgReading bgReading : chunk) {
+                        BgReading old = existing.get(bgReading.date);
+                        if (old == null) {
+                            dao.create(bgReading);
+                            existing.put(bgReading.date, bgReading);
+                            created++;
+                            if (L.isEnabled(L.DATABASE))
+                                log.debug("BG: New record from: " + from + " " + bgReading.toString());
+                        } else if (!old.isEqual(bgReading)) {
+                            if (L.isEnabled(L.DATABASE))
+                                log.debug("BG: Similiar found: " + old.toString());
+                            old.copyFrom(bgReading);
+                            dao.update(old);
+                            if (L.isEnabled(L.DATABASE))
+                                log.debug("BG: Updating record from: " + from + " New data: " + old.toString());
+                        } else {
+                            continue;
+                        }
+                        markBgChanged(bgReading.date);
+                        if (newestChange == null || bgReading.date > newestChange.date)
+                            newestChange = bgReading;
+                    }
+                }
+                if (newestChange != null)
+                    scheduleBgChange(newestChange);
+                if (L.isEnabled(L.DATABASE))
+                    log.debug("BG: Batch from: " + from + " size: " + bgReadings.size() + " new: " + created);
+                return created;
+            });
+        } catch (Exception e) {
+            log.error("Unhandled exception", e);
+            scheduleBgChange(null);
+        }
+        return 0;
+    }
+
     public void update(BgReading bgReading) {
         bgReading.date = roundDateToSec(bgReading.date);
         try {
             getDaoBgReadings().update(bgReading);
+            markBgChanged(bgReading.date);
         } catch (SQLException e) {
             log.error("Unhandled exception", e);
         }
     }
 
+    // loaded BG data newer than this must be read again, 0 = all
+    private static void markBgChanged(long date) {
+        synchronized (bgChangeLock) {
+            bgChangedFrom = Math.min(bgChangedFrom, date);
+        }
+    }
+
+    private static long takeBgChangedFrom() {
+        synchronized (bgChangeLock) {
+            long changedFrom = bgChangedFrom;
+            bgChangedFrom = Long.MAX_VALUE;
+            return changedFrom;
+        }
+    }
+
     private static void scheduleBgChange(@Nullable final BgReading bgReading) {
         class PostRunnable implements Runnable {
             public void run() {
                 if (L.isEnabled(L.DATABASE))
                     log.debug("Firing EventNewBg");
-                MainApp.bus().post(new EventNewBG(bgReading));
+                MainApp.bus().post(new EventNewBG(bgReading, takeBgChangedFrom()));
                 scheduledBgPost = null;
             }
         }
+        markBgChanged(bgReading != null ? bgReading.date : 0);
         // prepare task for execution in 1 sec
         // cancel waiting task to prevent sending multiple posts
         if (scheduledBgPost != null)
@@ -563,22 +676,52 @@ public class DatabaseHelper extends OrmLiteSqliteOpenHelper {
         return 0;
     }
 
-    public void deleteDbRequestbyMongoId(String action, String id) {
+    /**
+     * @return number of deleted requests
+     */
+    public int deleteDbRequests(List<String> nsClientIds) {
         try {
-            QueryBuilder<DbRequest, String> queryBuilder = getDaoDbRequest().queryBuilder();
-            Where where = queryBuilder.where();
-            where.eq("_id", id).and().eq("action", action);
-            queryBuilder.limit(10L);
-            PreparedQuery<DbRequest> preparedQuery = queryBuilder.prepare();
-            List<DbRequest> dbList = getDaoDbRequest().query(preparedQuery);
-            for (DbRequest r : dbList) {
-                delete(r);
+            Dao<DbRequest, String> dao = getDaoDbRequest();
+            int deleted = 0;
+            for (int i = 0; i < nsClientIds.size(); i += BATCH_QUERY_SIZE) {
+                deleted += dao.deleteIds(nsClientIds.subList(i, Math.min(i + BATCH_QUERY_SIZE, nsClientIds.size())));
             }
+            return deleted;
+        } catch (SQLException e) {
+            log.error("Unhandled exception", e);
+        }
+        return 0;
+    }
+
+    public void deleteDbRequestbyMongoId(String action, String id) {
+        try {
+            DeleteBuilder<DbRequest, String> deleteBuilder = getDaoDbRequest().deleteBuilder();
+            deleteBuilder.where().eq("_id", id).and().eq("action", action);
+            deleteBuilder.delete();
         } catch (SQLException e) {
             log.error("Unhandled exception", e);
         }
     }
 
+    /**
+     * nsClientID is the time of queuing
+     *
+     * @return time of the oldest request, 0 if there is none
+     */
+    public long getOldestDbRequestTime() {
+        try {
+            DbRequest oldest = getDaoDbRequest().queryBuilder()
+                    .orderBy("nsClientID", true)
+                    .limit(1L)
+                    .queryForFirst();
+            if (oldest != null)
+                return SafeParse.stringToLong(oldest.nsClientID);
+        } catch (SQLException e) {
+            log.error("Unhandled exception", e);
+        }
+        return 0;
+    }
+
     public void deleteAllDbRequests() {
         try {
             TableUtils.clearTable(connectionSource, DbRequest.class);
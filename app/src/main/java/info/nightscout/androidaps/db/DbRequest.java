@@ -33,7 +33,7 @@ public class DbRequest {
     @DatabaseField
     public String data = null;
 
-    @DatabaseField
+    @DatabaseField(index = true)
     public String _id = null;
 
     public DbRequest() {
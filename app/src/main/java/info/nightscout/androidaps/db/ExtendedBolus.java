@@ -16,7 +16,6 @@ import org.slf4j.LoggerFactory;
 import java.util.Objects;
 
 import info.nightscout.androidaps.Constants;
-import info.nightscout.androidaps.data.Iob;
 import info.nightscout.androidaps.data.IobTotal;
 import info.nightscout.androidaps.interfaces.InsulinInterface;
 import info.nightscout.androidaps.interfaces.Interval;
@@ -24,7 +23,6 @@ import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.plugins.configBuilder.ConfigBuilderPlugin;
 import info.nightscout.androidaps.plugins.general.overview.graphExtensions.DataPointWithLabelInterface;
 import info.nightscout.androidaps.plugins.general.overview.graphExtensions.PointsWithLabelGraphSeries;
-import info.nightscout.androidaps.plugins.treatments.Treatment;
 import info.nightscout.androidaps.utils.DateUtil;
 import info.nightscout.androidaps.utils.DecimalFormatter;
 import info.nightscout.androidaps.utils.JsonHelper;
@@ -225,24 +223,27 @@ public class ExtendedBolus implements Interval, DataPointWithLabelInterface {
             double dia_ago = time - dia * 60 * 60 * 1000;
             int aboutFiveMinIntervals = (int) Math.ceil(realDuration / 5d);
             double spacing = realDuration / aboutFiveMinIntervals;
+            double tempBolusSize = absoluteRate() * spacing / 60d;
+            long[] partDates = new long[aboutFiveMinIntervals];
+            double[] partAmounts = new double[aboutFiveMinIntervals];
+            int parts = 0;
 
             for (long j = 0L; j < aboutFiveMinIntervals; j++) {
                 // find middle of the interval
                 long calcdate = (long) (date + j * spacing * 60 * 1000 + 0.5d * spacing * 60 * 1000);
 
                 if (calcdate > dia_ago && calcdate <= time) {
-                    double tempBolusSize = absoluteRate() * spacing / 60d;
-
-                    Treatment tempBolusPart = new Treatment();
-                    tempBolusPart.insulin = tempBolusSize;
-                    tempBolusPart.date = calcdate;
-
-                    Iob aIOB = insulinInterface.iobCalcForTreatment(tempBolusPart, time, dia);
-                    result.iob += aIOB.iobContrib;
-                    result.activity += aIOB.activityContrib;
-                    result.extendedBolusInsulin += tempBolusPart.insulin;
+                    partDates[parts] = calcdate;
+                    partAmounts[parts] = tempBolusSize;
+                    parts++;
+                    result.extendedBolusInsulin += tempBolusSize;
                 }
             }
+
+            double[] iobAndActivity = new double[2];
+            insulinInterface.iobCalcForParts(partDates, partAmounts, parts, time, dia, iobAndActivity);
+            result.iob += iobAndActivity[0];
+            result.activity += iobAndActivity[1];
         }
         return result;
     }
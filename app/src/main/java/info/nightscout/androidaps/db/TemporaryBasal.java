@@ -9,7 +9,6 @@ import org.slf4j.LoggerFactory;
 import java.util.Objects;
 
 import info.nightscout.androidaps.R;
-import info.nightscout.androidaps.data.Iob;
 import info.nightscout.androidaps.data.IobTotal;
 import info.nightscout.androidaps.data.Profile;
 import info.nightscout.androidaps.interfaces.InsulinInterface;
@@ -17,7 +16,6 @@ import info.nightscout.androidaps.interfaces.Interval;
 import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.plugins.configBuilder.ConfigBuilderPlugin;
 import info.nightscout.androidaps.plugins.configBuilder.ProfileFunctions;
-import info.nightscout.androidaps.plugins.treatments.Treatment;
 import info.nightscout.androidaps.utils.DateUtil;
 import info.nightscout.androidaps.utils.DecimalFormatter;
 import info.nightscout.androidaps.utils.SP;
@@ -238,6 +236,9 @@ public class TemporaryBasal implements Interval {
             double dia_ago = time - dia * 60 * 60 * 1000;
             int aboutFiveMinIntervals = (int) Math.ceil(realDuration / 5d);
             double tempBolusSpacing = realDuration / aboutFiveMinIntervals;
+            long[] partDates = new long[aboutFiveMinIntervals];
+            double[] partAmounts = new double[aboutFiveMinIntervals];
+            int parts = 0;
 
             for (long j = 0L; j < aboutFiveMinIntervals; j++) {
                 // find middle of the interval
@@ -257,20 +258,21 @@ public class TemporaryBasal implements Interval {
                     double tempBolusSize = netBasalRate * tempBolusSpacing / 60d;
                     netBasalAmount += tempBolusSize;
 
-                    Treatment tempBolusPart = new Treatment();
-                    tempBolusPart.insulin = tempBolusSize;
-                    tempBolusPart.date = calcdate;
-
-                    Iob aIOB = insulinInterface.iobCalcForTreatment(tempBolusPart, time, dia);
-                    result.basaliob += aIOB.iobContrib;
-                    result.activity += aIOB.activityContrib;
-                    result.netbasalinsulin += tempBolusPart.insulin;
-                    if (tempBolusPart.insulin > 0) {
-                        result.hightempinsulin += tempBolusPart.insulin;
+                    partDates[parts] = calcdate;
+                    partAmounts[parts] = tempBolusSize;
+                    parts++;
+                    result.netbasalinsulin += tempBolusSize;
+                    if (tempBolusSize > 0) {
+                        result.hightempinsulin += tempBolusSize;
                     }
                 }
                 result.netRatio = netBasalRate; // ratio at the end of interval
             }
+
+            double[] iobAndActivity = new double[2];
+            insulinInterface.iobCalcForParts(partDates, partAmounts, parts, time, dia, iobAndActivity);
+            result.basaliob += iobAndActivity[0];
+            result.activity += iobAndActivity[1];
         }
         result.netInsulin = netBasalAmount;
         return result;
@@ -0,0 +1,11 @@
+package info.nightscout.androidaps.events;
+
+/**
+ * Marker for events which only say "something changed, refresh yourself".
+ * <p>
+ * Such events are delivered by CoalescingBus on background thread instead of the posting thread
+ * and if more of them are waiting for the same receiver only the latest one is delivered.
+ * Don't use it for events carrying data the receiver must see.
+ */
+public interface CoalescedEvent {
+}
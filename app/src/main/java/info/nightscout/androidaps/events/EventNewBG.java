@@ -10,8 +10,11 @@ import info.nightscout.androidaps.db.BgReading;
 public class EventNewBG extends EventLoop {
     @Nullable
     public final BgReading bgReading;
+    // date of the oldest BgReading changed since previous event, 0 if unknown
+    public final long changedFrom;
 
-    public EventNewBG(BgReading bgReading) {
+    public EventNewBG(BgReading bgReading, long changedFrom) {
         this.bgReading = bgReading;
+        this.changedFrom = changedFrom;
     }
 }
@@ -4,7 +4,7 @@ package info.nightscout.androidaps.events;
  * Created by mike on 16.06.2017.
  */
 
-public class EventRefreshOverview extends Event {
+public class EventRefreshOverview extends Event implements CoalescedEvent {
     public String from;
 
     public EventRefreshOverview(String from) {
@@ -3,5 +3,5 @@ package info.nightscout.androidaps.events;
 /**
  * Created by mike on 05.06.2016.
  */
-public class EventTempBasalChange extends EventLoop {
+public class EventTempBasalChange extends EventLoop implements CoalescedEvent {
 }
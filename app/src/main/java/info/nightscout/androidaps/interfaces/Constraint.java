@@ -18,8 +18,24 @@ public class Constraint<T extends Comparable> {
     T value;
     T originalValue;
 
-    List<String> reasons = new ArrayList<>();
-    List<String> mostLimiting = new ArrayList<>();
+    // formatted only when reasons are requested by UI or log
+    List<Reason> reasons = new ArrayList<>();
+    List<Reason> mostLimiting = new ArrayList<>();
+
+    static class Reason {
+        final String reason;
+        final Object from;
+
+        Reason(String reason, Object from) {
+            this.reason = reason;
+            this.from = from;
+        }
+
+        @Override
+        public String toString() {
+            return translateFrom(from) + ": " + reason;
+        }
+    }
 
     public Constraint(T value) {
         this.value = value;
@@ -90,24 +106,24 @@ public class Constraint<T extends Comparable> {
         return this;
     }
 
-    private String translateFrom(Object from) {
+    private static String translateFrom(Object from) {
         return from.getClass().getSimpleName().replace("Plugin", "");
     }
 
     public Constraint addReason(String reason, Object from) {
-        reasons.add(translateFrom(from) + ": " + reason);
+        reasons.add(new Reason(reason, from));
         return this;
     }
 
     public Constraint addMostLimingReason(String reason, Object from) {
-        mostLimiting.add(translateFrom(from) + ": " + reason);
+        mostLimiting.add(new Reason(reason, from));
         return this;
     }
 
     public String getReasons() {
         StringBuilder sb = new StringBuilder();
         int count = 0;
-        for (String r : reasons) {
+        for (Reason r : reasons) {
             if (count++ != 0) sb.append("\n");
             sb.append(r);
         }
@@ -117,13 +133,13 @@ public class Constraint<T extends Comparable> {
     }
 
     public List<String> getReasonList() {
-        return reasons;
+        return toStringList(reasons);
     }
 
     public String getMostLimitedReasons() {
         StringBuilder sb = new StringBuilder();
         int count = 0;
-        for (String r : mostLimiting) {
+        for (Reason r : mostLimiting) {
             if (count++ != 0) sb.append("\n");
             sb.append(r);
         }
@@ -133,12 +149,18 @@ public class Constraint<T extends Comparable> {
     }
 
     public List<String> getMostLimitedReasonList() {
-        return mostLimiting;
+        return toStringList(mostLimiting);
     }
 
-    public void copyReasons(Constraint<?> another) {
-        for (String s : another.getReasonList()) {
-            reasons.add(s);
+    private static List<String> toStringList(List<Reason> list) {
+        List<String> result = new ArrayList<>(list.size());
+        for (Reason r : list) {
+            result.add(r.toString());
         }
+        return result;
+    }
+
+    public void copyReasons(Constraint<?> another) {
+        reasons.addAll(another.reasons);
     }
 }
@@ -20,4 +20,24 @@ public interface InsulinInterface {
     String getComment();
     double getDia();
     Iob iobCalcForTreatment(Treatment treatment, long time, double dia);
+
+    /**
+     * Sum of IOB and activity of insulin parts (temp basal and extended bolus slices)
+     * without allocating Treatment and Iob for every part
+     *
+     * @param dates   delivery time of parts
+     * @param amounts insulin of parts
+     * @param count   number of valid parts in arrays
+     * @param result  [0] iob and [1] activity are increased by the contribution of parts
+     */
+    default void iobCalcForParts(long[] dates, double[] amounts, int count, long time, double dia, double[] result) {
+        for (int i = 0; i < count; i++) {
+            Treatment part = new Treatment();
+            part.insulin = amounts[i];
+            part.date = dates[i];
+            Iob iob = iobCalcForTreatment(part, time, dia);
+            result[0] += iob.iobContrib;
+            result[1] += iob.activityContrib;
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package info.nightscout.androidaps.plugins.aps.loop;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps compiled oref scripts and sealed standard objects between loop runs
+ * so every invocation only executes the already compiled code in a fresh scope
+ * instead of reading assets and parsing the sources again.
+ * <p>
+ * Compiled scripts don't hold any state and may be executed from any thread in its own Context.
+ */
+public class ScriptCache {
+
+    private static ScriptableObject sharedScope = null;
+    private static final Map<String, Script> scripts = new HashMap<>();
+
+    /**
+     * Create per-invocation scope on top of sealed shared standard objects
+     * Must be called within entered Context
+     */
+    public static Scriptable newScope(Context rhino) {
+        Scriptable scope = rhino.newObject(getSharedScope(rhino));
+        scope.setPrototype(getSharedScope(rhino));
+        scope.setParentScope(null);
+        return scope;
+    }
+
+    private static synchronized ScriptableObject getSharedScope(Context rhino) {
+        if (sharedScope == null)
+            sharedScope = rhino.initStandardObjects(null, true);
+        return sharedScope;
+    }
+
+    /**
+     * Compiled script from assets, read and compiled only on first use
+     */
+    public static synchronized Script getFile(Context rhino, ScriptReader scriptReader, String fileName) throws IOException {
+        Script script = scripts.get(fileName);
+        if (script == null) {
+            script = compile(rhino, readFile(scriptReader, fileName), fileName);
+            scripts.put(fileName, script);
+        }
+        return script;
+    }
+
+    /**
+     * Compiled inline code, key is the source itself
+     */
+    public static synchronized Script getSource(Context rhino, String source, String sourceName) {
+        Script script = scripts.get(source);
+        if (script == null) {
+            script = compile(rhino, source, sourceName);
+            scripts.put(source, script);
+        }
+        return script;
+    }
+
+    public static synchronized void clear() {
+        scripts.clear();
+        sharedScope = null;
+    }
+
+    private static Script compile(Context rhino, String source, String sourceName) {
+        // Turn off optimization to make Rhino Android compatible
+        rhino.setOptimizationLevel(-1);
+        return rhino.compileString(source, sourceName, 0, null);
+    }
+
+    private static String readFile(ScriptReader scriptReader, String filename) throws IOException {
+        byte[] bytes = scriptReader.readFile(filename);
+        String string = new String(bytes, "UTF-8");
+        if (string.startsWith("#!/usr/bin/env node")) {
+            string = string.substring(20);
+        }
+        return string;
+    }
+}
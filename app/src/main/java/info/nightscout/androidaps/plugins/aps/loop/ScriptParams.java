@@ -0,0 +1,52 @@
+package info.nightscout.androidaps.plugins.aps.loop;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.Undefined;
+
+import java.util.Iterator;
+
+/**
+ * Converts determine-basal inputs directly to Rhino objects
+ * without serializing them to string and parsing them back by NativeJSON
+ */
+public class ScriptParams {
+
+    public static Object fromJSON(Context rhino, Scriptable scope, JSONObject json) {
+        if (json == null) return Undefined.instance;
+        return convert(rhino, scope, json);
+    }
+
+    public static Object fromJSON(Context rhino, Scriptable scope, JSONArray json) {
+        if (json == null) return Undefined.instance;
+        return convert(rhino, scope, json);
+    }
+
+    private static Object convert(Context rhino, Scriptable scope, Object value) {
+        if (value == null || value == JSONObject.NULL)
+            return null;
+        if (value instanceof JSONObject) {
+            JSONObject json = (JSONObject) value;
+            Scriptable object = rhino.newObject(scope);
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                object.put(key, object, convert(rhino, scope, json.opt(key)));
+            }
+            return object;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray json = (JSONArray) value;
+            Object[] elements = new Object[json.length()];
+            for (int i = 0; i < json.length(); i++)
+                elements[i] = convert(rhino, scope, json.opt(i));
+            return rhino.newArray(scope, elements);
+        }
+        // JSON.parse produces doubles for all numbers, keep the same types for the scripts
+        if (value instanceof Number)
+            return ((Number) value).doubleValue();
+        return value;
+    }
+}
@@ -23,6 +23,8 @@ import info.nightscout.androidaps.data.MealData;
 import info.nightscout.androidaps.data.Profile;
 import info.nightscout.androidaps.db.TemporaryBasal;
 import info.nightscout.androidaps.logging.L;
+import info.nightscout.androidaps.plugins.aps.loop.ScriptCache;
+import info.nightscout.androidaps.plugins.aps.loop.ScriptParams;
 import info.nightscout.androidaps.plugins.aps.loop.ScriptReader;
 import info.nightscout.androidaps.plugins.treatments.TreatmentsPlugin;
 import info.nightscout.androidaps.utils.SP;
@@ -37,12 +39,6 @@ public class DetermineBasalAdapterMAJS {
     private JSONObject mMealData;
     private JSONObject mCurrentTemp;
 
-    private String storedCurrentTemp = null;
-    private String storedIobData = null;
-    private String storedGlucoseStatus = null;
-    private String storedProfile = null;
-    private String storedMeal_data = null;
-
     DetermineBasalAdapterMAJS(ScriptReader scriptReader) {
         mScriptReader = scriptReader;
     }
@@ -51,9 +47,10 @@ public class DetermineBasalAdapterMAJS {
         DetermineBasalResultMA determineBasalResultMA = null;
 
         Context rhino = Context.enter();
-        Scriptable scope = rhino.initStandardObjects();
         // Turn off optimization to make Rhino Android compatible
         rhino.setOptimizationLevel(-1);
+        // scripts are compiled once and only executed in a new scope on top of shared standard objects
+        Scriptable scope = ScriptCache.newScope(rhino);
 
         try {
 
@@ -63,17 +60,17 @@ public class DetermineBasalAdapterMAJS {
             scope.put("console", scope, myLogger);
 
             //set module parent
-            rhino.evaluateString(scope, "var module = {\"parent\":Boolean(1)};", "JavaScript", 0, null);
+            ScriptCache.getSource(rhino, "var module = {\"parent\":Boolean(1)};", "JavaScript").exec(rhino, scope);
 
             //generate functions "determine_basal" and "setTempBasal"
-            rhino.evaluateString(scope, readFile("OpenAPSMA/determine-basal.js"), "JavaScript", 0, null);
+            ScriptCache.getFile(rhino, mScriptReader, "OpenAPSMA/determine-basal.js").exec(rhino, scope);
 
             String setTempBasalCode = "var setTempBasal = function (rate, duration, profile, rT, offline) {" +
                     "rT.duration = duration;\n" +
                     "    rT.rate = rate;" +
                     "return rT;" +
                     "};";
-            rhino.evaluateString(scope, setTempBasalCode, "setTempBasal.js", 0, null);
+            ScriptCache.getSource(rhino, setTempBasalCode, "setTempBasal.js").exec(rhino, scope);
             Object determineBasalObj = scope.get("determine_basal", scope);
             Object setTempBasalObj = scope.get("setTempBasal", scope);
 
@@ -116,33 +113,27 @@ public class DetermineBasalAdapterMAJS {
             Context.exit();
         }
 
-        storedGlucoseStatus = mGlucoseStatus.toString();
-        storedIobData = mIobData.toString();
-        storedCurrentTemp = mCurrentTemp.toString();
-        storedProfile = mProfile.toString();
-        storedMeal_data = mMealData.toString();
-
         return determineBasalResultMA;
     }
 
     String getGlucoseStatusParam() {
-        return storedGlucoseStatus;
+        return mGlucoseStatus != null ? mGlucoseStatus.toString() : null;
     }
 
     String getCurrentTempParam() {
-        return storedCurrentTemp;
+        return mCurrentTemp != null ? mCurrentTemp.toString() : null;
     }
 
     String getIobDataParam() {
-        return storedIobData;
+        return mIobData != null ? mIobData.toString() : null;
     }
 
     String getProfileParam() {
-        return storedProfile;
+        return mProfile != null ? mProfile.toString() : null;
     }
 
     String getMealDataParam() {
-        return storedMeal_data;
+        return mMealData != null ? mMealData.toString() : null;
     }
 
     public void setData(Profile profile,
@@ -205,18 +196,8 @@ public class DetermineBasalAdapterMAJS {
         mMealData.put("boluses", mealData.boluses);
     }
 
-    private String readFile(String filename) throws IOException {
-        byte[] bytes = mScriptReader.readFile(filename);
-        String string = new String(bytes, "UTF-8");
-        if (string.startsWith("#!/usr/bin/env node")) {
-            string = string.substring(20);
-        }
-        return string;
-    }
-
     private Object makeParam(JSONObject jsonObject, Context rhino, Scriptable scope) {
-        Object param = NativeJSON.parse(rhino, scope, jsonObject.toString(), (context, scriptable, scriptable1, objects) -> objects[1]);
-        return param;
+        return ScriptParams.fromJSON(rhino, scope, jsonObject);
     }
 
 }
@@ -10,7 +10,6 @@ import org.mozilla.javascript.NativeObject;
 import org.mozilla.javascript.RhinoException;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
-import org.mozilla.javascript.Undefined;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +26,8 @@ import info.nightscout.androidaps.data.Profile;
 import info.nightscout.androidaps.db.TemporaryBasal;
 import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.plugins.iob.iobCobCalculator.IobCobCalculatorPlugin;
+import info.nightscout.androidaps.plugins.aps.loop.ScriptCache;
+import info.nightscout.androidaps.plugins.aps.loop.ScriptParams;
 import info.nightscout.androidaps.plugins.aps.loop.ScriptReader;
 import info.nightscout.androidaps.plugins.aps.openAPSMA.LoggerCallback;
 import info.nightscout.androidaps.plugins.treatments.TreatmentsPlugin;
@@ -47,12 +48,6 @@ public class DetermineBasalAdapterSMBJS {
     private boolean mMicrobolusAllowed;
     private boolean mSMBAlwaysAllowed;
 
-    private String storedCurrentTemp = null;
-    private String storedIobData = null;
-
-    private String storedGlucoseStatus = null;
-    private String storedProfile = null;
-    private String storedMeal_data = null;
     private String storedAutosens_data = null;
     private String storedMicroBolusAllowed = null;
     private String storedSMBAlwaysAllowed = null;
@@ -73,11 +68,11 @@ public class DetermineBasalAdapterSMBJS {
 
         if (L.isEnabled(L.APS)) {
             log.debug(">>> Invoking detemine_basal <<<");
-            log.debug("Glucose status: " + (storedGlucoseStatus = mGlucoseStatus.toString()));
-            log.debug("IOB data:       " + (storedIobData = mIobData.toString()));
-            log.debug("Current temp:   " + (storedCurrentTemp = mCurrentTemp.toString()));
-            log.debug("Profile:        " + (storedProfile = mProfile.toString()));
-            log.debug("Meal data:      " + (storedMeal_data = mMealData.toString()));
+            log.debug("Glucose status: " + mGlucoseStatus.toString());
+            log.debug("IOB data:       " + mIobData.toString());
+            log.debug("Current temp:   " + mCurrentTemp.toString());
+            log.debug("Profile:        " + mProfile.toString());
+            log.debug("Meal data:      " + mMealData.toString());
             if (mAutosensData != null)
                 log.debug("Autosens data:  " + (storedAutosens_data = mAutosensData.toString()));
             else
@@ -90,9 +85,10 @@ public class DetermineBasalAdapterSMBJS {
         DetermineBasalResultSMB determineBasalResultSMB = null;
 
         Context rhino = Context.enter();
-        Scriptable scope = rhino.initStandardObjects();
         // Turn off optimization to make Rhino Android compatible
         rhino.setOptimizationLevel(-1);
+        // scripts are compiled once and only executed in a new scope on top of shared standard objects
+        Scriptable scope = ScriptCache.newScope(rhino);
 
         try {
 
@@ -100,16 +96,16 @@ public class DetermineBasalAdapterSMBJS {
             ScriptableObject.defineClass(scope, LoggerCallback.class);
             Scriptable myLogger = rhino.newObject(scope, "LoggerCallback", null);
             scope.put("console2", scope, myLogger);
-            rhino.evaluateString(scope, readFile("OpenAPSAMA/loggerhelper.js"), "JavaScript", 0, null);
+            ScriptCache.getFile(rhino, mScriptReader, "OpenAPSAMA/loggerhelper.js").exec(rhino, scope);
 
             //set module parent
-            rhino.evaluateString(scope, "var module = {\"parent\":Boolean(1)};", "JavaScript", 0, null);
-            rhino.evaluateString(scope, "var round_basal = function round_basal(basal, profile) { return basal; };", "JavaScript", 0, null);
-            rhino.evaluateString(scope, "require = function() {return round_basal;};", "JavaScript", 0, null);
+            ScriptCache.getSource(rhino, "var module = {\"parent\":Boolean(1)};", "JavaScript").exec(rhino, scope);
+            ScriptCache.getSource(rhino, "var round_basal = function round_basal(basal, profile) { return basal; };", "JavaScript").exec(rhino, scope);
+            ScriptCache.getSource(rhino, "require = function() {return round_basal;};", "JavaScript").exec(rhino, scope);
 
             //generate functions "determine_basal" and "setTempBasal"
-            rhino.evaluateString(scope, readFile("OpenAPSSMB/determine-basal.js"), "JavaScript", 0, null);
-            rhino.evaluateString(scope, readFile("OpenAPSSMB/basal-set-temp.js"), "setTempBasal.js", 0, null);
+            ScriptCache.getFile(rhino, mScriptReader, "OpenAPSSMB/determine-basal.js").exec(rhino, scope);
+            ScriptCache.getFile(rhino, mScriptReader, "OpenAPSSMB/basal-set-temp.js").exec(rhino, scope);
             Object determineBasalObj = scope.get("determine_basal", scope);
             Object setTempBasalFunctionsObj = scope.get("tempBasalFunctions", scope);
 
@@ -156,34 +152,28 @@ public class DetermineBasalAdapterSMBJS {
             Context.exit();
         }
 
-        storedGlucoseStatus = mGlucoseStatus.toString();
-        storedIobData = mIobData.toString();
-        storedCurrentTemp = mCurrentTemp.toString();
-        storedProfile = mProfile.toString();
-        storedMeal_data = mMealData.toString();
-
         return determineBasalResultSMB;
 
     }
 
     String getGlucoseStatusParam() {
-        return storedGlucoseStatus;
+        return mGlucoseStatus != null ? mGlucoseStatus.toString() : null;
     }
 
     String getCurrentTempParam() {
-        return storedCurrentTemp;
+        return mCurrentTemp != null ? mCurrentTemp.toString() : null;
     }
 
     String getIobDataParam() {
-        return storedIobData;
+        return mIobData != null ? mIobData.toString() : null;
     }
 
     String getProfileParam() {
-        return storedProfile;
+        return mProfile != null ? mProfile.toString() : null;
     }
 
     String getMealDataParam() {
-        return storedMeal_data;
+        return mMealData != null ? mMealData.toString() : null;
     }
 
     String getAutosensDataParam() {
@@ -325,26 +315,11 @@ public class DetermineBasalAdapterSMBJS {
     }
 
     private Object makeParam(JSONObject jsonObject, Context rhino, Scriptable scope) {
-
-        if (jsonObject == null) return Undefined.instance;
-
-        Object param = NativeJSON.parse(rhino, scope, jsonObject.toString(), (context, scriptable, scriptable1, objects) -> objects[1]);
-        return param;
+        return ScriptParams.fromJSON(rhino, scope, jsonObject);
     }
 
     private Object makeParamArray(JSONArray jsonArray, Context rhino, Scriptable scope) {
-        //Object param = NativeJSON.parse(rhino, scope, "{myarray: " + jsonArray.toString() + " }", new Callable() {
-        Object param = NativeJSON.parse(rhino, scope, jsonArray.toString(), (context, scriptable, scriptable1, objects) -> objects[1]);
-        return param;
-    }
-
-    private String readFile(String filename) throws IOException {
-        byte[] bytes = mScriptReader.readFile(filename);
-        String string = new String(bytes, "UTF-8");
-        if (string.startsWith("#!/usr/bin/env node")) {
-            string = string.substring(20);
-        }
-        return string;
+        return ScriptParams.fromJSON(rhino, scope, jsonArray);
     }
 
 }
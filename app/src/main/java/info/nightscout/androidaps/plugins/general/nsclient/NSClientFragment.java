@@ -19,16 +19,25 @@ import android.widget.TextView;
 
 import com.squareup.otto.Subscribe;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
 import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.plugins.common.SubscriberFragment;
 import info.nightscout.androidaps.plugins.general.nsclient.events.EventNSClientNewLog;
 import info.nightscout.androidaps.plugins.general.nsclient.events.EventNSClientRestart;
 import info.nightscout.androidaps.plugins.general.nsclient.events.EventNSClientUpdateGUI;
+import info.nightscout.androidaps.plugins.general.nsclient.services.NSClientService;
+import info.nightscout.androidaps.utils.DateUtil;
 import info.nightscout.androidaps.utils.FabricPrivacy;
 import info.nightscout.androidaps.utils.SP;
+import info.nightscout.androidaps.utils.T;
 
 public class NSClientFragment extends SubscriberFragment implements View.OnClickListener, CompoundButton.OnCheckedChangeListener {
+    // queue statistics are read from database, not on UI thread
+    private static final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+
     private TextView logTextView;
     private TextView queueTextView;
     private TextView urlTextView;
@@ -144,8 +153,18 @@ public class NSClientFragment extends SubscriberFragment implements View.OnClick
 
     @Override
     protected void updateGUI() {
-        Activity activity = getActivity();
-        if (activity != null)
+        worker.execute(() -> {
+            Activity activity = getActivity();
+            if (activity == null)
+                return;
+            String queue = MainApp.gs(R.string.queue) + " <b>" + UploadQueue.size() + "</b>";
+            long oldest = UploadQueue.oldestTime();
+            if (oldest != 0)
+                queue += " " + MainApp.gs(R.string.ns_queue_oldest) + " " + MainApp.gs(R.string.minago, (int) ((DateUtil.now() - oldest) / T.mins(1).msecs()));
+            long roundTrip = NSClientService.ackTracker.averageRoundTrip();
+            if (roundTrip != 0)
+                queue += " " + MainApp.gs(R.string.ns_queue_ack) + " " + roundTrip + " ms";
+            Spanned queuetext = Html.fromHtml(queue);
             activity.runOnUiThread(() -> {
                 NSClientPlugin.getPlugin().updateLog();
                 pausedCheckbox.setChecked(SP.getBoolean(R.string.key_nsclientinternal_paused, false));
@@ -154,10 +173,10 @@ public class NSClientFragment extends SubscriberFragment implements View.OnClick
                     logScrollview.fullScroll(ScrollView.FOCUS_DOWN);
                 }
                 urlTextView.setText(NSClientPlugin.getPlugin().url());
-                Spanned queuetext = Html.fromHtml(MainApp.gs(R.string.queue) + " <b>" + UploadQueue.size() + "</b>");
                 queueTextView.setText(queuetext);
                 statusTextView.setText(NSClientPlugin.getPlugin().status);
             });
+        });
     }
 
 }
@@ -1,6 +1,5 @@
 package info.nightscout.androidaps.plugins.general.nsclient;
 
-import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.ResolveInfo;
@@ -8,7 +7,6 @@ import android.os.Build;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.annotation.Nullable;
-import android.support.v4.content.LocalBroadcastManager;
 
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONArray;
@@ -26,7 +24,6 @@ import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.plugins.configBuilder.ProfileFunctions;
-import info.nightscout.androidaps.services.Intents;
 import info.nightscout.androidaps.data.DetailedBolusInfo;
 import info.nightscout.androidaps.data.Profile;
 import info.nightscout.androidaps.db.BgReading;
@@ -39,7 +36,7 @@ import info.nightscout.androidaps.plugins.configBuilder.ConfigBuilderPlugin;
 import info.nightscout.androidaps.plugins.aps.loop.APSResult;
 import info.nightscout.androidaps.plugins.aps.loop.DeviceStatus;
 import info.nightscout.androidaps.plugins.aps.loop.LoopPlugin;
-import info.nightscout.androidaps.plugins.general.nsclient.data.DbLogger;
+import info.nightscout.androidaps.plugins.general.nsclient.receivers.DBAccessReceiver;
 import info.nightscout.androidaps.utils.BatteryLevel;
 import info.nightscout.androidaps.utils.DateUtil;
 import info.nightscout.androidaps.utils.SP;
@@ -53,7 +50,6 @@ public class NSUpload {
 
     public static void uploadTempBasalStartAbsolute(TemporaryBasal temporaryBasal, Double originalExtendedAmount) {
         try {
-            Context context = MainApp.instance().getApplicationContext();
             JSONObject data = new JSONObject();
             data.put("eventType", CareportalEvent.TEMPBASAL);
             data.put("duration", temporaryBasal.durationInMinutes);
@@ -65,15 +61,7 @@ public class NSUpload {
             data.put("enteredBy", "openaps://" + MainApp.gs(R.string.app_name));
             if (originalExtendedAmount != null)
                 data.put("originalExtendedAmount", originalExtendedAmount); // for back synchronization
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbAdd");
-            bundle.putString("collection", "treatments");
-            bundle.putString("data", data.toString());
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbAdd(intent, data.toString());
+            dbAdd("treatments", data);
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
@@ -96,7 +84,6 @@ public class NSUpload {
                     uploadTempBasalStartAbsolute(t, null);
                 }
             } else {
-                Context context = MainApp.instance().getApplicationContext();
                 JSONObject data = new JSONObject();
                 data.put("eventType", CareportalEvent.TEMPBASAL);
                 data.put("duration", temporaryBasal.durationInMinutes);
@@ -107,15 +94,7 @@ public class NSUpload {
                     data.put("pumpId", temporaryBasal.pumpId);
                 data.put("created_at", DateUtil.toISOString(temporaryBasal.date));
                 data.put("enteredBy", "openaps://" + MainApp.gs(R.string.app_name));
-                Bundle bundle = new Bundle();
-                bundle.putString("action", "dbAdd");
-                bundle.putString("collection", "treatments");
-                bundle.putString("data", data.toString());
-                Intent intent = new Intent(Intents.ACTION_DATABASE);
-                intent.putExtras(bundle);
-                intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-                LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-                DbLogger.dbAdd(intent, data.toString());
+                dbAdd("treatments", data);
             }
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
@@ -124,7 +103,6 @@ public class NSUpload {
 
     public static void uploadTempBasalEnd(long time, boolean isFakedTempBasal, long pumpId) {
         try {
-            Context context = MainApp.instance().getApplicationContext();
             JSONObject data = new JSONObject();
             data.put("eventType", CareportalEvent.TEMPBASAL);
             data.put("created_at", DateUtil.toISOString(time));
@@ -133,15 +111,7 @@ public class NSUpload {
                 data.put("isFakedTempBasal", isFakedTempBasal);
             if (pumpId != 0)
                 data.put("pumpId", pumpId);
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbAdd");
-            bundle.putString("collection", "treatments");
-            bundle.putString("data", data.toString());
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbAdd(intent, data.toString());
+            dbAdd("treatments", data);
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
@@ -149,7 +119,6 @@ public class NSUpload {
 
     public static void uploadExtendedBolus(ExtendedBolus extendedBolus) {
         try {
-            Context context = MainApp.instance().getApplicationContext();
             JSONObject data = new JSONObject();
             data.put("eventType", CareportalEvent.COMBOBOLUS);
             data.put("duration", extendedBolus.durationInMinutes);
@@ -161,15 +130,7 @@ public class NSUpload {
                 data.put("pumpId", extendedBolus.pumpId);
             data.put("created_at", DateUtil.toISOString(extendedBolus.date));
             data.put("enteredBy", "openaps://" + MainApp.gs(R.string.app_name));
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbAdd");
-            bundle.putString("collection", "treatments");
-            bundle.putString("data", data.toString());
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbAdd(intent, data.toString());
+            dbAdd("treatments", data);
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
@@ -177,7 +138,6 @@ public class NSUpload {
 
     public static void uploadExtendedBolusEnd(long time, long pumpId) {
         try {
-            Context context = MainApp.instance().getApplicationContext();
             JSONObject data = new JSONObject();
             data.put("eventType", CareportalEvent.COMBOBOLUS);
             data.put("duration", 0);
@@ -189,15 +149,7 @@ public class NSUpload {
             data.put("enteredBy", "openaps://" + MainApp.gs(R.string.app_name));
             if (pumpId != 0)
                 data.put("pumpId", pumpId);
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbAdd");
-            bundle.putString("collection", "treatments");
-            bundle.putString("data", data.toString());
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbAdd(intent, data.toString());
+            dbAdd("treatments", data);
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
@@ -258,16 +210,7 @@ public class NSUpload {
             deviceStatus.uploaderBattery = batteryLevel;
 
             deviceStatus.created_at = DateUtil.toISOString(new Date());
-            Context context = MainApp.instance().getApplicationContext();
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbAdd");
-            bundle.putString("collection", "devicestatus");
-            bundle.putString("data", deviceStatus.mongoRecord().toString());
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbAdd(intent, deviceStatus.mongoRecord().toString());
+            dbAdd("devicestatus", deviceStatus.mongoRecord());
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
@@ -338,17 +281,7 @@ public class NSUpload {
         try {
             JSONObject data = getJson(profileSwitch);
             if (profileSwitch._id != null) {
-                Context context = MainApp.instance().getApplicationContext();
-                Bundle bundle = new Bundle();
-                bundle.putString("action", "dbUpdate");
-                bundle.putString("collection", "treatments");
-                bundle.putString("data", data.toString());
-                bundle.putString("_id", profileSwitch._id);
-                Intent intent = new Intent(Intents.ACTION_DATABASE);
-                intent.putExtras(bundle);
-                intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-                LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-                DbLogger.dbAdd(intent, data.toString());
+                dbUpdate("treatments", profileSwitch._id, data);
             }
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
@@ -387,16 +320,7 @@ public class NSUpload {
                 prebolus.put("created_at", DateUtil.toISOString(preBolusDate));
                 uploadCareportalEntryToNS(prebolus);
             }
-            Context context = MainApp.instance().getApplicationContext();
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbAdd");
-            bundle.putString("collection", "treatments");
-            bundle.putString("data", data.toString());
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbAdd(intent, data.toString());
+            dbAdd("treatments", data);
         } catch (Exception e) {
             log.error("Unhandled exception", e);
         }
@@ -405,16 +329,7 @@ public class NSUpload {
 
     public static void removeCareportalEntryFromNS(String _id) {
         try {
-            Context context = MainApp.instance().getApplicationContext();
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbRemove");
-            bundle.putString("collection", "treatments");
-            bundle.putString("_id", _id);
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbRemove(intent, _id);
+            dbRemove("treatments", _id);
         } catch (Exception e) {
             log.error("Unhandled exception", e);
         }
@@ -423,21 +338,12 @@ public class NSUpload {
 
     public static void uploadOpenAPSOffline(double durationInMinutes) {
         try {
-            Context context = MainApp.instance().getApplicationContext();
             JSONObject data = new JSONObject();
             data.put("eventType", "OpenAPS Offline");
             data.put("duration", durationInMinutes);
             data.put("created_at", DateUtil.toISOString(new Date()));
             data.put("enteredBy", "openaps://" + MainApp.gs(R.string.app_name));
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbAdd");
-            bundle.putString("collection", "treatments");
-            bundle.putString("data", data.toString());
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbAdd(intent, data.toString());
+            dbAdd("treatments", data);
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
@@ -448,10 +354,6 @@ public class NSUpload {
     }
 
     public static void uploadError(String error, Date date) {
-        Context context = MainApp.instance().getApplicationContext();
-        Bundle bundle = new Bundle();
-        bundle.putString("action", "dbAdd");
-        bundle.putString("collection", "treatments");
         JSONObject data = new JSONObject();
         try {
             data.put("eventType", "Announcement");
@@ -462,19 +364,10 @@ public class NSUpload {
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
-        bundle.putString("data", data.toString());
-        Intent intent = new Intent(Intents.ACTION_DATABASE);
-        intent.putExtras(bundle);
-        intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-        LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-        DbLogger.dbAdd(intent, data.toString());
+        dbAdd("treatments", data);
     }
 
     public static void uploadBg(BgReading reading, String source) {
-        Context context = MainApp.instance().getApplicationContext();
-        Bundle bundle = new Bundle();
-        bundle.putString("action", "dbAdd");
-        bundle.putString("collection", "entries");
         JSONObject data = new JSONObject();
         try {
             data.put("device", source);
@@ -486,20 +379,11 @@ public class NSUpload {
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
-        bundle.putString("data", data.toString());
-        Intent intent = new Intent(Intents.ACTION_DATABASE);
-        intent.putExtras(bundle);
-        intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-        LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-        DbLogger.dbAdd(intent, data.toString());
+        dbAdd("entries", data);
     }
 
     public static void uploadAppStart() {
         if (SP.getBoolean(R.string.key_ns_logappstartedevent, true)) {
-            Context context = MainApp.instance().getApplicationContext();
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbAdd");
-            bundle.putString("collection", "treatments");
             JSONObject data = new JSONObject();
             try {
                 data.put("eventType", "Note");
@@ -508,20 +392,11 @@ public class NSUpload {
             } catch (JSONException e) {
                 log.error("Unhandled exception", e);
             }
-            bundle.putString("data", data.toString());
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbAdd(intent, data.toString());
+            dbAdd("treatments", data);
         }
     }
 
     public static void uploadEvent(String careportalEvent, long time, @Nullable String notes) {
-        Context context = MainApp.instance().getApplicationContext();
-        Bundle bundle = new Bundle();
-        bundle.putString("action", "dbAdd");
-        bundle.putString("collection", "treatments");
         JSONObject data = new JSONObject();
         try {
             data.put("eventType", careportalEvent);
@@ -533,26 +408,12 @@ public class NSUpload {
         } catch (JSONException e) {
             log.error("Unhandled exception", e);
         }
-        bundle.putString("data", data.toString());
-        Intent intent = new Intent(Intents.ACTION_DATABASE);
-        intent.putExtras(bundle);
-        intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-        LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-        DbLogger.dbAdd(intent, data.toString());
+        dbAdd("treatments", data);
     }
 
     public static void removeFoodFromNS(String _id) {
         try {
-            Context context = MainApp.instance().getApplicationContext();
-            Bundle bundle = new Bundle();
-            bundle.putString("action", "dbRemove");
-            bundle.putString("collection", "food");
-            bundle.putString("_id", _id);
-            Intent intent = new Intent(Intents.ACTION_DATABASE);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(context).sendBroadcast(intent);
-            DbLogger.dbRemove(intent, _id);
+            dbRemove("food", _id);
         } catch (Exception e) {
             log.error("Unhandled exception", e);
         }
@@ -606,4 +467,24 @@ public class NSUpload {
             return true;
         return false;
     }
+
+    // Records go directly to DBAccessReceiver without serializing to Intent and parsing back,
+    // queued on its thread. ACTION_DATABASE broadcast is still received from external apps
+    private static void dbAdd(String collection, JSONObject data) {
+        if (L.isEnabled(L.NSCLIENT))
+            log.debug("DBADD " + collection + " " + data.toString());
+        DBAccessReceiver.postRequest("dbAdd", collection, null, data);
+    }
+
+    private static void dbUpdate(String collection, String _id, JSONObject data) {
+        if (L.isEnabled(L.NSCLIENT))
+            log.debug("DBUPDATE " + collection + " " + _id + " " + data.toString());
+        DBAccessReceiver.postRequest("dbUpdate", collection, _id, data);
+    }
+
+    private static void dbRemove(String collection, String _id) {
+        if (L.isEnabled(L.NSCLIENT))
+            log.debug("DBREMOVE " + collection + " " + _id);
+        DBAccessReceiver.postRequest("dbRemove", collection, _id, null);
+    }
 }
@@ -0,0 +1,96 @@
+package info.nightscout.androidaps.plugins.general.nsclient;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Requests from UploadQueue sent to NS and waiting for ACK
+ * <p>
+ * Sent requests are not sent again until ACK is received or ACK_TIMEOUT elapses.
+ * Number of requests sent in one resend pass follows ACK round trip time:
+ * it grows while NS answers fast and is halved when answers get slow.
+ */
+public class UploadAckTracker {
+    static final long ACK_TIMEOUT = 60 * 1000L;
+    static final int MIN_BATCH = 5;
+    static final int MAX_BATCH = 100;
+    static final int INITIAL_BATCH = 30;
+    static final long FAST_ACK = 2 * 1000L;
+    static final long SLOW_ACK = 5 * 1000L;
+    public static final int DEFAULT_IN_FLIGHT = 30;
+
+    // nsClientID -> time of sending
+    private final Map<String, Long> inFlight = new HashMap<>();
+    private int batchSize = INITIAL_BATCH;
+    private long averageRoundTrip = 0;
+    private long lastRoundTrip = 0;
+    private boolean ackedSinceLastBatch = false;
+
+    public synchronized boolean isInFlight(String nsClientID) {
+        return inFlight.containsKey(nsClientID);
+    }
+
+    public synchronized int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public synchronized void sent(String nsClientID, long time) {
+        inFlight.put(nsClientID, time);
+    }
+
+    /**
+     * @return round trip time in ms or -1 if request is not tracked
+     */
+    public synchronized long acked(String nsClientID, long time) {
+        Long sent = inFlight.remove(nsClientID);
+        if (sent == null)
+            return -1;
+        lastRoundTrip = time - sent;
+        averageRoundTrip = averageRoundTrip == 0 ? lastRoundTrip : (averageRoundTrip * 3 + lastRoundTrip) / 4;
+        ackedSinceLastBatch = true;
+        return lastRoundTrip;
+    }
+
+    /**
+     * Drop requests without ACK, they will be sent again
+     */
+    public synchronized void expire(long time) {
+        boolean expired = false;
+        Iterator<Map.Entry<String, Long>> iterator = inFlight.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() < time - ACK_TIMEOUT) {
+                iterator.remove();
+                expired = true;
+            }
+        }
+        if (expired)
+            batchSize = Math.max(MIN_BATCH, batchSize / 2);
+    }
+
+    public synchronized void reset() {
+        inFlight.clear();
+    }
+
+    /**
+     * @return number of requests to send now
+     */
+    public synchronized int nextBatch(int maxInFlight) {
+        if (ackedSinceLastBatch) {
+            ackedSinceLastBatch = false;
+            if (averageRoundTrip < FAST_ACK)
+                batchSize = Math.min(MAX_BATCH, batchSize + MIN_BATCH);
+            else if (averageRoundTrip > SLOW_ACK)
+                batchSize = Math.max(MIN_BATCH, batchSize / 2);
+        }
+        return Math.max(0, Math.min(batchSize, maxInFlight - inFlight.size()));
+    }
+
+    public synchronized long averageRoundTrip() {
+        return averageRoundTrip;
+    }
+
+    public synchronized long lastRoundTrip() {
+        return lastRoundTrip;
+    }
+}
@@ -6,12 +6,15 @@ import android.os.SystemClock;
 
 import com.j256.ormlite.dao.CloseableIterator;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.db.DatabaseHelper;
@@ -33,6 +36,13 @@ public class UploadQueue {
         return MainApp.getDbHelper().size(DatabaseHelper.DATABASE_DBREQUESTS);
     }
 
+    /**
+     * @return time when the oldest request was queued, 0 if queue is empty
+     */
+    public static long oldestTime() {
+        return MainApp.getDbHelper().getOldestDbRequestTime();
+    }
+
     private static void startService() {
         if (NSClientService.handler == null) {
             Context context = MainApp.instance();
@@ -91,6 +101,28 @@ public class UploadQueue {
         }
     }
 
+    /**
+     * Remove all records received from NS in one delete
+     */
+    public static void removeIDs(final JSONArray records) {
+        final List<String> ids = new ArrayList<>();
+        for (int index = 0; index < records.length(); index++) {
+            JSONObject record = records.optJSONObject(index);
+            if (record != null && record.has("NSCLIENT_ID"))
+                ids.add(record.optString("NSCLIENT_ID"));
+        }
+        if (ids.size() == 0)
+            return;
+        startService();
+        if (NSClientService.handler != null) {
+            NSClientService.handler.post(() -> {
+                int removed = MainApp.getDbHelper().deleteDbRequests(ids);
+                if (removed > 0 && L.isEnabled(L.NSCLIENT))
+                    log.debug("Removed " + removed + " items from UploadQueue. " + UploadQueue.status());
+            });
+        }
+    }
+
     public static void removeID(final String action, final String _id) {
         if (_id == null || _id.equals(""))
             return;
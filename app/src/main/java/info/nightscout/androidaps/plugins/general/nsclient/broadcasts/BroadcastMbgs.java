@@ -3,13 +3,13 @@ package info.nightscout.androidaps.plugins.general.nsclient.broadcasts;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
-import android.support.v4.content.LocalBroadcastManager;
 
 import org.json.JSONArray;
 
-import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
+import info.nightscout.androidaps.services.DataService;
 import info.nightscout.androidaps.services.Intents;
+import info.nightscout.androidaps.utils.JsonHelper;
 import info.nightscout.androidaps.utils.SP;
 
 /**
@@ -18,22 +18,16 @@ import info.nightscout.androidaps.utils.SP;
 public class BroadcastMbgs {
     public static void handleNewMbg(JSONArray mbgs, Context context, boolean isDelta) {
 
-        Bundle bundle = new Bundle();
-        bundle.putString("mbgs", mbgs.toString());
-        bundle.putBoolean("delta", isDelta);
-        Intent intent = new Intent(Intents.ACTION_NEW_MBG);
-        intent.putExtras(bundle);
-        intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-        LocalBroadcastManager.getInstance(MainApp.instance()).sendBroadcast(intent);
-
-        if(SP.getBoolean(R.string.key_nsclient_localbroadcasts, false)) {
-            bundle = new Bundle();
+        if (SP.getBoolean(R.string.key_nsclient_localbroadcasts, false)) {
+            Bundle bundle = new Bundle();
             bundle.putString("mbgs", mbgs.toString());
             bundle.putBoolean("delta", isDelta);
-            intent = new Intent(Intents.ACTION_NEW_MBG);
+            Intent intent = new Intent(Intents.ACTION_NEW_MBG);
             intent.putExtras(bundle);
             intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
             context.sendBroadcast(intent);
         }
+
+        DataService.handleMbgsFromNS(JsonHelper.toObjectList(mbgs));
     }
 }
@@ -2,7 +2,8 @@ package info.nightscout.androidaps.plugins.general.nsclient.broadcasts;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.support.v4.content.LocalBroadcastManager;
+import android.os.Handler;
+import android.os.HandlerThread;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -11,12 +12,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
+import info.nightscout.androidaps.events.EventNsTreatment;
 import info.nightscout.androidaps.logging.L;
+import info.nightscout.androidaps.services.DataService;
 import info.nightscout.androidaps.services.Intents;
+import info.nightscout.androidaps.utils.JsonHelper;
 import info.nightscout.androidaps.utils.SP;
 
 /**
@@ -25,104 +30,81 @@ import info.nightscout.androidaps.utils.SP;
 public class BroadcastTreatment {
     private static Logger log = LoggerFactory.getLogger(L.NSCLIENT);
 
-    public static void handleNewTreatment(JSONObject treatment, boolean isDelta, boolean isLocalBypass) {
+    // local treatments come from the thread calling NSUpload (UI, pump queue),
+    // store them on own thread like NS data on NSClientService handler
+    private static Handler localHandler;
+
+    private static synchronized Handler getLocalHandler() {
+        if (localHandler == null) {
+            HandlerThread handlerThread = new HandlerThread(BroadcastTreatment.class.getSimpleName() + "Handler");
+            handlerThread.start();
+            localHandler = new Handler(handlerThread.getLooper());
+        }
+        return localHandler;
+    }
 
-        Bundle bundle = new Bundle();
-        bundle.putString("treatment", treatment.toString());
-        bundle.putBoolean("delta", isDelta);
-        bundle.putBoolean("islocal", isLocalBypass);
-        Intent intent = new Intent(Intents.ACTION_NEW_TREATMENT);
-        intent.putExtras(bundle);
-        intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-        LocalBroadcastManager.getInstance(MainApp.instance()).sendBroadcast(intent);
+    public static void handleNewTreatment(JSONObject treatment, boolean isDelta, boolean isLocalBypass) {
 
         if (SP.getBoolean(R.string.key_nsclient_localbroadcasts, false)) {
-            bundle = new Bundle();
+            Bundle bundle = new Bundle();
             bundle.putString("treatment", treatment.toString());
             bundle.putBoolean("delta", isDelta);
-            intent = new Intent(Intents.ACTION_NEW_TREATMENT);
+            Intent intent = new Intent(Intents.ACTION_NEW_TREATMENT);
             intent.putExtras(bundle);
             intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
             MainApp.instance().getApplicationContext().sendBroadcast(intent);
         }
+
+        if (isLocalBypass)
+            getLocalHandler().post(() -> DataService.handleTreatmentsFromNS(Collections.singletonList(treatment), EventNsTreatment.ADD, true));
+        else
+            DataService.handleTreatmentsFromNS(Collections.singletonList(treatment), EventNsTreatment.ADD, false);
     }
 
     public static void handleNewTreatment(JSONArray treatments, boolean isDelta) {
 
-        List<JSONArray> splitted = splitArray(treatments);
-        for (JSONArray part : splitted) {
-            Bundle bundle = new Bundle();
-            bundle.putString("treatments", part.toString());
-            bundle.putBoolean("delta", isDelta);
-            Intent intent = new Intent(Intents.ACTION_NEW_TREATMENT);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(MainApp.instance()).sendBroadcast(intent);
-        }
+        if (SP.getBoolean(R.string.key_nsclient_localbroadcasts, false))
+            sendExternal(Intents.ACTION_NEW_TREATMENT, treatments, isDelta);
 
-        if (SP.getBoolean(R.string.key_nsclient_localbroadcasts, false)) {
-            splitted = splitArray(treatments);
-            for (JSONArray part : splitted) {
-                Bundle bundle = new Bundle();
-                bundle.putString("treatments", part.toString());
-                bundle.putBoolean("delta", isDelta);
-                Intent intent = new Intent(Intents.ACTION_NEW_TREATMENT);
-                intent.putExtras(bundle);
-                intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-                MainApp.instance().getApplicationContext().sendBroadcast(intent);
-            }
-        }
+        DataService.handleTreatmentsFromNS(JsonHelper.toObjectList(treatments), EventNsTreatment.ADD, false);
     }
 
     public static void handleChangedTreatment(JSONArray treatments, boolean isDelta) {
 
-        List<JSONArray> splitted = splitArray(treatments);
-        for (JSONArray part : splitted) {
-            Bundle bundle = new Bundle();
-            bundle.putString("treatments", part.toString());
-            bundle.putBoolean("delta", isDelta);
-            Intent intent = new Intent(Intents.ACTION_CHANGED_TREATMENT);
-            intent.putExtras(bundle);
-            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-            LocalBroadcastManager.getInstance(MainApp.instance()).sendBroadcast(intent);
-        }
+        if (SP.getBoolean(R.string.key_nsclient_localbroadcasts, false))
+            sendExternal(Intents.ACTION_CHANGED_TREATMENT, treatments, isDelta);
 
-        if (SP.getBoolean(R.string.key_nsclient_localbroadcasts, false)) {
-            splitted = splitArray(treatments);
-            for (JSONArray part : splitted) {
-                Bundle bundle = new Bundle();
-                bundle.putString("treatments", part.toString());
-                bundle.putBoolean("delta", isDelta);
-                Intent intent = new Intent(Intents.ACTION_CHANGED_TREATMENT);
-                intent.putExtras(bundle);
-                intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-                MainApp.instance().getApplicationContext().sendBroadcast(intent);
-            }
-        }
+        DataService.handleTreatmentsFromNS(JsonHelper.toObjectList(treatments), EventNsTreatment.UPDATE, false);
     }
 
     public static void handleRemovedTreatment(JSONArray treatments, boolean isDelta) {
 
-        Bundle bundle = new Bundle();
-        bundle.putString("treatments", treatments.toString());
-        bundle.putBoolean("delta", isDelta);
-        Intent intent = new Intent(Intents.ACTION_REMOVED_TREATMENT);
-        intent.putExtras(bundle);
-        intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
-        LocalBroadcastManager.getInstance(MainApp.instance()).sendBroadcast(intent);
-
-
         if (SP.getBoolean(R.string.key_nsclient_localbroadcasts, false)) {
-            bundle = new Bundle();
+            Bundle bundle = new Bundle();
             bundle.putString("treatments", treatments.toString());
             bundle.putBoolean("delta", isDelta);
-            intent = new Intent(Intents.ACTION_REMOVED_TREATMENT);
+            Intent intent = new Intent(Intents.ACTION_REMOVED_TREATMENT);
             intent.putExtras(bundle);
             intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
             MainApp.instance().getApplicationContext().sendBroadcast(intent);
         }
+
+        DataService.handleRemovedTreatmentsFromNS(JsonHelper.toObjectList(treatments));
     }
 
+    // for other apps listening to NSClient broadcasts only, AAPS itself is fed directly
+    private static void sendExternal(String action, JSONArray treatments, boolean isDelta) {
+        List<JSONArray> splitted = splitArray(treatments);
+        for (JSONArray part : splitted) {
+            Bundle bundle = new Bundle();
+            bundle.putString("treatments", part.toString());
+            bundle.putBoolean("delta", isDelta);
+            Intent intent = new Intent(action);
+            intent.putExtras(bundle);
+            intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
+            MainApp.instance().getApplicationContext().sendBroadcast(intent);
+        }
+    }
 
     public static List<JSONArray> splitArray(JSONArray array) {
         List<JSONArray> ret = new ArrayList<>();
@@ -4,6 +4,8 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.PowerManager;
 
 import org.json.JSONException;
@@ -11,6 +13,8 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Iterator;
+
 import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.db.DbRequest;
@@ -26,6 +30,17 @@ import info.nightscout.androidaps.utils.SP;
 public class DBAccessReceiver extends BroadcastReceiver {
     private static Logger log = LoggerFactory.getLogger(L.NSCLIENT);
 
+    // NSUpload is called from UI and pump queue threads, UploadQueue may wait there for NSClientService to start
+    private static Handler handler;
+
+    private static synchronized Handler getHandler() {
+        if (handler == null) {
+            HandlerThread handlerThread = new HandlerThread(DBAccessReceiver.class.getSimpleName() + "Handler");
+            handlerThread.start();
+            handler = new Handler(handlerThread.getLooper());
+        }
+        return handler;
+    }
 
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -71,61 +86,94 @@ public class DBAccessReceiver extends BroadcastReceiver {
                 return;
             }
 
-            if (action.equals("dbRemove")) {
-                data = new JSONObject();
-            }
-            // mark by id
-            Long nsclientid = System.currentTimeMillis();
-            try {
-                data.put("NSCLIENT_ID", nsclientid);
-            } catch (JSONException e) {
-                log.error("Unhandled exception", e);
-            }
+            processRequest(action, collection, _id, data);
 
-            if (!isAllowedCollection(collection)) {
-                log.error("DBACCESS wrong collection specified");
-                return;
-            }
+        } finally {
+            wakeLock.release();
+        }
+
+    }
 
-            if (action.equals("dbRemove")) {
-                if (shouldUpload()) {
-                    DbRequest dbr = new DbRequest(action, collection, nsclientid.toString(), _id);
-                    UploadQueue.add(dbr);
-                }
-            } else if (action.equals("dbUpdate")) {
-                if (shouldUpload()) {
-                    DbRequest dbr = new DbRequest(action, collection, nsclientid.toString(), _id, data);
-                    UploadQueue.add(dbr);
-                }
-            } else {
-                DbRequest dbr = new DbRequest(action, collection, nsclientid.toString(), data);
-                // this is not used as mongo _id but only for searching in UploadQueue database
-                // if record has to be removed from queue before upload
-                dbr._id = nsclientid.toString();
-
-                if (shouldUpload()) {
-                    UploadQueue.add(dbr);
-                }
-                if (collection.equals("treatments")) {
-                    generateTreatmentOfflineBroadcast(dbr);
-                }
+    /**
+     * Store request from NSUpload in UploadQueue on own thread.
+     * Record is not serialized to the Intent and parsed back, data is only copied
+     * so caller may keep using it
+     */
+    public static void postRequest(final String action, final String collection, final String _id, JSONObject data) {
+        final JSONObject copy = data != null ? copy(data) : null;
+        getHandler().post(() -> processRequest(action, collection, _id, copy));
+    }
+
+    private static JSONObject copy(JSONObject data) {
+        JSONObject copy = new JSONObject();
+        Iterator<String> keys = data.keys();
+        try {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                copy.put(key, data.get(key));
             }
+        } catch (JSONException e) {
+            log.error("Unhandled exception", e);
+        }
+        return copy;
+    }
 
-        } finally {
-            wakeLock.release();
+    /**
+     * Store request in UploadQueue. Used by the broadcast from external apps
+     * and by postRequest.
+     * <p>
+     * data becomes owned by the queue, NSCLIENT_ID is added to it
+     */
+    private static void processRequest(String action, String collection, String _id, JSONObject data) {
+        if (action.equals("dbRemove")) {
+            data = new JSONObject();
+        }
+        // mark by id
+        Long nsclientid = System.currentTimeMillis();
+        try {
+            data.put("NSCLIENT_ID", nsclientid);
+        } catch (JSONException e) {
+            log.error("Unhandled exception", e);
         }
 
+        if (!isAllowedCollection(collection)) {
+            log.error("DBACCESS wrong collection specified");
+            return;
+        }
+
+        if (action.equals("dbRemove")) {
+            if (shouldUpload()) {
+                DbRequest dbr = new DbRequest(action, collection, nsclientid.toString(), _id);
+                UploadQueue.add(dbr);
+            }
+        } else if (action.equals("dbUpdate")) {
+            if (shouldUpload()) {
+                DbRequest dbr = new DbRequest(action, collection, nsclientid.toString(), _id, data);
+                UploadQueue.add(dbr);
+            }
+        } else {
+            DbRequest dbr = new DbRequest(action, collection, nsclientid.toString(), data);
+            // this is not used as mongo _id but only for searching in UploadQueue database
+            // if record has to be removed from queue before upload
+            dbr._id = nsclientid.toString();
+
+            if (shouldUpload()) {
+                UploadQueue.add(dbr);
+            }
+            if (collection.equals("treatments")) {
+                generateTreatmentOfflineBroadcast(dbr, data);
+            }
+        }
     }
 
-    public boolean shouldUpload() {
+    public static boolean shouldUpload() {
         NSClientPlugin nsClientPlugin = MainApp.getSpecificPlugin(NSClientPlugin.class);
         return nsClientPlugin.isEnabled(PluginType.GENERAL) && !SP.getBoolean(R.string.key_ns_noupload, false);
     }
 
-    public void generateTreatmentOfflineBroadcast(DbRequest request) {
+    public static void generateTreatmentOfflineBroadcast(DbRequest request, JSONObject data) {
         if (request.action.equals("dbAdd")) {
             try {
-                JSONObject data = new JSONObject(request.data);
                 data.put("mills", DateUtil.fromISODateString(data.getString("created_at")).getTime());
                 data.put("_id", data.get("NSCLIENT_ID")); // this is only fake id
                 BroadcastTreatment.handleNewTreatment(data, false, true);
@@ -135,7 +183,7 @@ public class DBAccessReceiver extends BroadcastReceiver {
         }
     }
 
-    private boolean isAllowedCollection(String collection) {
+    private static boolean isAllowedCollection(String collection) {
         // "treatments" || "entries" || "devicestatus" || "profile" || "food"
         if (collection.equals("treatments")) return true;
         if (collection.equals("entries")) return true;
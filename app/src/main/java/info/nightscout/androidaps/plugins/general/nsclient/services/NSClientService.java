@@ -36,6 +36,7 @@ import info.nightscout.androidaps.events.EventPreferenceChange;
 import info.nightscout.androidaps.interfaces.PluginType;
 import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.plugins.general.nsclient.NSClientPlugin;
+import info.nightscout.androidaps.plugins.general.nsclient.UploadAckTracker;
 import info.nightscout.androidaps.plugins.general.nsclient.UploadQueue;
 import info.nightscout.androidaps.plugins.general.nsclient.acks.NSAddAck;
 import info.nightscout.androidaps.plugins.general.nsclient.acks.NSAuthAck;
@@ -98,16 +99,17 @@ public class NSClientService extends Service {
     private String nsDevice = "";
     private Integer nsHours = 48;
 
-    public long lastResendTime = 0;
-
     public long latestDateInReceivedData = 0;
+    public long lastResendTime = 0;
 
     private String nsAPIhashCode = "";
 
     public static UploadQueue uploadQueue = new UploadQueue();
+    public static final UploadAckTracker ackTracker = new UploadAckTracker();
 
     private ArrayList<Long> reconnections = new ArrayList<>();
     private int WATCHDOG_INTERVAL_MINUTES = 2;
+    private static final long RESEND_INTERVAL = 5 * 1000L;
     private int WATCHDOG_RECONNECT_IN = 15;
     private int WATCHDOG_MAXCONNECTIONS = 5;
 
@@ -337,6 +339,8 @@ public class NSClientService extends Service {
         connectionStatus += ')';
         isConnected = true;
         hasWriteAuth = ack.write && ack.write_treatment;
+        // ACKs for requests sent before reconnection will not come
+        ackTracker.reset();
         MainApp.bus().post(new EventNSClientStatus(connectionStatus));
         MainApp.bus().post(new EventNSClientNewLog("AUTH", connectionStatus));
         if (!ack.write) {
@@ -568,12 +572,12 @@ public class NSClientService extends Service {
                                 JSONArray addedTreatments = new JSONArray();
                                 if (treatments.length() > 0)
                                     MainApp.bus().post(new EventNSClientNewLog("DATA", "received " + treatments.length() + " treatments"));
+                                // remove from upload queue if Ack is failing
+                                UploadQueue.removeIDs(treatments);
                                 for (Integer index = 0; index < treatments.length(); index++) {
                                     JSONObject jsonTreatment = treatments.getJSONObject(index);
                                     NSTreatment treatment = new NSTreatment(jsonTreatment);
 
-                                    // remove from upload queue if Ack is failing
-                                    UploadQueue.removeID(jsonTreatment);
                                     //Find latest date in treatment
                                     if (treatment.getMills() != null && treatment.getMills() < System.currentTimeMillis())
                                         if (treatment.getMills() > latestDateInReceivedData)
@@ -602,11 +606,8 @@ public class NSClientService extends Service {
                                 JSONArray devicestatuses = data.getJSONArray("devicestatus");
                                 if (devicestatuses.length() > 0) {
                                     MainApp.bus().post(new EventNSClientNewLog("DATA", "received " + devicestatuses.length() + " devicestatuses"));
-                                    for (Integer index = 0; index < devicestatuses.length(); index++) {
-                                        JSONObject jsonStatus = devicestatuses.getJSONObject(index);
-                                        // remove from upload queue if Ack is failing
-                                        UploadQueue.removeID(jsonStatus);
-                                    }
+                                    // remove from upload queue if Ack is failing
+                                    UploadQueue.removeIDs(devicestatuses);
                                     BroadcastDeviceStatus.handleNewDeviceStatus(devicestatuses, MainApp.instance().getApplicationContext(), isDelta);
                                 }
                             }
@@ -617,12 +618,11 @@ public class NSClientService extends Service {
                                 JSONArray addedFoods = new JSONArray();
                                 if (foods.length() > 0)
                                     MainApp.bus().post(new EventNSClientNewLog("DATA", "received " + foods.length() + " foods"));
+                                // remove from upload queue if Ack is failing
+                                UploadQueue.removeIDs(foods);
                                 for (Integer index = 0; index < foods.length(); index++) {
                                     JSONObject jsonFood = foods.getJSONObject(index);
 
-                                    // remove from upload queue if Ack is failing
-                                    UploadQueue.removeID(jsonFood);
-
                                     String action = JsonHelper.safeGetString(jsonFood, "action");
 
                                     if (action == null) {
@@ -647,11 +647,8 @@ public class NSClientService extends Service {
                                 JSONArray mbgs = data.getJSONArray("mbgs");
                                 if (mbgs.length() > 0)
                                     MainApp.bus().post(new EventNSClientNewLog("DATA", "received " + mbgs.length() + " mbgs"));
-                                for (Integer index = 0; index < mbgs.length(); index++) {
-                                    JSONObject jsonMbg = mbgs.getJSONObject(index);
-                                    // remove from upload queue if Ack is failing
-                                    UploadQueue.removeID(jsonMbg);
-                                }
+                                // remove from upload queue if Ack is failing
+                                UploadQueue.removeIDs(mbgs);
                                 BroadcastMbgs.handleNewMbg(mbgs, MainApp.instance().getApplicationContext(), isDelta);
                             }
                             if (data.has("cals")) {
@@ -659,23 +656,21 @@ public class NSClientService extends Service {
                                 if (cals.length() > 0)
                                     MainApp.bus().post(new EventNSClientNewLog("DATA", "received " + cals.length() + " cals"));
                                 // Retreive actual calibration
-                                for (Integer index = 0; index < cals.length(); index++) {
-                                    // remove from upload queue if Ack is failing
-                                    UploadQueue.removeID(cals.optJSONObject(index));
-                                }
+                                // remove from upload queue if Ack is failing
+                                UploadQueue.removeIDs(cals);
                                 BroadcastCals.handleNewCal(cals, MainApp.instance().getApplicationContext(), isDelta);
                             }
                             if (data.has("sgvs")) {
                                 JSONArray sgvs = data.getJSONArray("sgvs");
                                 if (sgvs.length() > 0)
                                     MainApp.bus().post(new EventNSClientNewLog("DATA", "received " + sgvs.length() + " sgvs"));
+                                // remove from upload queue if Ack is failing
+                                UploadQueue.removeIDs(sgvs);
                                 for (Integer index = 0; index < sgvs.length(); index++) {
                                     JSONObject jsonSgv = sgvs.getJSONObject(index);
                                     // MainApp.bus().post(new EventNSClientNewLog("DATA", "svg " + sgvs.getJSONObject(index).toString());
                                     NSSgv sgv = new NSSgv(jsonSgv);
                                     // Handle new sgv here
-                                    // remove from upload queue if Ack is failing
-                                    UploadQueue.removeID(jsonSgv);
                                     //Find latest date in sgv
                                     if (sgv.getMills() != null && sgv.getMills() < System.currentTimeMillis())
                                         if (sgv.getMills() > latestDateInReceivedData)
@@ -747,6 +742,8 @@ public class NSClientService extends Service {
 
     @Subscribe
     public void onStatusEvent(NSUpdateAck ack) {
+        if (ack.nsClientID != null)
+            ackTracker.acked(ack.nsClientID, DateUtil.now());
         if (ack.result) {
             uploadQueue.removeID(ack.action, ack._id);
             MainApp.bus().post(new EventNSClientNewLog("DBUPDATE/DBREMOVE", "Acked " + ack._id));
@@ -777,6 +774,7 @@ public class NSClientService extends Service {
     @Subscribe
     public void onStatusEvent(NSAddAck ack) {
         if (ack.nsClientID != null) {
+            ackTracker.acked(ack.nsClientID, DateUtil.now());
             uploadQueue.removeID(ack.json);
             MainApp.bus().post(new EventNSClientNewLog("DBADD", "Acked " + ack.nsClientID));
         } else {
@@ -795,36 +793,49 @@ public class NSClientService extends Service {
             public void run() {
                 if (mSocket == null || !mSocket.connected()) return;
 
-                if (lastResendTime > System.currentTimeMillis() - 10 * 1000L) {
+                // requests without ACK are sent again after timeout
+                ackTracker.expire(DateUtil.now());
+
+                // every pass scans queue from the beginning over requests waiting for ACK
+                if (lastResendTime > DateUtil.now() - RESEND_INTERVAL) {
+                    if (L.isEnabled(L.NSCLIENT))
+                        log.debug("Skipping resend by lastResendTime: " + ((DateUtil.now() - lastResendTime) / 1000L) + " sec");
+                    return;
+                }
+
+                int batch = ackTracker.nextBatch(SP.getInt(R.string.key_ns_upload_inflight, UploadAckTracker.DEFAULT_IN_FLIGHT));
+                if (batch == 0) {
                     if (L.isEnabled(L.NSCLIENT))
-                        log.debug("Skipping resend by lastResendTime: " + ((System.currentTimeMillis() - lastResendTime) / 1000L) + " sec");
+                        log.debug("Skipping resend, waiting for ACK of " + ackTracker.inFlightCount() + " requests");
                     return;
                 }
-                lastResendTime = System.currentTimeMillis();
+                lastResendTime = DateUtil.now();
 
-                MainApp.bus().post(new EventNSClientNewLog("QUEUE", "Resend started: " + reason));
+                MainApp.bus().post(new EventNSClientNewLog("QUEUE", "Resend started: " + reason + " batch: " + batch));
 
                 CloseableIterator<DbRequest> iterator = null;
-                int maxcount = 30;
                 try {
                     iterator = MainApp.getDbHelper().getDbRequestInterator();
                     try {
-                        while (iterator.hasNext() && maxcount > 0) {
+                        while (iterator.hasNext() && batch > 0) {
                             DbRequest dbr = iterator.next();
+                            if (ackTracker.isInFlight(dbr.nsClientID))
+                                continue;
                             if (dbr.action.equals("dbAdd")) {
                                 NSAddAck addAck = new NSAddAck();
                                 dbAdd(dbr, addAck);
                             } else if (dbr.action.equals("dbRemove")) {
-                                NSUpdateAck removeAck = new NSUpdateAck(dbr.action, dbr._id);
+                                NSUpdateAck removeAck = new NSUpdateAck(dbr.action, dbr._id, dbr.nsClientID);
                                 dbRemove(dbr, removeAck);
                             } else if (dbr.action.equals("dbUpdate")) {
-                                NSUpdateAck updateAck = new NSUpdateAck(dbr.action, dbr._id);
+                                NSUpdateAck updateAck = new NSUpdateAck(dbr.action, dbr._id, dbr.nsClientID);
                                 dbUpdate(dbr, updateAck);
                             } else if (dbr.action.equals("dbUpdateUnset")) {
-                                NSUpdateAck updateUnsetAck = new NSUpdateAck(dbr.action, dbr._id);
+                                NSUpdateAck updateUnsetAck = new NSUpdateAck(dbr.action, dbr._id, dbr.nsClientID);
                                 dbUpdateUnset(dbr, updateUnsetAck);
                             }
-                            maxcount--;
+                            ackTracker.sent(dbr.nsClientID, DateUtil.now());
+                            batch--;
                         }
                     } finally {
                         iterator.close();
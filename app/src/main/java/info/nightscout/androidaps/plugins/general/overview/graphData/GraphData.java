@@ -285,11 +285,10 @@ public class GraphData {
     public void addTreatments(long fromTime, long endTime) {
         List<DataPointWithLabelInterface> filteredTreatments = new ArrayList<>();
 
-        List<Treatment> treatments = TreatmentsPlugin.getPlugin().getTreatmentsFromHistory();
+        List<Treatment> treatments = TreatmentsPlugin.getPlugin().getTreatmentTimeline().getInRange(fromTime, endTime);
 
         for (int tx = 0; tx < treatments.size(); tx++) {
             Treatment t = treatments.get(tx);
-            if (t.getX() < fromTime || t.getX() > endTime) continue;
             if (t.isSMB && !t.isValid) continue;
             t.setY(getNearestBg((long) t.getX()));
             filteredTreatments.add(t);
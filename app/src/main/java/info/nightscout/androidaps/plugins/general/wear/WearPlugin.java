@@ -10,6 +10,7 @@ import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.events.EventBolusRequested;
 import info.nightscout.androidaps.events.EventExtendedBolusChange;
+import info.nightscout.androidaps.events.EventNewBG;
 import info.nightscout.androidaps.events.EventNewBasalProfile;
 import info.nightscout.androidaps.events.EventPreferenceChange;
 import info.nightscout.androidaps.events.EventRefreshOverview;
@@ -146,6 +147,12 @@ public class WearPlugin extends PluginBase {
         sendDataToWatch(true, true, false);
     }
 
+    @Subscribe
+    public void onStatusEvent(final EventNewBG ev) {
+        // sent on EventAutosensCalculationFinished, remember what has to be sent
+        WatchUpdaterService.markBgChanged(ev.changedFrom);
+    }
+
     @Subscribe
     public void onStatusEvent(final EventAutosensCalculationFinished ev) {
         sendDataToWatch(true, true, true);
@@ -1,6 +1,7 @@
 package info.nightscout.androidaps.plugins.general.wear.wearintegration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -86,11 +87,24 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
     public static final String ACTION_CHANGECONFIRMATION_REQUEST_PATH = "/nightscout_watch_changeconfirmationrequest";
     public static final String ACTION_CANCELNOTIFICATION_REQUEST_PATH = "/nightscout_watch_cancelnotificationrequest";
 
+    // version of BG and basals data format, must match WatchDataProtocol on wear
+    private static final int PROTOCOL_VERSION = 2;
+    private static final long GRAPH_WINDOW = (long) (60000 * 60 * 5.5);
+    private static final int BOLUS_SMB = 1;
+    private static final int BOLUS_VALID = 2;
+
 
     boolean wear_integration = false;
     SharedPreferences mPrefs;
     private static boolean lastLoopStatus;
 
+    // BG messages are numbered, wear asks for resend when it misses one
+    private long bgSequence = 0;
+    private long lastSentBgTime = 0;
+    // oldest BgReading added, changed or removed since the last BG message, 0 if unknown
+    private static long bgChangedFrom = Long.MAX_VALUE;
+    private static final Object bgChangeLock = new Object();
+
     private static Logger log = LoggerFactory.getLogger(WatchUpdaterService.class);
 
     private Handler handler;
@@ -289,18 +303,61 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
                 googleApiConnect();
             }
             if (wear_integration) {
+                sendBgs(lastBG, glucoseStatus, false);
+            }
+        }
+    }
 
-                final DataMap dataMap = dataMapSingleBG(lastBG, glucoseStatus);
-                if (dataMap == null) {
-                    ToastUtils.showToastInUiThread(this, MainApp.gs(R.string.noprofile));
-                    return;
-                }
 
-                executeTask(new SendToDataLayerThread(WEARABLE_DATA_PATH, googleApiClient), dataMap);
-            }
+    public static void markBgChanged(long date) {
+        synchronized (bgChangeLock) {
+            bgChangedFrom = Math.min(bgChangedFrom, date);
+        }
+    }
+
+    private static long takeBgChangedFrom() {
+        synchronized (bgChangeLock) {
+            long changedFrom = bgChangedFrom;
+            bgChangedFrom = Long.MAX_VALUE;
+            return changedFrom;
         }
     }
 
+    /**
+     * @param full whole graph history, otherwise only readings newer than the last sent one
+     *             unless already sent readings were changed (backfilled, removed)
+     */
+    private synchronized void sendBgs(BgReading lastBG, GlucoseStatus glucoseStatus, boolean full) {
+        DataMap dataMap = dataMapSingleBG(lastBG, glucoseStatus);
+        if (dataMap == null) {
+            ToastUtils.showToastInUiThread(this, MainApp.gs(R.string.noprofile));
+            return;
+        }
+
+        long changedFrom = takeBgChangedFrom();
+        if (lastSentBgTime == 0 || changedFrom <= lastSentBgTime || lastBG.date < lastSentBgTime)
+            full = true;
+
+        long startTime = System.currentTimeMillis() - GRAPH_WINDOW;
+        if (!full)
+            startTime = Math.max(startTime, lastSentBgTime + 1);
+        List<BgReading> bgs = MainApp.getDbHelper().getBgreadingsDataFromTime(startTime, true);
+
+        long[] timestamps = new long[bgs.size()];
+        float[] values = new float[bgs.size()];
+        for (int i = 0; i < bgs.size(); i++) {
+            timestamps[i] = bgs.get(i).date;
+            values[i] = (float) bgs.get(i).value;
+        }
+        dataMap.putInt("protocol", PROTOCOL_VERSION);
+        dataMap.putLong("seq", ++bgSequence);
+        dataMap.putBoolean("bgFull", full);
+        dataMap.putLongArray("bgTimestamps", timestamps);
+        dataMap.putFloatArray("bgValues", values);
+        lastSentBgTime = Math.max(lastBG.date, bgs.isEmpty() ? 0 : timestamps[timestamps.length - 1]);
+
+        executeTask(new SendToDataLayerThread(WEARABLE_DATA_PATH, googleApiClient), dataMap);
+    }
 
     private DataMap dataMapSingleBG(BgReading lastBG, GlucoseStatus glucoseStatus) {
         String units = ProfileFunctions.getInstance().getProfileUnits();
@@ -398,30 +455,12 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
         if (googleApiClient != null && !googleApiClient.isConnected() && !googleApiClient.isConnecting()) {
             googleApiConnect();
         }
-        long startTime = System.currentTimeMillis() - (long) (60000 * 60 * 5.5);
         BgReading last_bg = DatabaseHelper.lastBg();
 
         if (last_bg == null) return;
 
-        List<BgReading> graph_bgs = MainApp.getDbHelper().getBgreadingsDataFromTime(startTime, true);
         GlucoseStatus glucoseStatus = GlucoseStatus.getGlucoseStatusData(true);
-
-        if (!graph_bgs.isEmpty()) {
-            DataMap entries = dataMapSingleBG(last_bg, glucoseStatus);
-            if (entries == null) {
-                ToastUtils.showToastInUiThread(this, MainApp.gs(R.string.noprofile));
-                return;
-            }
-            final ArrayList<DataMap> dataMaps = new ArrayList<>(graph_bgs.size());
-            for (BgReading bg : graph_bgs) {
-                DataMap dataMap = dataMapSingleBG(bg, glucoseStatus);
-                if (dataMap != null) {
-                    dataMaps.add(dataMap);
-                }
-            }
-            entries.putDataMapArrayList("entries", dataMaps);
-            executeTask(new SendToDataLayerThread(WEARABLE_DATA_PATH, googleApiClient), entries);
-        }
+        sendBgs(last_bg, glucoseStatus, true);
         sendPreferences();
         sendBasals();
         sendStatus();
@@ -433,13 +472,12 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
         }
 
         long now = System.currentTimeMillis();
-        final long startTimeWindow = now - (long) (60000 * 60 * 5.5);
-
+        final long startTimeWindow = now - GRAPH_WINDOW;
 
-        ArrayList<DataMap> basals = new ArrayList<>();
-        ArrayList<DataMap> temps = new ArrayList<>();
-        ArrayList<DataMap> boluses = new ArrayList<>();
-        ArrayList<DataMap> predictions = new ArrayList<>();
+        // usually at most one segment per 5 min step plus the ones added after the loop
+        int capacity = (int) (GRAPH_WINDOW / (5 * 60 * 1000)) + 3;
+        BasalSeries basals = new BasalSeries(capacity);
+        TempSeries temps = new TempSeries(capacity);
 
 
         Profile profile = ProfileFunctions.getInstance().getProfile();
@@ -478,7 +516,7 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
             endBasalValue = profile.getBasal(runningTime);
             if (endBasalValue != beginBasalValue) {
                 //push the segment we recently left
-                basals.add(basalMap(beginBasalSegmentTime, runningTime, beginBasalValue));
+                basals.add(beginBasalSegmentTime, runningTime, beginBasalValue);
 
                 //begin new Basal segment
                 beginBasalSegmentTime = runningTime;
@@ -493,7 +531,7 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
 
             } else if (tb1 != null && tb2 == null) {
                 //temp is over -> push it
-                temps.add(tempDatamap(tb_start, tb_before, runningTime, endBasalValue, tb_amount));
+                temps.add(tb_start, tb_before, runningTime, endBasalValue, tb_amount);
                 tb1 = null;
 
             } else if (tb1 == null && tb2 != null) {
@@ -506,7 +544,7 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
             } else if (tb1 != null && tb2 != null) {
                 double currentAmount = tb2.tempBasalConvertedToAbsolute(runningTime, profileTB);
                 if (currentAmount != tb_amount) {
-                    temps.add(tempDatamap(tb_start, tb_before, runningTime, currentAmount, tb_amount));
+                    temps.add(tb_start, tb_before, runningTime, currentAmount, tb_amount);
                     tb_start = runningTime;
                     tb_before = tb_amount;
                     tb_amount = currentAmount;
@@ -516,22 +554,22 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
         }
         if (beginBasalSegmentTime != runningTime) {
             //push the remaining segment
-            basals.add(basalMap(beginBasalSegmentTime, runningTime, beginBasalValue));
+            basals.add(beginBasalSegmentTime, runningTime, beginBasalValue);
         }
         if (tb1 != null) {
             tb2 = TreatmentsPlugin.getPlugin().getTempBasalFromHistory(now); //use "now" to express current situation
             if (tb2 == null) {
                 //express the cancelled temp by painting it down one minute early
-                temps.add(tempDatamap(tb_start, tb_before, now - 1 * 60 * 1000, endBasalValue, tb_amount));
+                temps.add(tb_start, tb_before, now - 1 * 60 * 1000, endBasalValue, tb_amount);
             } else {
                 //express currently running temp by painting it a bit into the future
                 Profile profileNow = ProfileFunctions.getInstance().getProfile(now);
                 double currentAmount = tb2.tempBasalConvertedToAbsolute(now, profileNow);
                 if (currentAmount != tb_amount) {
-                    temps.add(tempDatamap(tb_start, tb_before, now, tb_amount, tb_amount));
-                    temps.add(tempDatamap(now, tb_amount, runningTime + 5 * 60 * 1000, currentAmount, currentAmount));
+                    temps.add(tb_start, tb_before, now, tb_amount, tb_amount);
+                    temps.add(now, tb_amount, runningTime + 5 * 60 * 1000, currentAmount, currentAmount);
                 } else {
-                    temps.add(tempDatamap(tb_start, tb_before, runningTime + 5 * 60 * 1000, tb_amount, tb_amount));
+                    temps.add(tb_start, tb_before, runningTime + 5 * 60 * 1000, tb_amount, tb_amount);
                 }
             }
         } else {
@@ -540,74 +578,143 @@ public class WatchUpdaterService extends WearableListenerService implements Goog
                 //onset at the end
                 Profile profileTB = ProfileFunctions.getInstance().getProfile(runningTime);
                 double currentAmount = tb2.tempBasalConvertedToAbsolute(runningTime, profileTB);
-                temps.add(tempDatamap(now - 1 * 60 * 1000, endBasalValue, runningTime + 5 * 60 * 1000, currentAmount, currentAmount));
+                temps.add(now - 1 * 60 * 1000, endBasalValue, runningTime + 5 * 60 * 1000, currentAmount, currentAmount);
             }
         }
 
         List<Treatment> treatments = TreatmentsPlugin.getPlugin().getTreatmentsFromHistory();
+        long[] bolusDates = new long[treatments.size()];
+        float[] bolusInsulin = new float[treatments.size()];
+        float[] bolusCarbs = new float[treatments.size()];
+        byte[] bolusFlags = new byte[treatments.size()];
+        int bolusCount = 0;
         for (Treatment treatment : treatments) {
             if (treatment.date > startTimeWindow) {
-                boluses.add(treatmentMap(treatment.date, treatment.insulin, treatment.carbs, treatment.isSMB, treatment.isValid));
+                bolusDates[bolusCount] = treatment.date;
+                bolusInsulin[bolusCount] = (float) treatment.insulin;
+                bolusCarbs[bolusCount] = (float) treatment.carbs;
+                bolusFlags[bolusCount] = (byte) ((treatment.isSMB ? BOLUS_SMB : 0) | (treatment.isValid ? BOLUS_VALID : 0));
+                bolusCount++;
             }
 
         }
 
+        long[] predictionTimestamps = new long[0];
+        float[] predictionValues = new float[0];
+        ArrayList<Integer> predictionColors = new ArrayList<>();
+
         final LoopPlugin.LastRun finalLastRun = LoopPlugin.lastRun;
         if (SP.getBoolean("wear_predictions", true) && finalLastRun != null && finalLastRun.request.hasPredictions && finalLastRun.constraintsProcessed != null) {
             List<BgReading> predArray = finalLastRun.constraintsProcessed.getPredictions();
 
             if (!predArray.isEmpty()) {
+                predictionTimestamps = new long[predArray.size()];
+                predictionValues = new float[predArray.size()];
+                int count = 0;
                 for (BgReading bg : predArray) {
                     if (bg.value < 40) continue;
-                    predictions.add(predictionMap(bg.date, bg.value, bg.getPredectionColor()));
+                    predictionTimestamps[count] = bg.date;
+                    predictionValues[count] = (float) bg.value;
+                    predictionColors.add(bg.getPredectionColor());
+                    count++;
                 }
+                predictionTimestamps = Arrays.copyOf(predictionTimestamps, count);
+                predictionValues = Arrays.copyOf(predictionValues, count);
             }
         }
 
 
         DataMap dm = new DataMap();
-        dm.putDataMapArrayList("basals", basals);
-        dm.putDataMapArrayList("temps", temps);
-        dm.putDataMapArrayList("boluses", boluses);
-        dm.putDataMapArrayList("predictions", predictions);
+        dm.putInt("protocol", PROTOCOL_VERSION);
+        basals.putTo(dm);
+        temps.putTo(dm);
+        dm.putLongArray("bolusDate", Arrays.copyOf(bolusDates, bolusCount));
+        dm.putFloatArray("bolusInsulin", Arrays.copyOf(bolusInsulin, bolusCount));
+        dm.putFloatArray("bolusCarbs", Arrays.copyOf(bolusCarbs, bolusCount));
+        dm.putByteArray("bolusFlags", Arrays.copyOf(bolusFlags, bolusCount));
+        dm.putLongArray("predictionTimestamp", predictionTimestamps);
+        dm.putFloatArray("predictionSgv", predictionValues);
+        dm.putIntegerArrayList("predictionColor", predictionColors);
 
         executeTask(new SendToDataLayerThread(BASAL_DATA_PATH, googleApiClient), dm);
     }
 
-    private DataMap tempDatamap(long startTime, double startBasal, long to, double toBasal, double amount) {
-        DataMap dm = new DataMap();
-        dm.putLong("starttime", startTime);
-        dm.putDouble("startBasal", startBasal);
-        dm.putLong("endtime", to);
-        dm.putDouble("endbasal", toBasal);
-        dm.putDouble("amount", amount);
-        return dm;
-    }
-
-    private DataMap basalMap(long startTime, long endTime, double amount) {
-        DataMap dm = new DataMap();
-        dm.putLong("starttime", startTime);
-        dm.putLong("endtime", endTime);
-        dm.putDouble("amount", amount);
-        return dm;
-    }
-
-    private DataMap treatmentMap(long date, double bolus, double carbs, boolean isSMB, boolean isValid) {
-        DataMap dm = new DataMap();
-        dm.putLong("date", date);
-        dm.putDouble("bolus", bolus);
-        dm.putDouble("carbs", carbs);
-        dm.putBoolean("isSMB", isSMB);
-        dm.putBoolean("isValid", isValid);
-        return dm;
-    }
+    /**
+     * Graph segments as one primitive array per field, DataMap per segment repeats all keys
+     */
+    // arrays grow when the estimated capacity is not enough
+    private static class BasalSeries {
+        private long[] startTimes;
+        private long[] endTimes;
+        private float[] amounts;
+        private int size = 0;
+
+        BasalSeries(int capacity) {
+            startTimes = new long[capacity];
+            endTimes = new long[capacity];
+            amounts = new float[capacity];
+        }
+
+        void add(long startTime, long endTime, double amount) {
+            if (size == startTimes.length) {
+                int capacity = size * 2 + 1;
+                startTimes = Arrays.copyOf(startTimes, capacity);
+                endTimes = Arrays.copyOf(endTimes, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+            }
+            startTimes[size] = startTime;
+            endTimes[size] = endTime;
+            amounts[size] = (float) amount;
+            size++;
+        }
+
+        void putTo(DataMap dm) {
+            dm.putLongArray("basalStart", Arrays.copyOf(startTimes, size));
+            dm.putLongArray("basalEnd", Arrays.copyOf(endTimes, size));
+            dm.putFloatArray("basalAmount", Arrays.copyOf(amounts, size));
+        }
+    }
+
+    private static class TempSeries {
+        private long[] startTimes;
+        private float[] startBasals;
+        private long[] endTimes;
+        private float[] endBasals;
+        private float[] amounts;
+        private int size = 0;
+
+        TempSeries(int capacity) {
+            startTimes = new long[capacity];
+            startBasals = new float[capacity];
+            endTimes = new long[capacity];
+            endBasals = new float[capacity];
+            amounts = new float[capacity];
+        }
+
+        void add(long startTime, double startBasal, long to, double toBasal, double amount) {
+            if (size == startTimes.length) {
+                int capacity = size * 2 + 1;
+                startTimes = Arrays.copyOf(startTimes, capacity);
+                startBasals = Arrays.copyOf(startBasals, capacity);
+                endTimes = Arrays.copyOf(endTimes, capacity);
+                endBasals = Arrays.copyOf(endBasals, capacity);
+                amounts = Arrays.copyOf(amounts, capacity);
+            }
+            startTimes[size] = startTime;
+            startBasals[size] = (float) startBasal;
+            endTimes[size] = to;
+            endBasals[size] = (float) toBasal;
+            amounts[size] = (float) amount;
+            size++;
+        }
 
-    private DataMap predictionMap(long timestamp, double sgv, int color) {
-        DataMap dm = new DataMap();
-        dm.putLong("timestamp", timestamp);
-        dm.putDouble("sgv", sgv);
-        dm.putInt("color", color);
-        return dm;
+        void putTo(DataMap dm) {
+            dm.putLongArray("tempStart", Arrays.copyOf(startTimes, size));
+            dm.putFloatArray("tempStartBasal", Arrays.copyOf(startBasals, size));
+            dm.putLongArray("tempEnd", Arrays.copyOf(endTimes, size));
+            dm.putFloatArray("tempEndBasal", Arrays.copyOf(endBasals, size));
+            dm.putFloatArray("tempAmount", Arrays.copyOf(amounts, size));
+        }
     }
 
 
@@ -0,0 +1,78 @@
+package info.nightscout.androidaps.plugins.insulin;
+
+/**
+ * Oref exponential insulin curve for 1U precomputed per minute for given peak and DIA.
+ * Values between whole minutes are linearly interpolated.
+ * <p>
+ * Immutable, safe to share between threads
+ */
+class InsulinCurve {
+
+    final int peak;
+    final double td;
+
+    private final double tau;
+    private final double a;
+    private final double S;
+
+    private final double[] iob;
+    private final double[] activity;
+
+    /**
+     * @param peak peak time [min]
+     * @param td   DIA [min]
+     */
+    InsulinCurve(int peak, double td) {
+        this.peak = peak;
+        this.td = td;
+
+        double tp = peak;
+        tau = tp * (1 - tp / td) / (1 - 2 * tp / td);
+        a = 2 * tau / td;
+        S = 1 / (1 - a + (1 + a) * Math.exp(-td / tau));
+
+        int size = (int) Math.ceil(td) + 2;
+        iob = new double[size];
+        activity = new double[size];
+        for (int minute = 0; minute < size; minute++) {
+            iob[minute] = exactIob(minute);
+            activity[minute] = exactActivity(minute);
+        }
+    }
+
+    boolean matches(int peak, double td) {
+        return this.peak == peak && this.td == td;
+    }
+
+    /**
+     * @param t minutes from bolus
+     * @return remaining IOB fraction of 1U
+     */
+    double iob(double t) {
+        if (t < 0 || t >= iob.length - 1)
+            return exactIob(t);
+        int minute = (int) t;
+        double weight = t - minute;
+        return iob[minute] + (iob[minute + 1] - iob[minute]) * weight;
+    }
+
+    /**
+     * @param t minutes from bolus
+     * @return activity of 1U [U/min]
+     */
+    double activity(double t) {
+        if (t < 0 || t >= activity.length - 1)
+            return exactActivity(t);
+        int minute = (int) t;
+        double weight = t - minute;
+        return activity[minute] + (activity[minute + 1] - activity[minute]) * weight;
+    }
+
+    double exactIob(double t) {
+        return 1 - S * (1 - a) * ((Math.pow(t, 2) / (tau * td * (1 - a)) - t / tau - 1) * Math.exp(-t / tau) + 1);
+    }
+
+    double exactActivity(double t) {
+        return (S / Math.pow(tau, 2)) * t * (1 - t / td) * Math.exp(-t / tau);
+    }
+}
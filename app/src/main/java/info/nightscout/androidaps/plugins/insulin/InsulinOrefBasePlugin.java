@@ -25,6 +25,8 @@ public abstract class InsulinOrefBasePlugin extends PluginBase implements Insuli
 
     long lastWarned = 0;
 
+    private volatile InsulinCurve curve = null;
+
     public InsulinOrefBasePlugin() {
         super(new PluginDescription()
                 .mainType(PluginType.INSULIN)
@@ -83,20 +85,44 @@ public abstract class InsulinOrefBasePlugin extends PluginBase implements Insuli
             double t = (time - bolusTime) / 1000d / 60d;
 
             double td = getDia() * 60; //getDIA() always >= MIN_DIA
-            double tp = peak;
 
             // force the IOB to 0 if over DIA hours have passed
             if (t < td) {
-                double tau = tp * (1 - tp / td) / (1 - 2 * tp / td);
-                double a = 2 * tau / td;
-                double S = 1 / (1 - a + (1 + a) * Math.exp(-td / tau));
-                result.activityContrib = treatment.insulin * (S / Math.pow(tau, 2)) * t * (1 - t / td) * Math.exp(-t / tau);
-                result.iobContrib = treatment.insulin * (1 - S * (1 - a) * ((Math.pow(t, 2) / (tau * td * (1 - a)) - t / tau - 1) * Math.exp(-t / tau) + 1));
+                InsulinCurve insulinCurve = getCurve(peak, td);
+                result.activityContrib = treatment.insulin * insulinCurve.activity(t);
+                result.iobContrib = treatment.insulin * insulinCurve.iob(t);
             }
         }
         return result;
     }
 
+    @Override
+    public void iobCalcForParts(long[] dates, double[] amounts, int count, long time, double dia, double[] result) {
+        if (count == 0)
+            return;
+        InsulinCurve insulinCurve = getCurve(getPeak(), getDia() * 60);
+        for (int i = 0; i < count; i++) {
+            if (amounts[i] == 0d)
+                continue;
+            double t = (time - dates[i]) / 1000d / 60d;
+            // force the IOB to 0 if over DIA hours have passed
+            if (t < insulinCurve.td) {
+                result[0] += amounts[i] * insulinCurve.iob(t);
+                result[1] += amounts[i] * insulinCurve.activity(t);
+            }
+        }
+    }
+
+    // rebuilt when peak (preferences) or DIA (profile) changes
+    InsulinCurve getCurve(int peak, double td) {
+        InsulinCurve current = curve;
+        if (current == null || !current.matches(peak, td)) {
+            current = new InsulinCurve(peak, td);
+            curve = current;
+        }
+        return current;
+    }
+
     @Override
     public String getComment() {
         String comment = commentStandardText();
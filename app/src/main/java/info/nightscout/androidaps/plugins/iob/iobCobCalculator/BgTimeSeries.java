@@ -0,0 +1,133 @@
+package info.nightscout.androidaps.plugins.iob.iobCobCalculator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import info.nightscout.androidaps.db.BgReading;
+import info.nightscout.androidaps.utils.DateUtil;
+
+/**
+ * BG values as primitive columns, newest at index 0 like IobCobCalculatorPlugin.bgReadings
+ * <p>
+ * Arrays are kept and only grown when filled again, so one instance can be reused
+ * for every calculation without allocating an object per reading.
+ */
+public class BgTimeSeries {
+    private long[] dates;
+    private double[] values;
+    private int size = 0;
+
+    public BgTimeSeries() {
+        this(300);
+    }
+
+    private BgTimeSeries(int capacity) {
+        dates = new long[capacity];
+        values = new double[capacity];
+    }
+
+    public BgTimeSeries(List<BgReading> bgReadings) {
+        this(bgReadings.size());
+        set(bgReadings);
+    }
+
+    public void set(List<BgReading> bgReadings) {
+        clear();
+        for (BgReading bgReading : bgReadings)
+            add(bgReading.date, bgReading.value);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Add value older than the last one
+     */
+    public void add(long date, double value) {
+        if (size == dates.length) {
+            int capacity = Math.max(16, size * 2);
+            dates = Arrays.copyOf(dates, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        dates[size] = date;
+        values[size] = value;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long date(int index) {
+        return dates[index];
+    }
+
+    public double value(int index) {
+        return values[index];
+    }
+
+    public void setDate(int index, long date) {
+        dates[index] = date;
+    }
+
+    public void setValue(int index, double value) {
+        values[index] = value;
+    }
+
+    /**
+     * @return index of the oldest value with date >= time, -1 if there is none
+     */
+    public int indexOfNewer(long time) {
+        // dates are descending, find the last index with date >= time
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] >= time) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return index of the newest value with date <= time, -1 if there is none
+     */
+    public int indexOfOlder(long time) {
+        // dates are descending, find the first index with date <= time
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] <= time) {
+                found = mid;
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return found;
+    }
+
+    public List<BgReading> toList() {
+        List<BgReading> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            list.add(new BgReading().date(dates[i]).value(values[i]));
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("BgTimeSeries{size=").append(size);
+        for (int i = 0; i < size; i++)
+            sb.append(", ").append(DateUtil.toISOString(dates[i])).append('=').append(values[i]);
+        return sb.append('}').toString();
+    }
+}
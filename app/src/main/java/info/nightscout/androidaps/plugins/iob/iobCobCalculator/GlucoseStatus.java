@@ -6,9 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.List;
 
-import info.nightscout.androidaps.db.BgReading;
 import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.utils.DateUtil;
 import info.nightscout.androidaps.utils.DecimalFormatter;
@@ -61,7 +59,7 @@ public class GlucoseStatus {
 
         synchronized (IobCobCalculatorPlugin.getPlugin().getDataLock()) {
 
-            List<BgReading> data = IobCobCalculatorPlugin.getPlugin().getBgReadings();
+            BgTimeSeries data = IobCobCalculatorPlugin.getPlugin().getBgSeries();
 
             if (data == null) {
                 if (L.isEnabled(L.GLUCOSE))
@@ -76,19 +74,19 @@ public class GlucoseStatus {
                 return null;
             }
 
-            if (data.get(0).date < DateUtil.now() - 7 * 60 * 1000L && !allowOldData) {
+            if (data.date(0) < DateUtil.now() - 7 * 60 * 1000L && !allowOldData) {
                 if (L.isEnabled(L.GLUCOSE))
                     log.debug("olddata");
                 return null;
             }
 
-            BgReading now = data.get(0);
-            long now_date = now.date;
+            double now_value = data.value(0);
+            long now_date = data.date(0);
             double change;
 
             if (sizeRecords == 1) {
                 GlucoseStatus status = new GlucoseStatus();
-                status.glucose = now.value;
+                status.glucose = now_value;
                 status.short_avgdelta = 0d;
                 status.delta = 0d;
                 status.long_avgdelta = 0d;
@@ -105,28 +103,28 @@ public class GlucoseStatus {
             ArrayList<Double> long_deltas = new ArrayList<>();
 
             // Use the latest sgv value in the now calculations
-            now_value_list.add(now.value);
+            now_value_list.add(now_value);
 
             for (int i = 1; i < sizeRecords; i++) {
-                if (data.get(i).value > 38) {
-                    BgReading then = data.get(i);
-                    long then_date = then.date;
+                if (data.value(i) > 38) {
+                    double then_value = data.value(i);
+                    long then_date = data.date(i);
                     double avgdelta;
                     long minutesago;
 
                     minutesago = Math.round((now_date - then_date) / (1000d * 60));
                     // multiply by 5 to get the same units as delta, i.e. mg/dL/5m
-                    change = now.value - then.value;
+                    change = now_value - then_value;
                     avgdelta = change / minutesago * 5;
 
                     if (L.isEnabled(L.GLUCOSE))
-                        log.debug(then.toString() + " minutesago=" + minutesago + " avgdelta=" + avgdelta);
+                        log.debug("BG: " + DateUtil.toISOString(then_date) + " " + then_value + " minutesago=" + minutesago + " avgdelta=" + avgdelta);
 
                     // use the average of all data points in the last 2.5m for all further "now" calculations
                     if (0 < minutesago && minutesago < 2.5) {
                         // Keep and average all values within the last 2.5 minutes
-                        now_value_list.add(then.value);
-                        now.value = average(now_value_list);
+                        now_value_list.add(then_value);
+                        now_value = average(now_value_list);
                         // short_deltas are calculated from everything ~5-15 minutes ago
                     } else if (2.5 < minutesago && minutesago < 17.5) {
                         //console.error(minutesago, avgdelta);
@@ -146,7 +144,7 @@ public class GlucoseStatus {
             }
 
             GlucoseStatus status = new GlucoseStatus();
-            status.glucose = now.value;
+            status.glucose = now_value;
             status.date = now_date;
 
             status.short_avgdelta = average(short_deltas);
@@ -63,7 +63,14 @@ public class IobCobCalculatorPlugin extends PluginBase {
     private LongSparseArray<BasalData> basalDataTable = new LongSparseArray<>(); // oldest at index 0
 
     private volatile List<BgReading> bgReadings = null; // newest at index 0
-    private volatile List<BgReading> bucketed_data = null;
+    private final BgTimeSeries bgSeries = new BgTimeSeries(); // bgReadings as columns
+    private final BgTimeSeries bucketedSeries = new BgTimeSeries(); // reused by every createBucketedData()
+    private volatile BgTimeSeries bucketed_data = null; // bucketedSeries or null if not enough data
+
+    // oldest BG change not reflected in bgReadings yet, 0 to reload everything
+    private long bgChangedFrom = 0;
+    // start of loaded bgReadings if they reach to now, 0 otherwise
+    private long bgLoadedFrom = 0;
 
     private final Object dataLock = new Object();
 
@@ -101,10 +108,32 @@ public class IobCobCalculatorPlugin extends PluginBase {
     }
 
     public void setBgReadings(List<BgReading> bgReadings) {
-        this.bgReadings = bgReadings;
+        synchronized (dataLock) {
+            this.bgReadings = bgReadings;
+            bgLoadedFrom = 0;
+            if (bgReadings != null)
+                bgSeries.set(bgReadings);
+            else
+                bgSeries.clear();
+        }
+    }
+
+    @Nullable
+    public BgTimeSeries getBgSeries() {
+        return bgReadings != null ? bgSeries : null;
     }
 
+    /**
+     * Copy of bucketed data as BgReading objects, calculation uses getBucketedSeries()
+     */
+    @Nullable
     public List<BgReading> getBucketedData() {
+        BgTimeSeries bucketed = bucketed_data;
+        return bucketed != null ? bucketed.toList() : null;
+    }
+
+    @Nullable
+    public BgTimeSeries getBucketedSeries() {
         return bucketed_data;
     }
 
@@ -126,27 +155,46 @@ public class IobCobCalculatorPlugin extends PluginBase {
         if (profile != null) dia = profile.getDia();
         long start = to - T.hours((long) (24 + dia)).msecs();
         if (DateUtil.isCloseToNow(to)) {
-            // if close to now expect there can be some readings with time in close future (caused by wrong time setting)
-            // so read all records
-            bgReadings = MainApp.getDbHelper().getBgreadingsDataFromTime(start, false);
-            if (L.isEnabled(L.AUTOSENS))
-                log.debug("BG data loaded. Size: " + bgReadings.size() + " Start date: " + DateUtil.dateAndTimeString(start));
+            if (bgReadings != null && bgLoadedFrom != 0 && start >= bgLoadedFrom && bgChangedFrom != 0) {
+                // keep unchanged readings, read again only from the oldest change
+                long changedFrom = Math.max(start, bgChangedFrom);
+                List<BgReading> merged = bgChangedFrom == Long.MAX_VALUE
+                        ? new ArrayList<>()
+                        : MainApp.getDbHelper().getBgreadingsDataFromTime(changedFrom, false);
+                int changed = merged.size();
+                for (BgReading bgReading : bgReadings)
+                    if (bgReading.date < changedFrom && bgReading.date >= start)
+                        merged.add(bgReading);
+                bgReadings = merged;
+                if (L.isEnabled(L.AUTOSENS))
+                    log.debug("BG data updated. Changed: " + changed + " Size: " + bgReadings.size() + " Start date: " + DateUtil.dateAndTimeString(start));
+            } else {
+                // if close to now expect there can be some readings with time in close future (caused by wrong time setting)
+                // so read all records
+                bgReadings = MainApp.getDbHelper().getBgreadingsDataFromTime(start, false);
+                if (L.isEnabled(L.AUTOSENS))
+                    log.debug("BG data loaded. Size: " + bgReadings.size() + " Start date: " + DateUtil.dateAndTimeString(start));
+            }
+            bgLoadedFrom = start;
         } else {
             bgReadings = MainApp.getDbHelper().getBgreadingsDataFromTime(start, to, false);
             if (L.isEnabled(L.AUTOSENS))
                 log.debug("BG data loaded. Size: " + bgReadings.size() + " Start date: " + DateUtil.dateAndTimeString(start) + " End date: " + DateUtil.dateAndTimeString(to));
+            bgLoadedFrom = 0;
         }
+        bgChangedFrom = Long.MAX_VALUE;
+        bgSeries.set(bgReadings);
     }
 
     public boolean isAbout5minData() {
         synchronized (dataLock) {
-            if (bgReadings == null || bgReadings.size() < 3) {
+            if (bgReadings == null || bgSeries.size() < 3) {
                 return true;
             }
             long totalDiff = 0;
-            for (int i = 1; i < bgReadings.size(); ++i) {
-                long bgTime = bgReadings.get(i).date;
-                long lastbgTime = bgReadings.get(i - 1).date;
+            for (int i = 1; i < bgSeries.size(); ++i) {
+                long bgTime = bgSeries.date(i);
+                long lastbgTime = bgSeries.date(i - 1);
                 long diff = lastbgTime - bgTime;
                 diff %= T.mins(5).msecs();
                 if (diff > T.mins(2).plus(T.secs(30)).msecs())
@@ -176,139 +224,118 @@ public class IobCobCalculatorPlugin extends PluginBase {
 
     @Nullable
     public BgReading findNewer(long time) {
-        BgReading lastFound = bgReadings.get(0);
-        if (lastFound.date < time) return null;
-        for (int i = 1; i < bgReadings.size(); ++i) {
-            if (bgReadings.get(i).date == time) return bgReadings.get(i);
-            if (bgReadings.get(i).date > time) continue;
-            lastFound = bgReadings.get(i - 1);
-            if (bgReadings.get(i).date < time) break;
-        }
-        return lastFound;
+        int index = bgSeries.indexOfNewer(time);
+        return index >= 0 ? bgReadings.get(index) : null;
     }
 
     @Nullable
     public BgReading findOlder(long time) {
-        BgReading lastFound = bgReadings.get(bgReadings.size() - 1);
-        if (lastFound.date > time) return null;
-        for (int i = bgReadings.size() - 2; i >= 0; --i) {
-            if (bgReadings.get(i).date == time) return bgReadings.get(i);
-            if (bgReadings.get(i).date < time) continue;
-            lastFound = bgReadings.get(i + 1);
-            if (bgReadings.get(i).date > time) break;
-        }
-        return lastFound;
+        int index = bgSeries.indexOfOlder(time);
+        return index >= 0 ? bgReadings.get(index) : null;
     }
 
     private void createBucketedDataRecalculated() {
-        if (bgReadings == null || bgReadings.size() < 3) {
+        if (bgReadings == null || bgSeries.size() < 3) {
             bucketed_data = null;
             return;
         }
 
-        bucketed_data = new ArrayList<>();
-        long currentTime = bgReadings.get(0).date - bgReadings.get(0).date % T.mins(5).msecs();
+        BgTimeSeries bucketed = bucketedSeries;
+        bucketed.clear();
+        long currentTime = bgSeries.date(0) - bgSeries.date(0) % T.mins(5).msecs();
         //log.debug("First reading: " + new Date(currentTime).toLocaleString());
 
         while (true) {
             // test if current value is older than current time
-            BgReading newer = findNewer(currentTime);
-            BgReading older = findOlder(currentTime);
-            if (newer == null || older == null)
+            int newer = bgSeries.indexOfNewer(currentTime);
+            int older = bgSeries.indexOfOlder(currentTime);
+            if (newer < 0 || older < 0)
                 break;
 
-            if (older.date == newer.date) { // direct hit
-                bucketed_data.add(newer);
+            long newerDate = bgSeries.date(newer);
+            long olderDate = bgSeries.date(older);
+            if (olderDate == newerDate) { // direct hit
+                bucketed.add(newerDate, bgSeries.value(newer));
             } else {
-                double bgDelta = newer.value - older.value;
-                long timeDiffToNew = newer.date - currentTime;
-
-                double currentBg = newer.value - (double) timeDiffToNew / (newer.date - older.date) * bgDelta;
-                BgReading newBgreading = new BgReading();
-                newBgreading.date = currentTime;
-                newBgreading.value = Math.round(currentBg);
-                bucketed_data.add(newBgreading);
-                //log.debug("BG: " + newBgreading.value + " (" + new Date(newBgreading.date).toLocaleString() + ") Prev: " + older.value + " (" + new Date(older.date).toLocaleString() + ") Newer: " + newer.value + " (" + new Date(newer.date).toLocaleString() + ")");
+                double bgDelta = bgSeries.value(newer) - bgSeries.value(older);
+                long timeDiffToNew = newerDate - currentTime;
+
+                double currentBg = bgSeries.value(newer) - (double) timeDiffToNew / (newerDate - olderDate) * bgDelta;
+                bucketed.add(currentTime, Math.round(currentBg));
+                //log.debug("BG: " + Math.round(currentBg) + " (" + new Date(currentTime).toLocaleString() + ") Prev: " + bgSeries.value(older) + " (" + new Date(olderDate).toLocaleString() + ") Newer: " + bgSeries.value(newer) + " (" + new Date(newerDate).toLocaleString() + ")");
             }
             currentTime -= T.mins(5).msecs();
 
         }
+        bucketed_data = bucketed;
     }
 
 
     private void createBucketedData5min() {
-        if (bgReadings == null || bgReadings.size() < 3) {
+        if (bgReadings == null || bgSeries.size() < 3) {
             bucketed_data = null;
             return;
         }
 
-        bucketed_data = new ArrayList<>();
-        bucketed_data.add(bgReadings.get(0));
+        BgTimeSeries bucketed = bucketedSeries;
+        bucketed.clear();
+        bucketed.add(bgSeries.date(0), bgSeries.value(0));
         if (L.isEnabled(L.AUTOSENS))
-            log.debug("Adding. bgTime: " + DateUtil.toISOString(bgReadings.get(0).date) + " lastbgTime: " + "none-first-value" + " " + bgReadings.get(0).toString());
+            log.debug("Adding. bgTime: " + DateUtil.toISOString(bgSeries.date(0)) + " lastbgTime: " + "none-first-value" + " " + bgSeries.value(0));
         int j = 0;
-        for (int i = 1; i < bgReadings.size(); ++i) {
-            long bgTime = bgReadings.get(i).date;
-            long lastbgTime = bgReadings.get(i - 1).date;
-            //log.error("Processing " + i + ": " + new Date(bgTime).toString() + " " + bgReadings.get(i).value + "   Previous: " + new Date(lastbgTime).toString() + " " + bgReadings.get(i - 1).value);
-            if (bgReadings.get(i).value < 39 || bgReadings.get(i - 1).value < 39) {
+        for (int i = 1; i < bgSeries.size(); ++i) {
+            long bgTime = bgSeries.date(i);
+            long lastbgTime = bgSeries.date(i - 1);
+            //log.error("Processing " + i + ": " + new Date(bgTime).toString() + " " + bgSeries.value(i) + "   Previous: " + new Date(lastbgTime).toString() + " " + bgSeries.value(i - 1));
+            if (bgSeries.value(i) < 39 || bgSeries.value(i - 1) < 39) {
                 throw new IllegalStateException("<39");
             }
 
             long elapsed_minutes = (bgTime - lastbgTime) / (60 * 1000);
             if (Math.abs(elapsed_minutes) > 8) {
                 // interpolate missing data points
-                double lastbg = bgReadings.get(i - 1).value;
+                double lastbg = bgSeries.value(i - 1);
                 elapsed_minutes = Math.abs(elapsed_minutes);
                 //console.error(elapsed_minutes);
                 long nextbgTime;
                 while (elapsed_minutes > 5) {
                     nextbgTime = lastbgTime - 5 * 60 * 1000;
                     j++;
-                    BgReading newBgreading = new BgReading();
-                    newBgreading.date = nextbgTime;
-                    double gapDelta = bgReadings.get(i).value - lastbg;
+                    double gapDelta = bgSeries.value(i) - lastbg;
                     //console.error(gapDelta, lastbg, elapsed_minutes);
                     double nextbg = lastbg + (5d / elapsed_minutes * gapDelta);
-                    newBgreading.value = Math.round(nextbg);
+                    bucketed.add(nextbgTime, Math.round(nextbg));
                     //console.error("Interpolated", bucketed_data[j]);
-                    bucketed_data.add(newBgreading);
                     if (L.isEnabled(L.AUTOSENS))
-                        log.debug("Adding. bgTime: " + DateUtil.toISOString(bgTime) + " lastbgTime: " + DateUtil.toISOString(lastbgTime) + " " + newBgreading.toString());
+                        log.debug("Adding. bgTime: " + DateUtil.toISOString(bgTime) + " lastbgTime: " + DateUtil.toISOString(lastbgTime) + " " + bucketed.value(j));
 
                     elapsed_minutes = elapsed_minutes - 5;
                     lastbg = nextbg;
                     lastbgTime = nextbgTime;
                 }
                 j++;
-                BgReading newBgreading = new BgReading();
-                newBgreading.value = bgReadings.get(i).value;
-                newBgreading.date = bgTime;
-                bucketed_data.add(newBgreading);
+                bucketed.add(bgTime, bgSeries.value(i));
                 if (L.isEnabled(L.AUTOSENS))
-                    log.debug("Adding. bgTime: " + DateUtil.toISOString(bgTime) + " lastbgTime: " + DateUtil.toISOString(lastbgTime) + " " + newBgreading.toString());
+                    log.debug("Adding. bgTime: " + DateUtil.toISOString(bgTime) + " lastbgTime: " + DateUtil.toISOString(lastbgTime) + " " + bucketed.value(j));
             } else if (Math.abs(elapsed_minutes) > 2) {
                 j++;
-                BgReading newBgreading = new BgReading();
-                newBgreading.value = bgReadings.get(i).value;
-                newBgreading.date = bgTime;
-                bucketed_data.add(newBgreading);
+                bucketed.add(bgTime, bgSeries.value(i));
                 if (L.isEnabled(L.AUTOSENS))
-                    log.debug("Adding. bgTime: " + DateUtil.toISOString(bgTime) + " lastbgTime: " + DateUtil.toISOString(lastbgTime) + " " + newBgreading.toString());
+                    log.debug("Adding. bgTime: " + DateUtil.toISOString(bgTime) + " lastbgTime: " + DateUtil.toISOString(lastbgTime) + " " + bucketed.value(j));
             } else {
-                bucketed_data.get(j).value = (bucketed_data.get(j).value + bgReadings.get(i).value) / 2;
+                bucketed.setValue(j, (bucketed.value(j) + bgSeries.value(i)) / 2);
                 //log.error("***** Average");
             }
         }
 
         // Normalize bucketed data
-        for (int i = bucketed_data.size() - 2; i >= 0; i--) {
-            BgReading current = bucketed_data.get(i);
-            BgReading previous = bucketed_data.get(i + 1);
-            long msecDiff = current.date - previous.date;
+        for (int i = bucketed.size() - 2; i >= 0; i--) {
+            long current = bucketed.date(i);
+            long previous = bucketed.date(i + 1);
+            long msecDiff = current - previous;
             long adjusted = (msecDiff - T.mins(5).msecs()) / 1000;
             if (L.isEnabled(L.AUTOSENS))
-                log.debug("Adjusting bucketed data time. Current: " + DateUtil.toISOString(current.date) + " to: " + DateUtil.toISOString(previous.date + T.mins(5).msecs()) + " by " + adjusted + " sec");
+                log.debug("Adjusting bucketed data time. Current: " + DateUtil.toISOString(current) + " to: " + DateUtil.toISOString(previous + T.mins(5).msecs()) + " by " + adjusted + " sec");
             if (Math.abs(adjusted) > 90) {
                 // too big adjustment, fallback to non 5 min data
                 if (L.isEnabled(L.AUTOSENS))
@@ -316,11 +343,12 @@ public class IobCobCalculatorPlugin extends PluginBase {
                 createBucketedDataRecalculated();
                 return;
             }
-            current.date = previous.date + T.mins(5).msecs();
+            bucketed.setDate(i, previous + T.mins(5).msecs());
         }
 
+        bucketed_data = bucketed;
         if (L.isEnabled(L.AUTOSENS))
-            log.debug("Bucketed data created. Size: " + bucketed_data.size());
+            log.debug("Bucketed data created. Size: " + bucketed.size());
     }
 
     public long calculateDetectionStart(long from, boolean limitDataToOldestAvailable) {
@@ -381,13 +409,36 @@ public class IobCobCalculatorPlugin extends PluginBase {
 
     @Nullable
     public Long findPreviousTimeFromBucketedData(long time) {
-        if (bucketed_data == null)
+        BgTimeSeries bucketed = bucketed_data;
+        if (bucketed == null)
             return null;
-        for (int index = 0; index < bucketed_data.size(); index++) {
-            if (bucketed_data.get(index).date <= time)
-                return bucketed_data.get(index).date;
+        int index = bucketed.indexOfOlder(time);
+        return index >= 0 ? bucketed.date(index) : null;
+    }
+
+    /**
+     * Index of bucketed_data from which the calculation thread must start processing.
+     * <p>
+     * Cached AutosensData are only ever invalidated from the newest end (new BG or back-dated
+     * history in onEventNewHistoryData), so everything up to the newest cached record is still
+     * valid and only the rows after it need to be derived. Returns the index for a full walk
+     * if the cache is empty or doesn't line up with the current bucketed data.
+     *
+     * @return index to start with, -1 if there is nothing to calculate
+     */
+    public int findCalculationStartIndex(BgTimeSeries bucketedData, LongSparseArray<AutosensData> autosensTable) {
+        int fullWalkStart = bucketedData.size() - 4;
+        if (autosensTable.size() == 0)
+            return fullWalkStart;
+        long lastCachedTime = autosensTable.keyAt(autosensTable.size() - 1);
+        for (int i = 0; i <= fullWalkStart; i++) {
+            long bgTime = roundUpTime(bucketedData.date(i));
+            if (bgTime == lastCachedTime)
+                return i - 1;
+            if (bgTime < lastCachedTime)
+                break;
         }
-        return null;
+        return fullWalkStart;
     }
 
     public BasalData getBasalData(Profile profile, long time) {
@@ -576,6 +627,9 @@ public class IobCobCalculatorPlugin extends PluginBase {
                 log.debug("Ignoring event for non default instance");
             return;
         }
+        synchronized (dataLock) {
+            bgChangedFrom = 0;
+        }
         runCalculation("onEventAppInitialized", System.currentTimeMillis(), true, true, ev);
     }
 
@@ -588,6 +642,9 @@ public class IobCobCalculatorPlugin extends PluginBase {
             return;
         }
         stopCalculation("onEventNewBG");
+        synchronized (dataLock) {
+            bgChangedFrom = Math.min(bgChangedFrom, ev.changedFrom);
+        }
         runCalculation("onEventNewBG", System.currentTimeMillis(), true, true, ev);
     }
 
@@ -743,7 +800,7 @@ public class IobCobCalculatorPlugin extends PluginBase {
     // From https://gist.github.com/IceCreamYou/6ffa1b18c4c8f6aeaad2
     // Returns the value at a given percentile in a sorted numeric array.
     // "Linear interpolation between closest ranks" method
-    public static double percentile(Double[] arr, double p) {
+    public static double percentile(double[] arr, double p) {
         if (arr.length == 0) return 0;
         if (p <= 0) return arr[0];
         if (p >= 1) return arr[arr.length - 1];
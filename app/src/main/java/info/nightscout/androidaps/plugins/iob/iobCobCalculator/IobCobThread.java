@@ -17,7 +17,6 @@ import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.data.IobTotal;
 import info.nightscout.androidaps.data.Profile;
-import info.nightscout.androidaps.db.BgReading;
 import info.nightscout.androidaps.events.Event;
 import info.nightscout.androidaps.interfaces.PluginType;
 import info.nightscout.androidaps.logging.L;
@@ -100,7 +99,7 @@ public class IobCobThread extends Thread {
                     iobCobCalculatorPlugin.loadBgData(end);
                     iobCobCalculatorPlugin.createBucketedData();
                 }
-                List<BgReading> bucketed_data = iobCobCalculatorPlugin.getBucketedData();
+                BgTimeSeries bucketed_data = iobCobCalculatorPlugin.getBucketedSeries();
                 LongSparseArray<AutosensData> autosensDataTable = iobCobCalculatorPlugin.getAutosensDataTable();
 
                 if (bucketed_data == null || bucketed_data.size() < 3) {
@@ -109,12 +108,14 @@ public class IobCobThread extends Thread {
                     return;
                 }
 
-                long prevDataTime = IobCobCalculatorPlugin.roundUpTime(bucketed_data.get(bucketed_data.size() - 3).date);
+                // continue after the newest valid cached record instead of walking the whole window
+                int startIndex = iobCobCalculatorPlugin.findCalculationStartIndex(bucketed_data, autosensDataTable);
+                long prevDataTime = IobCobCalculatorPlugin.roundUpTime(bucketed_data.date(startIndex + 1));
                 if (L.isEnabled(L.AUTOSENS))
-                    log.debug("Prev data time: " + new Date(prevDataTime).toLocaleString());
+                    log.debug("Prev data time: " + new Date(prevDataTime).toLocaleString() + " rows to process: " + (startIndex + 1) + "/" + bucketed_data.size());
                 AutosensData previous = autosensDataTable.get(prevDataTime);
                 // start from oldest to be able sub cob
-                for (int i = bucketed_data.size() - 4; i >= 0; i--) {
+                for (int i = startIndex; i >= 0; i--) {
                     String progress = i + (MainApp.isDev() ? " (" + from + ")" : "");
                     MainApp.bus().post(new EventIobCalculationProgress(progress));
 
@@ -125,7 +126,7 @@ public class IobCobThread extends Thread {
                         return;
                     }
                     // check if data already exists
-                    long bgTime = bucketed_data.get(i).date;
+                    long bgTime = bucketed_data.date(i);
                     bgTime = IobCobCalculatorPlugin.roundUpTime(bgTime);
                     if (bgTime > IobCobCalculatorPlugin.roundUpTime(now()))
                         continue;
@@ -159,14 +160,14 @@ public class IobCobThread extends Thread {
                     double bg;
                     double avgDelta;
                     double delta;
-                    bg = bucketed_data.get(i).value;
-                    if (bg < 39 || bucketed_data.get(i + 3).value < 39) {
+                    bg = bucketed_data.value(i);
+                    if (bg < 39 || bucketed_data.value(i + 3) < 39) {
                         log.error("! value < 39");
                         continue;
                     }
                     autosensData.bg = bg;
-                    delta = (bg - bucketed_data.get(i + 1).value);
-                    avgDelta = (bg - bucketed_data.get(i + 3).value) / 3;
+                    delta = (bg - bucketed_data.value(i + 1));
+                    avgDelta = (bg - bucketed_data.value(i + 3)) / 3;
 
                     IobTotal iob = iobCobCalculatorPlugin.calculateFromTreatmentsAndTemps(bgTime, profile);
 
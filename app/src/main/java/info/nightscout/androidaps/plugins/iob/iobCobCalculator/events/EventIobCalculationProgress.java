@@ -1,8 +1,9 @@
 package info.nightscout.androidaps.plugins.iob.iobCobCalculator.events;
 
+import info.nightscout.androidaps.events.CoalescedEvent;
 import info.nightscout.androidaps.events.Event;
 
-public class EventIobCalculationProgress extends Event {
+public class EventIobCalculationProgress extends Event implements CoalescedEvent {
     public String progress;
 
     public EventIobCalculationProgress(String progress) {
@@ -1,5 +1,6 @@
 package info.nightscout.androidaps.plugins.pump.combo.ruffyscripter.commands;
 
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 
 import org.monkey.d.ruffy.ruffy.driver.display.MenuAttribute;
@@ -7,6 +8,8 @@ import org.monkey.d.ruffy.ruffy.driver.display.MenuType;
 import org.monkey.d.ruffy.ruffy.driver.display.menu.BolusType;
 import org.monkey.d.ruffy.ruffy.driver.display.menu.MenuDate;
 import org.monkey.d.ruffy.ruffy.driver.display.menu.MenuTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Calendar;
 import java.util.Collections;
@@ -18,6 +21,8 @@ import info.nightscout.androidaps.plugins.pump.combo.ruffyscripter.RuffyScripter
 import info.nightscout.androidaps.plugins.pump.combo.ruffyscripter.history.Bolus;
 
 public abstract class BaseCommand implements Command {
+    private static final Logger log = LoggerFactory.getLogger(BaseCommand.class);
+
     // RS will inject itself here
     protected RuffyScripter scripter;
 
@@ -57,6 +62,30 @@ public abstract class BaseCommand implements Command {
         return result;
     }
 
+    /**
+     * Press up (positive steps) or down (negative steps) the given number of times,
+     * checking before each press the pump still displays the expected menu.
+     * <p>
+     * The check only compares the last menu received from the pump and waits only when it differs,
+     * so it doesn't slow down the input. It stops the input when a warning replaces the menu midway,
+     * remaining presses would otherwise go to the warning screen.
+     */
+    protected void pressUpOrDown(MenuType menuType, long steps) {
+        if (steps == 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        log.debug("Pressing " + (steps > 0 ? "up" : "down") + " " + Math.abs(steps) + " times");
+        for (int i = 0; i < Math.abs(steps); i++) {
+            scripter.verifyMenuIsDisplayed(menuType);
+            log.debug("Push #" + (i + 1) + "/" + Math.abs(steps));
+            if (steps > 0) scripter.pressUpKey();
+            else scripter.pressDownKey();
+            SystemClock.sleep(50);
+        }
+        log.debug("Input of " + Math.abs(steps) + " steps in " + menuType + " took " + (System.currentTimeMillis() - start) + "ms");
+    }
+
     @NonNull
     protected Bolus readBolusRecord() {
         scripter.verifyMenuIsDisplayed(MenuType.BOLUS_DATA);
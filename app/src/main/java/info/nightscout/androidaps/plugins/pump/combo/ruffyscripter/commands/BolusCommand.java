@@ -201,13 +201,7 @@ public class BolusCommand extends BaseCommand {
 
     private void inputBolusAmount() {
         scripter.verifyMenuIsDisplayed(MenuType.BOLUS_ENTER);
-        // press 'up' once for each 0.1 U increment
-        long steps = Math.round(bolus * 10);
-        for (int i = 0; i < steps; i++) {
-            scripter.verifyMenuIsDisplayed(MenuType.BOLUS_ENTER);
-            scripter.pressUpKey();
-            SystemClock.sleep(50);
-        }
+        pressUpOrDown(MenuType.BOLUS_ENTER, InputPlanner.bolusSteps(bolus));
     }
 
     private void verifyDisplayedBolusAmount() {
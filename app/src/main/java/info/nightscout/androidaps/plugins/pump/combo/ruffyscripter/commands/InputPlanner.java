@@ -0,0 +1,54 @@
+package info.nightscout.androidaps.plugins.pump.combo.ruffyscripter.commands;
+
+/**
+ * Calculates key presses needed to get from the value displayed on the pump to the requested one.
+ * Positive result means pressing up, negative pressing down.
+ * <p>
+ * Values are entered by single key presses only: holding a key makes the pump scroll with
+ * varying speed, which overshoots and can't be verified reliably before confirming.
+ */
+class InputPlanner {
+    static final long TBR_PERCENTAGE_STEP = 10;
+    static final long TBR_DURATION_STEP = 15;
+
+    /**
+     * The pump changes step size from 0.01 to 0.05 when crossing 1.00 U,
+     * pressing up at 0.00 goes directly to 0.05.
+     */
+    static long basalRateSteps(double currentRate, double requestedRate) {
+        if (currentRate == 0) {
+            // edge case of starting from 0.00;
+            return stepsToOne(0.05) - stepsToOne(requestedRate) + 1;
+        }
+        return stepsToOne(currentRate) - stepsToOne(requestedRate);
+    }
+
+    /**
+     * Steps required to go up to 1.0 (positive return value),
+     * or down to 1.0 (negative return value).
+     */
+    private static long stepsToOne(double rate) {
+        double change = (1.0 - rate);
+        if (rate > 1) return Math.round(change / 0.05);
+        return Math.round(change / 0.01);
+    }
+
+    static long tbrPercentageSteps(long currentPercentage, long requestedPercentage) {
+        return (requestedPercentage - currentPercentage) / TBR_PERCENTAGE_STEP;
+    }
+
+    static long tbrDurationSteps(long currentDuration, long requestedDuration) {
+        long difference = requestedDuration - currentDuration;
+        long durationSteps = difference / TBR_DURATION_STEP;
+        long durationAfterInitialSteps = currentDuration + (durationSteps * TBR_DURATION_STEP);
+
+        if (durationAfterInitialSteps < requestedDuration) return durationSteps + 1;
+        else if (durationAfterInitialSteps > requestedDuration) return durationSteps - 1;
+        else return durationSteps;
+    }
+
+    static long bolusSteps(double bolus) {
+        // press 'up' once for each 0.1 U increment
+        return Math.round(bolus * 10);
+    }
+}
@@ -79,38 +79,11 @@ public class SetBasalProfileCommand extends BaseCommand {
     private long inputBasalRate(double requestedRate) {
         double currentRate = scripter.readBlinkingValue(Double.class, MenuAttribute.BASAL_RATE);
         log.debug("Current rate: " + currentRate + ", requested: " + requestedRate);
-        // the pump changes steps size from 0.01 to 0.05 when crossing 1.00 U
-        long steps = 0;
-        if (currentRate == 0) {
-            // edge case of starting from 0.00;
-            steps = stepsToOne(0.05) - stepsToOne(requestedRate) + 1;
-        } else {
-            steps = stepsToOne(currentRate) - stepsToOne(requestedRate);
-        }
-        if (steps == 0) {
-            return 0;
-        }
-        log.debug("Pressing " + (steps > 0 ? "up" : "down") + " " + Math.abs(steps) + " times");
-        for (int i = 0; i < Math.abs(steps); i++) {
-            scripter.verifyMenuIsDisplayed(MenuType.BASAL_SET);
-            log.debug("Push #" + (i + 1) + "/" + Math.abs(steps));
-            if (steps > 0) scripter.pressUpKey();
-            else scripter.pressDownKey();
-            SystemClock.sleep(50);
-        }
+        long steps = InputPlanner.basalRateSteps(currentRate, requestedRate);
+        pressUpOrDown(MenuType.BASAL_SET, steps);
         return steps;
     }
 
-    /**
-     * Steps required to go up to 1.0 (positive return value),
-     * or down to 1.0 (negative return value).
-     */
-    private long stepsToOne(double rate) {
-        double change = (1.0 - rate);
-        if (rate > 1) return Math.round(change / 0.05);
-        return Math.round(change / 0.01);
-    }
-
     private void verifyDisplayedRate(double requestedRate, long change) {
         scripter.verifyMenuIsDisplayed(MenuType.BASAL_SET);
         // wait up to 5s for any scrolling to finish
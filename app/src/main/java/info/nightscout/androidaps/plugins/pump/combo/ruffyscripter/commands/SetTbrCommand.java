@@ -141,17 +141,9 @@ public class SetTbrCommand extends BaseCommand {
         scripter.verifyMenuIsDisplayed(MenuType.TBR_SET);
         long currentPercent = readDisplayedPercentage();
         log.debug("Current TBR %: " + currentPercent);
-        long percentageChange = percentage - currentPercent;
-        long percentageSteps = percentageChange / 10;
+        long percentageSteps = InputPlanner.tbrPercentageSteps(currentPercent, percentage);
         boolean increasePercentage = percentageSteps > 0;
-        log.debug("Pressing " + (increasePercentage ? "up" : "down") + " " + percentageSteps + " times");
-        for (int i = 0; i < Math.abs(percentageSteps); i++) {
-            scripter.verifyMenuIsDisplayed(MenuType.TBR_SET);
-            log.debug("Push #" + (i + 1) + "/" + Math.abs(percentageSteps));
-            if (increasePercentage) scripter.pressUpKey();
-            else scripter.pressDownKey();
-            SystemClock.sleep(50);
-        }
+        pressUpOrDown(MenuType.TBR_SET, percentageSteps);
         return increasePercentage;
     }
 
@@ -189,30 +181,12 @@ public class SetTbrCommand extends BaseCommand {
 
     private boolean inputTbrDuration() {
         scripter.verifyMenuIsDisplayed(MenuType.TBR_DURATION);
-        long durationSteps = calculateDurationSteps();
-        boolean increaseDuration = durationSteps > 0;
-        log.debug("Pressing " + (increaseDuration ? "up" : "down") + " " + durationSteps + " times");
-        for (int i = 0; i < Math.abs(durationSteps); i++) {
-            scripter.verifyMenuIsDisplayed(MenuType.TBR_DURATION);
-            log.debug("Push #" + (i + 1) + "/" + Math.abs(durationSteps));
-            if (increaseDuration) scripter.pressUpKey();
-            else scripter.pressDownKey();
-            SystemClock.sleep(50);
-        }
-        return increaseDuration;
-    }
-
-    private long calculateDurationSteps() {
         long currentDuration = readDisplayedDuration();
         log.debug("Initial TBR duration: " + currentDuration);
-
-        long difference = duration - currentDuration;
-        long durationSteps = difference / 15;
-        long durationAfterInitialSteps = currentDuration + (durationSteps * 15);
-
-        if (durationAfterInitialSteps < duration) return durationSteps + 1;
-        else if (durationAfterInitialSteps > duration) return durationSteps - 1;
-        else return durationSteps;
+        long durationSteps = InputPlanner.tbrDurationSteps(currentDuration, duration);
+        boolean increaseDuration = durationSteps > 0;
+        pressUpOrDown(MenuType.TBR_DURATION, durationSteps);
+        return increaseDuration;
     }
 
     private void verifyDisplayedTbrDuration(boolean increasingPercentage) {
@@ -0,0 +1,114 @@
+package info.nightscout.androidaps.plugins.pump.danaR.comm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import info.nightscout.androidaps.utils.CRC;
+
+/**
+ * Splits byte stream received from DanaR, DanaRv2 and DanaR Korean into verified packets
+ * <p>
+ * 7E 7E len F1 CMD SUB data CRC CRC 2E 2E
+ * <p>
+ * Data is read directly into one reusable buffer. Consumed bytes are only skipped,
+ * the unprocessed tail is moved to the beginning when there is not enough free space for next read.
+ */
+public class FrameDecoder {
+    private static final int READ_SIZE = 1024;
+    private static final int HEADER_SIZE = 3; // 7E 7E len
+    private static final int OVERHEAD = 7; // 7E 7E len ... CRC CRC 2E 2E
+
+    private byte[] buffer = new byte[4 * READ_SIZE];
+    private int start = 0; // first unprocessed byte
+    private int end = 0; // first free byte
+
+    public static class FrameException extends Exception {
+        public final String reason;
+
+        FrameException(String reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Blocking read of next chunk from stream
+     *
+     * @return number of bytes read, -1 on end of stream
+     */
+    public int read(InputStream inputStream) throws IOException {
+        // Ask for 1024 byte (or more if available)
+        ensureFree(Math.max(READ_SIZE, inputStream.available()));
+        int gotBytes = inputStream.read(buffer, end, buffer.length - end);
+        if (gotBytes > 0)
+            end += gotBytes;
+        return gotBytes;
+    }
+
+    public void append(byte[] data, int offset, int length) {
+        ensureFree(length);
+        System.arraycopy(data, offset, buffer, end, length);
+        end += length;
+    }
+
+    public int available() {
+        return end - start;
+    }
+
+    /**
+     * @return next verified packet or null if packet is not complete yet
+     * @throws FrameException on broken stream, connection should be closed
+     */
+    public byte[] nextFrame() throws FrameException {
+        if (available() <= HEADER_SIZE) // 3rd byte is packet size. continue only if we can determine packet size
+            return null;
+        if (buffer[start] != (byte) 0x7E || buffer[start + 1] != (byte) 0x7E)
+            throw new FrameException("Wrong beginning of packet", "Wrong beginning of packet len=" + available() + "    " + pendingHex());
+
+        int length = (buffer[start + 2] & 0xFF) + OVERHEAD;
+        // Check if we have enough data
+        if (available() < length)
+            return null;
+        if (buffer[start + length - 2] != (byte) 0x2E || buffer[start + length - 1] != (byte) 0x2E)
+            throw new FrameException("wrong packet", "wrong packet lenght=" + length + " data " + pendingHex());
+
+        short crc = CRC.getCrc16(buffer, start + 3, length - OVERHEAD);
+        byte crcByte0 = (byte) (crc >> 8 & 0xFF);
+        byte crcByte1 = (byte) (crc & 0xFF);
+        byte crcByte0received = buffer[start + length - 4];
+        byte crcByte1received = buffer[start + length - 3];
+        if (crcByte0 != crcByte0received || crcByte1 != crcByte1received)
+            throw new FrameException("crc error", "CRC Error" + String.format("%02x ", crcByte0) + String.format("%02x ", crcByte1) + String.format("%02x ", crcByte0received) + String.format("%02x ", crcByte1received));
+
+        // Packet is verified here. Messages may keep the array so it must be a copy
+        byte[] frame = Arrays.copyOfRange(buffer, start, start + length);
+        start += length;
+        if (start == end)
+            start = end = 0;
+        return frame;
+    }
+
+    public static int command(byte[] frame) {
+        return (frame[5] & 0xFF) | ((frame[4] << 8) & 0xFF00);
+    }
+
+    private void ensureFree(int size) {
+        if (buffer.length - end >= size)
+            return;
+        int pending = available();
+        if (buffer.length - pending < size) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, pending + size)];
+            System.arraycopy(buffer, start, grown, 0, pending);
+            buffer = grown;
+        } else {
+            System.arraycopy(buffer, start, buffer, 0, pending);
+        }
+        start = 0;
+        end = pending;
+    }
+
+    private String pendingHex() {
+        return MessageBase.toHexString(Arrays.copyOfRange(buffer, start, end));
+    }
+}
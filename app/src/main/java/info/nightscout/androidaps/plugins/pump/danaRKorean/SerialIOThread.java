@@ -12,10 +12,10 @@ import java.io.OutputStream;
 
 import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.plugins.pump.danaR.DanaRPump;
+import info.nightscout.androidaps.plugins.pump.danaR.comm.FrameDecoder;
 import info.nightscout.androidaps.plugins.pump.danaR.comm.MessageBase;
 import info.nightscout.androidaps.plugins.pump.danaR.services.AbstractSerialIOThread;
 import info.nightscout.androidaps.plugins.pump.danaRKorean.comm.MessageHashTable_k;
-import info.nightscout.androidaps.utils.CRC;
 
 /**
  * Created by mike on 17.07.2016.
@@ -28,7 +28,7 @@ public class SerialIOThread extends AbstractSerialIOThread {
     private BluetoothSocket mRfCommSocket;
 
     private boolean mKeepRunning = true;
-    private byte[] mReadBuff = new byte[0];
+    private FrameDecoder frameDecoder = new FrameDecoder();
 
     private MessageBase processedMessage;
 
@@ -49,20 +49,13 @@ public class SerialIOThread extends AbstractSerialIOThread {
     public final void run() {
         try {
             while (mKeepRunning) {
-                int availableBytes = mInputStream.available();
-                // Ask for 1024 byte (or more if available)
-                byte[] newData = new byte[Math.max(1024, availableBytes)];
-                int gotBytes = mInputStream.read(newData);
-                // When we are here there is some new data available
-                appendToBuffer(newData, gotBytes);
+                if (frameDecoder.read(mInputStream) < 0)
+                    break; // end of stream
 
                 // process all messages we already got
-                while (mReadBuff.length > 3) { // 3rd byte is packet size. continue only if we an determine packet size
-                    byte[] extractedBuff = cutMessageFromBuffer();
-                    if (extractedBuff == null)
-                        break; // message is not complete in buffer (wrong packet calls disconnection)
-
-                    int command = (extractedBuff[5] & 0xFF) | ((extractedBuff[4] << 8) & 0xFF00);
+                byte[] extractedBuff;
+                while ((extractedBuff = frameDecoder.nextFrame()) != null) {
+                    int command = FrameDecoder.command(extractedBuff);
 
                     MessageBase message;
                     if (processedMessage != null && processedMessage.getCommand() == command) {
@@ -83,6 +76,10 @@ public class SerialIOThread extends AbstractSerialIOThread {
                     }
                 }
             }
+        } catch (FrameDecoder.FrameException e) {
+            log.error(e.getMessage());
+            mKeepRunning = false;
+            disconnect(e.reason);
         } catch (Exception e) {
             if (e.getMessage().indexOf("bt socket closed") < 0)
                 log.error("Thread exception: ", e);
@@ -91,54 +88,6 @@ public class SerialIOThread extends AbstractSerialIOThread {
         disconnect("EndOfLoop");
     }
 
-    void appendToBuffer(byte[] newData, int gotBytes) {
-        // add newData to mReadBuff
-        byte[] newReadBuff = new byte[mReadBuff.length + gotBytes];
-        System.arraycopy(mReadBuff, 0, newReadBuff, 0, mReadBuff.length);
-        System.arraycopy(newData, 0, newReadBuff, mReadBuff.length, gotBytes);
-        mReadBuff = newReadBuff;
-    }
-
-    byte[] cutMessageFromBuffer() {
-        if (mReadBuff[0] == (byte) 0x7E && mReadBuff[1] == (byte) 0x7E) {
-            int length = (mReadBuff[2] & 0xFF) + 7;
-            // Check if we have enough data
-            if (mReadBuff.length < length) {
-                return null;
-            }
-            if (mReadBuff[length - 2] != (byte) 0x2E || mReadBuff[length - 1] != (byte) 0x2E) {
-                log.error("wrong packet lenght=" + length + " data " + MessageBase.toHexString(mReadBuff));
-                disconnect("wrong packet");
-                return null;
-            }
-
-            short crc = CRC.getCrc16(mReadBuff, 3, length - 7);
-            byte crcByte0 = (byte) (crc >> 8 & 0xFF);
-            byte crcByte1 = (byte) (crc & 0xFF);
-
-            byte crcByte0received = mReadBuff[length - 4];
-            byte crcByte1received = mReadBuff[length - 3];
-
-            if (crcByte0 != crcByte0received || crcByte1 != crcByte1received) {
-                log.error("CRC Error" + String.format("%02x ", crcByte0) + String.format("%02x ", crcByte1) + String.format("%02x ", crcByte0received) + String.format("%02x ", crcByte1received));
-                disconnect("crc error");
-                return null;
-            }
-            // Packet is verified here. extract data
-            byte[] extractedBuff = new byte[length];
-            System.arraycopy(mReadBuff, 0, extractedBuff, 0, length);
-            // remove extracted data from read buffer
-            byte[] unprocessedData = new byte[mReadBuff.length - length];
-            System.arraycopy(mReadBuff, length, unprocessedData, 0, unprocessedData.length);
-            mReadBuff = unprocessedData;
-            return extractedBuff;
-        } else {
-            log.error("Wrong beginning of packet len=" + mReadBuff.length + "    " + MessageBase.toHexString(mReadBuff));
-            disconnect("Wrong beginning of packet");
-            return null;
-        }
-    }
-
     @Override
     public synchronized void sendMessage(MessageBase message) {
         if (!mRfCommSocket.isConnected()) {
@@ -18,6 +18,10 @@ import java.io.IOException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.plugins.pump.insight.app_layer.AppLayerMessage;
@@ -79,6 +83,7 @@ import info.nightscout.androidaps.plugins.pump.insight.utils.InputStreamReader;
 import info.nightscout.androidaps.plugins.pump.insight.utils.Nonce;
 import info.nightscout.androidaps.plugins.pump.insight.utils.OutputStreamWriter;
 import info.nightscout.androidaps.plugins.pump.insight.utils.PairingDataStorage;
+import info.nightscout.androidaps.plugins.pump.insight.utils.crypto.CipherContext;
 import info.nightscout.androidaps.plugins.pump.insight.utils.crypto.Cryptograph;
 import info.nightscout.androidaps.plugins.pump.insight.utils.crypto.DerivedKeys;
 import info.nightscout.androidaps.plugins.pump.insight.utils.crypto.KeyPair;
@@ -101,7 +106,9 @@ public class InsightConnectionService extends Service implements ConnectionEstab
     private PowerManager.WakeLock wakeLock;
     private DelayedActionThread disconnectTimer;
     private DelayedActionThread recoveryTimer;
-    private DelayedActionThread timeoutTimer;
+    // one thread for response timeouts instead of starting new one for every sent message
+    private ScheduledExecutorService timeoutExecutor = Executors.newSingleThreadScheduledExecutor();
+    private ScheduledFuture<?> timeoutTimer;
     private BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
     private BluetoothDevice bluetoothDevice;
     private BluetoothSocket bluetoothSocket;
@@ -112,6 +119,8 @@ public class InsightConnectionService extends Service implements ConnectionEstab
     private ByteBuf buffer = new ByteBuf(BUFFER_SIZE);
     private String verificationString;
     private KeyPair keyPair;
+    private CipherContext incomingCipher;
+    private CipherContext outgoingCipher;
     private byte[] randomBytes;
     private MessageQueue messageQueue = new MessageQueue();
     private List<info.nightscout.androidaps.plugins.pump.insight.app_layer.Service> activatedServices = new ArrayList<>();
@@ -120,6 +129,20 @@ public class InsightConnectionService extends Service implements ConnectionEstab
     private long recoveryDuration = 0;
     private int timeoutDuringHandshakeCounter;
 
+    private CipherContext getIncomingCipher() {
+        byte[] key = pairingDataStorage.getIncomingKey();
+        if (key == null) return null;
+        if (incomingCipher == null || !incomingCipher.hasKey(key)) incomingCipher = new CipherContext(key);
+        return incomingCipher;
+    }
+
+    private CipherContext getOutgoingCipher() {
+        byte[] key = pairingDataStorage.getOutgoingKey();
+        if (key == null) return null;
+        if (outgoingCipher == null || !outgoingCipher.hasKey(key)) outgoingCipher = new CipherContext(key);
+        return outgoingCipher;
+    }
+
     KeyPair getKeyPair() {
         if (keyPair == null) keyPair = Cryptograph.generateRSAKey();
         return keyPair;
@@ -331,7 +354,7 @@ public class InsightConnectionService extends Service implements ConnectionEstab
             connectionEstablisher = null;
         }
         if (timeoutTimer != null) {
-            timeoutTimer.interrupt();
+            timeoutTimer.cancel(false);
             timeoutTimer = null;
         }
         buffer.clear();
@@ -455,7 +478,7 @@ public class InsightConnectionService extends Service implements ConnectionEstab
         this.buffer.putBytes(buffer, bytesRead);
         try {
             while (SatlMessage.hasCompletePacket(this.buffer)) {
-                SatlMessage satlMessage = SatlMessage.deserialize(this.buffer, pairingDataStorage.getLastNonceReceived(), pairingDataStorage.getIncomingKey());
+                SatlMessage satlMessage = SatlMessage.deserialize(this.buffer, pairingDataStorage.getLastNonceReceived(), getIncomingCipher());
                 if (pairingDataStorage.getIncomingKey() != null
                         && pairingDataStorage.getLastNonceReceived() != null
                         && !pairingDataStorage.getLastNonceReceived().isSmallerThan(satlMessage.getNonce())) {
@@ -475,12 +498,12 @@ public class InsightConnectionService extends Service implements ConnectionEstab
             pairingDataStorage.setLastNonceSent(nonce);
             satlMessage.setNonce(nonce);
         }
-        ByteBuf serialized = satlMessage.serialize(satlMessage.getClass(), pairingDataStorage.getOutgoingKey());
-        if (timeoutTimer != null) timeoutTimer.interrupt();
-        timeoutTimer = DelayedActionThread.runDelayed("TimeoutTimer", RESPONSE_TIMEOUT, () -> {
+        ByteBuf serialized = satlMessage.serialize(satlMessage.getClass(), getOutgoingCipher());
+        if (timeoutTimer != null) timeoutTimer.cancel(false);
+        timeoutTimer = timeoutExecutor.schedule(() -> {
             timeoutTimer = null;
             handleException(new TimeoutException());
-        });
+        }, RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
         return serialized.getBytes();
     }
 
@@ -496,7 +519,7 @@ public class InsightConnectionService extends Service implements ConnectionEstab
 
     private void processSatlMessage(SatlMessage satlMessage) {
         if (timeoutTimer != null) {
-            timeoutTimer.interrupt();
+            timeoutTimer.cancel(false);
             timeoutTimer = null;
         }
         pairingDataStorage.setLastNonceReceived(satlMessage.getNonce());
@@ -797,6 +820,7 @@ public class InsightConnectionService extends Service implements ConnectionEstab
     @Override
     public void onDestroy() {
         disconnect();
+        timeoutExecutor.shutdownNow();
     }
 
     @Nullable
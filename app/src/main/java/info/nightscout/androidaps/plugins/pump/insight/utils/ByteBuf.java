@@ -4,9 +4,14 @@ import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
+/**
+ * Positions are relative to the first unread byte. Reading only moves the read index,
+ * unread data is moved to the beginning of the array only when a write wouldn't fit otherwise.
+ */
 public class ByteBuf {
 
     private byte[] bytes;
+    private int start = 0; // read index
     private int size = 0;
 
     public ByteBuf(int length) {
@@ -16,21 +21,28 @@ public class ByteBuf {
 
     public byte[] getBytes() {
         byte[] bytes = new byte[size];
-        System.arraycopy(this.bytes, 0, bytes, 0, size);
+        System.arraycopy(this.bytes, start, bytes, 0, size);
         return bytes;
     }
 
     public void shift(int offset) {
-        System.arraycopy(bytes, offset, bytes, 0, bytes.length - offset);
+        start += offset;
         size -= offset;
+        if (size == 0) start = 0;
+    }
+
+    private void ensureWritable(int length) {
+        if (start + size + length <= bytes.length || start == 0) return;
+        System.arraycopy(bytes, start, bytes, 0, size);
+        start = 0;
     }
 
     public byte getByte(int position) {
-        return bytes[position];
+        return bytes[start + position];
     }
 
     public byte getByte() {
-        return bytes[0];
+        return bytes[start];
     }
 
     public byte readByte() {
@@ -40,21 +52,23 @@ public class ByteBuf {
     }
 
     public void putByte(byte b) {
-        bytes[size] = b;
+        ensureWritable(1);
+        bytes[start + size] = b;
         size += 1;
     }
 
 
 
     public void putBytes(byte b, int count) {
-        for (int i = 0; i < count; i++) bytes[size++] = b;
+        ensureWritable(count);
+        for (int i = 0; i < count; i++) bytes[start + size++] = b;
     }
 
 
 
     public byte[] getBytes(int position, int length) {
         byte[] copy = new byte[length];
-        System.arraycopy(bytes, position, copy, 0, length);
+        System.arraycopy(bytes, start + position, copy, 0, length);
         return copy;
     }
 
@@ -73,7 +87,8 @@ public class ByteBuf {
     }
 
     public void putBytes(byte[] bytes, int length) {
-        System.arraycopy(bytes, 0, this.bytes, size, length);
+        ensureWritable(length);
+        System.arraycopy(bytes, 0, this.bytes, start + size, length);
         size += length;
     }
 
@@ -86,7 +101,7 @@ public class ByteBuf {
     public byte[] getBytesLE(int position, int length) {
         byte[] copy = new byte[length];
         for (int i = 0; i < length; i++)
-            copy[i] = bytes[length - 1 - i + position];
+            copy[i] = bytes[start + length - 1 - i + position];
         return copy;
     }
 
@@ -101,8 +116,9 @@ public class ByteBuf {
     }
 
     public void putBytesLE(byte[] bytes, int length) {
+        ensureWritable(length);
         for (int i = 0; i < length; i++)
-            this.bytes[size + length - 1 - i] = bytes[i];
+            this.bytes[start + size + length - 1 - i] = bytes[i];
         size += length;
     }
 
@@ -118,7 +134,7 @@ public class ByteBuf {
 
 
     public short getUInt8(int position) {
-        return (short) (bytes[position] & 0xFF);
+        return (short) (bytes[start + position] & 0xFF);
     }
 
     public short getUInt8() {
@@ -138,6 +154,7 @@ public class ByteBuf {
 
 
     public int getUInt16LE(int position) {
+        position += start;
         return (bytes[position++] & 0xFF |
                 (bytes[position] & 0xFF)  << 8);
     }
@@ -235,6 +252,7 @@ public class ByteBuf {
 
 
     public short getShort(int position) {
+        position += start;
         return (short) (bytes[position++]  << 8 |
                 bytes[position] & 0xFF);
     }
@@ -257,6 +275,7 @@ public class ByteBuf {
 
 
     public long getUInt32LE(int position) {
+        position += start;
         return ((long) bytes[position++] & 0xFF) |
                 ((long) bytes[position++] & 0xFF) << 8 |
                 ((long) bytes[position++] & 0xFF) << 16 |
@@ -0,0 +1,104 @@
+package info.nightscout.androidaps.plugins.pump.insight.utils.crypto;
+
+import org.spongycastle.crypto.engines.TwofishEngine;
+import org.spongycastle.crypto.params.KeyParameter;
+
+import java.util.Arrays;
+
+/**
+ * Twofish engine initialized once for one of the derived SATL keys.
+ * <p>
+ * Used for CTR encryption and CCM tag of every DataMessage in one direction,
+ * so the key schedule isn't computed again for each message and blocks are processed
+ * in place without building padded copies of header and payload.
+ */
+public class CipherContext {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int TAG_SIZE = 8;
+
+    private final byte[] key;
+    private final TwofishEngine engine = new TwofishEngine();
+    private final byte[] input = new byte[BLOCK_SIZE];
+    private final byte[] output = new byte[BLOCK_SIZE];
+    private final byte[] mac = new byte[BLOCK_SIZE];
+    private int macPosition;
+
+    public CipherContext(byte[] key) {
+        this.key = key.clone();
+        engine.init(true, new KeyParameter(key));
+    }
+
+    public boolean hasKey(byte[] key) {
+        return Arrays.equals(this.key, key);
+    }
+
+    // result in output
+    private void encryptCCMPrimitive(byte headerByte, byte[] nonce, short number) {
+        input[0] = headerByte;
+        System.arraycopy(nonce, 0, input, 1, nonce.length);
+        input[14] = (byte) (number >> 8);
+        input[15] = (byte) number;
+        engine.processBlock(input, 0, output, 0);
+    }
+
+    /**
+     * CTR mode is symmetric, used for both encryption and decryption
+     */
+    public synchronized void encryptDataCTR(byte[] data, int offset, int length, byte[] nonce, byte[] result, int resultOffset) {
+        for (int block = 0; block * BLOCK_SIZE < length; block++) {
+            encryptCCMPrimitive((byte) 0x01, nonce, (short) (block + 1));
+            int position = block * BLOCK_SIZE;
+            int count = Math.min(BLOCK_SIZE, length - position);
+            for (int i = 0; i < count; i++)
+                result[resultOffset + position + i] = (byte) (data[offset + position + i] ^ output[i]);
+        }
+    }
+
+    public byte[] encryptDataCTR(byte[] data, byte[] nonce) {
+        byte[] result = new byte[data.length];
+        encryptDataCTR(data, 0, data.length, nonce, result, 0);
+        return result;
+    }
+
+    private void macByte(byte b) {
+        mac[macPosition++] ^= b;
+        if (macPosition == BLOCK_SIZE) {
+            engine.processBlock(mac, 0, output, 0);
+            System.arraycopy(output, 0, mac, 0, BLOCK_SIZE);
+            macPosition = 0;
+        }
+    }
+
+    // zero padding of the last block doesn't change the xor
+    private void macPad() {
+        if (macPosition != 0) {
+            macPosition = BLOCK_SIZE - 1;
+            macByte((byte) 0);
+        }
+    }
+
+    /**
+     * CBC-MAC of header and payload, both zero padded to block size, header is prefixed with its length
+     */
+    public synchronized void produceCCMTag(byte[] nonce, byte[] payload, byte[] header, byte[] tag, int tagOffset) {
+        encryptCCMPrimitive((byte) 0x59, nonce, (short) payload.length);
+        System.arraycopy(output, 0, mac, 0, BLOCK_SIZE);
+        macPosition = 0;
+        macByte((byte) (header.length >> 8));
+        macByte((byte) header.length);
+        for (byte b : header) macByte(b);
+        macPad();
+        for (byte b : payload) macByte(b);
+        macPad();
+        encryptCCMPrimitive((byte) 0x01, nonce, (short) 0);
+        for (int i = 0; i < TAG_SIZE; i++)
+            tag[tagOffset + i] = (byte) (mac[i] ^ output[i]);
+    }
+
+    public byte[] produceCCMTag(byte[] nonce, byte[] payload, byte[] header) {
+        byte[] tag = new byte[TAG_SIZE];
+        produceCCMTag(nonce, payload, header, tag, 0);
+        return tag;
+    }
+}
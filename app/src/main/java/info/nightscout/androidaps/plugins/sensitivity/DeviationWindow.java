@@ -0,0 +1,71 @@
+package info.nightscout.androidaps.plugins.sensitivity;
+
+import java.util.Arrays;
+
+/**
+ * Deviations used for sensitivity detection, oldest first.
+ * Backed by growable primitive ring buffer so removing the oldest value doesn't shift the array
+ * and no boxing is needed. Sorted copy is made once and reused until the window changes.
+ */
+class DeviationWindow {
+    private double[] values;
+    private int head = 0;
+    private int size = 0;
+    private double[] sorted = null;
+
+    DeviationWindow(int initialCapacity) {
+        values = new double[Math.max(initialCapacity, 1)];
+    }
+
+    void add(double deviation) {
+        if (size == values.length) {
+            double[] grown = new double[values.length * 2];
+            copyTo(grown);
+            values = grown;
+            head = 0;
+        }
+        values[(head + size) % values.length] = deviation;
+        size++;
+        sorted = null;
+    }
+
+    void removeOldest() {
+        if (size == 0) return;
+        head = (head + 1) % values.length;
+        size--;
+        sorted = null;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+        sorted = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private double[] toArray() {
+        double[] array = new double[size];
+        copyTo(array);
+        return array;
+    }
+
+    /**
+     * @return values sorted ascending, must not be modified
+     */
+    double[] sorted() {
+        if (sorted == null) {
+            sorted = toArray();
+            Arrays.sort(sorted);
+        }
+        return sorted;
+    }
+
+    private void copyTo(double[] target) {
+        int firstPart = Math.min(size, values.length - head);
+        System.arraycopy(values, head, target, 0, firstPart);
+        System.arraycopy(values, 0, target, firstPart, size - firstPart);
+    }
+}
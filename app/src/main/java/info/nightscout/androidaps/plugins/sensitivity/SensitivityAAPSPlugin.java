@@ -5,7 +5,6 @@ import android.support.v4.util.LongSparseArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -85,8 +84,8 @@ public class SensitivityAAPSPlugin extends AbstractSensitivityPlugin {
         List<CareportalEvent> siteChanges = MainApp.getDbHelper().getCareportalEventsFromTime(fromTime, CareportalEvent.SITECHANGE, true);
         List<ProfileSwitch> profileSwitches = MainApp.getDbHelper().getProfileSwitchEventsFromTime(fromTime, true);
 
-        List<Double> deviationsArray = new ArrayList<>();
-        String pastSensitivity = "";
+        DeviationWindow deviationsArray = new DeviationWindow(100);
+        StringBuilder pastSensitivity = new StringBuilder();
         int index = 0;
         while (index < autosensDataTable.size()) {
             AutosensData autosensData = autosensDataTable.valueAt(index);
@@ -104,13 +103,13 @@ public class SensitivityAAPSPlugin extends AbstractSensitivityPlugin {
             // reset deviations after site change
             if (CareportalEvent.isEvent5minBack(siteChanges, autosensData.time)) {
                 deviationsArray.clear();
-                pastSensitivity += "(SITECHANGE)";
+                pastSensitivity.append("(SITECHANGE)");
             }
 
             // reset deviations after profile switch
             if (ProfileSwitch.isEvent5minBack(profileSwitches, autosensData.time, true)) {
                 deviationsArray.clear();
-                pastSensitivity += "(PROFILESWITCH)";
+                pastSensitivity.append("(PROFILESWITCH)");
             }
 
             double deviation = autosensData.deviation;
@@ -123,19 +122,18 @@ public class SensitivityAAPSPlugin extends AbstractSensitivityPlugin {
                 if (autosensData.time > toTime - hoursForDetection * 60 * 60 * 1000L)
                     deviationsArray.add(deviation);
             if (deviationsArray.size() > hoursForDetection * 60 / 5)
-                deviationsArray.remove(0);
+                deviationsArray.removeOldest();
 
 
-            pastSensitivity += autosensData.pastSensitivity;
+            pastSensitivity.append(autosensData.pastSensitivity);
             int secondsFromMidnight = Profile.secondsFromMidnight(autosensData.time);
             if (secondsFromMidnight % 3600 < 2.5 * 60 || secondsFromMidnight % 3600 > 57.5 * 60) {
-                pastSensitivity += "(" + Math.round(secondsFromMidnight / 3600d) + ")";
+                pastSensitivity.append("(").append(Math.round(secondsFromMidnight / 3600d)).append(")");
             }
             index++;
         }
 
-        Double[] deviations = new Double[deviationsArray.size()];
-        deviations = deviationsArray.toArray(deviations);
+        double[] deviations = deviationsArray.sorted();
 
         double sens = profile.getIsf();
 
@@ -145,8 +143,6 @@ public class SensitivityAAPSPlugin extends AbstractSensitivityPlugin {
         if (L.isEnabled(L.AUTOSENS))
             log.debug("Records: " + index + "   " + pastSensitivity);
 
-        Arrays.sort(deviations);
-
         double percentile = IobCobCalculatorPlugin.percentile(deviations, 0.50);
         double basalOff = percentile * (60 / 5) / Profile.toMgdl(sens, profile.getUnits());
         double ratio = 1 + (basalOff / profile.getMaxDailyBasal());
@@ -162,7 +158,7 @@ public class SensitivityAAPSPlugin extends AbstractSensitivityPlugin {
         if (L.isEnabled(L.AUTOSENS))
             log.debug(sensResult);
 
-        AutosensResult output = fillResult(ratio, current.cob, pastSensitivity, ratioLimit,
+        AutosensResult output = fillResult(ratio, current.cob, pastSensitivity.toString(), ratioLimit,
                 sensResult, deviationsArray.size());
 
         if (L.isEnabled(L.AUTOSENS)) {
@@ -5,8 +5,6 @@ import android.support.v4.util.LongSparseArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -79,8 +77,8 @@ public class SensitivityOref1Plugin extends AbstractSensitivityPlugin {
         List<CareportalEvent> siteChanges = MainApp.getDbHelper().getCareportalEventsFromTime(fromTime, CareportalEvent.SITECHANGE, true);
         List<ProfileSwitch> profileSwitches = MainApp.getDbHelper().getProfileSwitchEventsFromTime(fromTime, true);
 
-        List<Double> deviationsArray = new ArrayList<>();
-        String pastSensitivity = "";
+        DeviationWindow deviationsArray = new DeviationWindow(100);
+        StringBuilder pastSensitivity = new StringBuilder();
         int index = 0;
         while (index < autosensDataTable.size()) {
             AutosensData autosensData = autosensDataTable.valueAt(index);
@@ -98,13 +96,13 @@ public class SensitivityOref1Plugin extends AbstractSensitivityPlugin {
             // reset deviations after site change
             if (CareportalEvent.isEvent5minBack(siteChanges, autosensData.time)) {
                 deviationsArray.clear();
-                pastSensitivity += "(SITECHANGE)";
+                pastSensitivity.append("(SITECHANGE)");
             }
 
             // reset deviations after profile switch
             if (ProfileSwitch.isEvent5minBack(profileSwitches, autosensData.time, true)) {
                 deviationsArray.clear();
-                pastSensitivity += "(PROFILESWITCH)";
+                pastSensitivity.append("(PROFILESWITCH)");
             }
 
             double deviation = autosensData.deviation;
@@ -119,12 +117,12 @@ public class SensitivityOref1Plugin extends AbstractSensitivityPlugin {
             for (int i = 0; i < autosensData.extraDeviation.size(); i++)
                 deviationsArray.add(autosensData.extraDeviation.get(i));
             if (deviationsArray.size() > 96)
-                deviationsArray.remove(0);
+                deviationsArray.removeOldest();
 
-            pastSensitivity += autosensData.pastSensitivity;
+            pastSensitivity.append(autosensData.pastSensitivity);
             int secondsFromMidnight = Profile.secondsFromMidnight(autosensData.time);
             if (secondsFromMidnight % 3600 < 2.5 * 60 || secondsFromMidnight % 3600 > 57.5 * 60) {
-                pastSensitivity += "(" + Math.round(secondsFromMidnight / 3600d) + ")";
+                pastSensitivity.append("(").append(Math.round(secondsFromMidnight / 3600d)).append(")");
             }
             index++;
         }
@@ -143,8 +141,7 @@ public class SensitivityOref1Plugin extends AbstractSensitivityPlugin {
             }
         }
 
-        Double[] deviations = new Double[deviationsArray.size()];
-        deviations = deviationsArray.toArray(deviations);
+        double[] deviations = deviationsArray.sorted();
 
         double sens = profile.getIsf();
 
@@ -155,15 +152,12 @@ public class SensitivityOref1Plugin extends AbstractSensitivityPlugin {
         if (L.isEnabled(L.AUTOSENS))
             log.debug("Records: " + index + "   " + pastSensitivity);
 
-        Arrays.sort(deviations);
-
-        for (double i = 0.9; i > 0.1; i = i - 0.01) {
-            if (IobCobCalculatorPlugin.percentile(deviations, (i + 0.01)) >= 0 && IobCobCalculatorPlugin.percentile(deviations, i) < 0) {
-                if (L.isEnabled(L.AUTOSENS))
+        // percentile scan is used only for logging
+        if (L.isEnabled(L.AUTOSENS)) {
+            for (double i = 0.9; i > 0.1; i = i - 0.01) {
+                if (IobCobCalculatorPlugin.percentile(deviations, (i + 0.01)) >= 0 && IobCobCalculatorPlugin.percentile(deviations, i) < 0)
                     log.debug(Math.round(100 * i) + "% of non-meal deviations negative (>50% = sensitivity)");
-            }
-            if (IobCobCalculatorPlugin.percentile(deviations, (i + 0.01)) > 0 && IobCobCalculatorPlugin.percentile(deviations, i) <= 0) {
-                if (L.isEnabled(L.AUTOSENS))
+                if (IobCobCalculatorPlugin.percentile(deviations, (i + 0.01)) > 0 && IobCobCalculatorPlugin.percentile(deviations, i) <= 0)
                     log.debug(Math.round(100 * i) + "% of non-meal deviations negative (>50% = resistance)");
             }
         }
@@ -187,7 +181,7 @@ public class SensitivityOref1Plugin extends AbstractSensitivityPlugin {
 
         ratio = 1 + (basalOff / profile.getMaxDailyBasal());
 
-        AutosensResult output = fillResult(ratio, current.cob, pastSensitivity, ratioLimit,
+        AutosensResult output = fillResult(ratio, current.cob, pastSensitivity.toString(), ratioLimit,
                 sensResult, deviationsArray.size());
 
         if (L.isEnabled(L.AUTOSENS))
@@ -83,7 +83,7 @@ public class SensitivityWeightedAveragePlugin extends AbstractSensitivityPlugin
         List<CareportalEvent> siteChanges = MainApp.getDbHelper().getCareportalEventsFromTime(fromTime, CareportalEvent.SITECHANGE, true);
         List<ProfileSwitch> profileSwitches = MainApp.getDbHelper().getProfileSwitchEventsFromTime(fromTime, true);
 
-        String pastSensitivity = "";
+        StringBuilder pastSensitivity = new StringBuilder();
         int index = 0;
         LongSparseArray<Double> data = new LongSparseArray<>();
 
@@ -108,13 +108,13 @@ public class SensitivityWeightedAveragePlugin extends AbstractSensitivityPlugin
             // reset deviations after site change
             if (CareportalEvent.isEvent5minBack(siteChanges, autosensData.time)) {
                 data.clear();
-                pastSensitivity += "(SITECHANGE)";
+                pastSensitivity.append("(SITECHANGE)");
             }
 
             // reset deviations after profile switch
             if (ProfileSwitch.isEvent5minBack(profileSwitches, autosensData.time, true)) {
                 data.clear();
-                pastSensitivity += "(PROFILESWITCH)";
+                pastSensitivity.append("(PROFILESWITCH)");
             }
 
             double deviation = autosensData.deviation;
@@ -131,10 +131,10 @@ public class SensitivityWeightedAveragePlugin extends AbstractSensitivityPlugin
             //weightedsum += reverseWeight * (autosensData.validDeviation ? autosensData.deviation : 0d);
 
 
-            pastSensitivity += autosensData.pastSensitivity;
+            pastSensitivity.append(autosensData.pastSensitivity);
             int secondsFromMidnight = Profile.secondsFromMidnight(autosensData.time);
             if (secondsFromMidnight % 3600 < 2.5 * 60 || secondsFromMidnight % 3600 > 57.5 * 60) {
-                pastSensitivity += "(" + Math.round(secondsFromMidnight / 3600d) + ")";
+                pastSensitivity.append("(").append(Math.round(secondsFromMidnight / 3600d)).append(")");
             }
             index++;
         }
@@ -187,7 +187,7 @@ public class SensitivityWeightedAveragePlugin extends AbstractSensitivityPlugin
         if (L.isEnabled(L.AUTOSENS))
             log.debug(sensResult);
 
-        AutosensResult output = fillResult(ratio, current.cob, pastSensitivity, ratioLimit,
+        AutosensResult output = fillResult(ratio, current.cob, pastSensitivity.toString(), ratioLimit,
                 sensResult, data.size());
 
         if (L.isEnabled(L.AUTOSENS))
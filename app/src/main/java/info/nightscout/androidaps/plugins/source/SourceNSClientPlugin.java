@@ -4,10 +4,14 @@ import android.content.Intent;
 import android.os.Bundle;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.db.BgReading;
@@ -54,32 +58,34 @@ public class SourceNSClientPlugin extends PluginBase implements BgSourceInterfac
 
     @Override
     public void handleNewData(Intent intent) {
+        Bundle bundles = intent.getExtras();
+        if (bundles == null || !bundles.containsKey("sgvs"))
+            return;
+        try {
+            handleNewSgvs(JsonHelper.toObjectList(new JSONArray(bundles.getString("sgvs"))));
+        } catch (JSONException e) {
+            log.error("Unhandled exception", e);
+        }
+    }
+
+    /**
+     * Called directly by NSClientService with sgvs received in one data packet
+     */
+    public void handleNewSgvs(List<JSONObject> sgvs) {
 
         if (!isEnabled(PluginType.BGSOURCE) && !SP.getBoolean(R.string.key_ns_autobackfill, true))
             return;
 
-        Bundle bundles = intent.getExtras();
+        if (L.isEnabled(L.BGSOURCE))
+            log.debug("Received " + sgvs.size() + " sgvs from NS");
 
         try {
-            if (bundles.containsKey("sgv")) {
-                String sgvstring = bundles.getString("sgv");
-                if (L.isEnabled(L.BGSOURCE))
-                    log.debug("Received NS Data: " + sgvstring);
-
-                JSONObject sgvJson = new JSONObject(sgvstring);
-                storeSgv(sgvJson);
-            }
-
-            if (bundles.containsKey("sgvs")) {
-                String sgvstring = bundles.getString("sgvs");
-                if (L.isEnabled(L.BGSOURCE))
-                    log.debug("Received NS Data: " + sgvstring);
-                JSONArray jsonArray = new JSONArray(sgvstring);
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    JSONObject sgvJson = jsonArray.getJSONObject(i);
-                    storeSgv(sgvJson);
-                }
+            List<BgReading> bgReadings = new ArrayList<>(sgvs.size());
+            for (JSONObject sgvJson : sgvs) {
+                bgReadings.add(new BgReading(new NSSgv(sgvJson)));
+                detectSource(JsonHelper.safeGetString(sgvJson, "device", "none"), JsonHelper.safeGetLong(sgvJson, "mills"));
             }
+            MainApp.getDbHelper().createIfNotExists(bgReadings, "NS");
         } catch (Exception e) {
             log.error("Unhandled exception", e);
         }
@@ -89,13 +95,6 @@ public class SourceNSClientPlugin extends PluginBase implements BgSourceInterfac
         ObjectivesPlugin.getPlugin().saveProgress();
     }
 
-    private void storeSgv(JSONObject sgvJson) {
-        NSSgv nsSgv = new NSSgv(sgvJson);
-        BgReading bgReading = new BgReading(nsSgv);
-        MainApp.getDbHelper().createIfNotExists(bgReading, "NS");
-        SourceNSClientPlugin.getPlugin().detectSource(JsonHelper.safeGetString(sgvJson, "device", "none"), JsonHelper.safeGetLong(sgvJson, "mills"));
-    }
-
     public void detectSource(String source, long timeStamp) {
         if (timeStamp > lastBGTimeStamp) {
             if (source.contains("G5 Native") || source.contains("G6 Native") || source.contains("AndroidAPS-DexcomG5") || source.contains("AndroidAPS-DexcomG6"))
@@ -0,0 +1,44 @@
+package info.nightscout.androidaps.plugins.treatments;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Change of single row in treatments table, recorded by TreatmentService
+ * so in-memory copy can be updated without reloading from db.
+ * Rows are identified by date (primary key).
+ */
+public class TreatmentChange {
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    public final Type type;
+    public final long date;
+    @Nullable
+    public final Treatment treatment; // null for DELETE
+
+    private TreatmentChange(Type type, long date, @Nullable Treatment treatment) {
+        this.type = type;
+        this.date = date;
+        this.treatment = treatment;
+    }
+
+    public static TreatmentChange insert(Treatment treatment) {
+        return new TreatmentChange(Type.INSERT, treatment.date, treatment);
+    }
+
+    public static TreatmentChange update(Treatment treatment) {
+        return new TreatmentChange(Type.UPDATE, treatment.date, treatment);
+    }
+
+    public static TreatmentChange delete(long date) {
+        return new TreatmentChange(Type.DELETE, date, null);
+    }
+
+    @Override
+    public String toString() {
+        return "TreatmentChange{" + type + " " + date + "}";
+    }
+}
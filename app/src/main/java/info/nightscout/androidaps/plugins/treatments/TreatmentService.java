@@ -51,6 +51,10 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
     private static final ScheduledExecutorService treatmentEventWorker = Executors.newSingleThreadScheduledExecutor();
     private static ScheduledFuture<?> scheduledTreatmentEventPost = null;
 
+    // row changes not yet taken by TreatmentsPlugin
+    private final List<TreatmentChange> pendingChanges = new ArrayList<>();
+    private boolean pendingReload = false;
+
     public TreatmentService() {
         onCreate();
         dbInitialize();
@@ -153,9 +157,46 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
         } catch (SQLException e) {
             log.error("Unhandled exception", e);
         }
+        recordReload();
+        scheduleTreatmentChange(null);
+    }
+
+    /**
+     * Force reload of in-memory treatments, recorded changes may not be valid
+     */
+    public void reloadTreatments() {
+        recordReload();
         scheduleTreatmentChange(null);
     }
 
+    private void recordChange(TreatmentChange change) {
+        synchronized (pendingChanges) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private void recordReload() {
+        synchronized (pendingChanges) {
+            pendingChanges.clear();
+            pendingReload = true;
+        }
+    }
+
+    /**
+     * Returns row changes made since last call in order they happened.
+     *
+     * @return null if changes cannot be applied one by one and data must be reloaded
+     */
+    @Nullable
+    public List<TreatmentChange> takeChanges() {
+        synchronized (pendingChanges) {
+            List<TreatmentChange> changes = pendingReload ? null : new ArrayList<>(pendingChanges);
+            pendingChanges.clear();
+            pendingReload = false;
+            return changes;
+        }
+    }
+
 
     /**
      * A place to centrally register events to be posted, if any data changed.
@@ -274,8 +315,10 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
                         }
 
                         getDao().delete(existingTreatment); // need to delete/create because date may change too
+                        recordChange(TreatmentChange.delete(oldDate));
                         existingTreatment.copyBasics(treatment);
                         getDao().create(existingTreatment);
+                        recordChange(TreatmentChange.insert(existingTreatment));
                         DatabaseHelper.updateEarliestDataChange(oldDate);
                         DatabaseHelper.updateEarliestDataChange(existingTreatment.date);
                         scheduleTreatmentChange(treatment);
@@ -298,14 +341,17 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
                     }
 
                     getDao().delete(existingTreatment); // need to delete/create because date may change too
+                    recordChange(TreatmentChange.delete(oldDate));
                     existingTreatment.copyFrom(treatment);
                     getDao().create(existingTreatment);
+                    recordChange(TreatmentChange.insert(existingTreatment));
                     DatabaseHelper.updateEarliestDataChange(oldDate);
                     DatabaseHelper.updateEarliestDataChange(existingTreatment.date);
                     scheduleTreatmentChange(treatment);
                     return new UpdateReturn(equalRePumpHistory || sameSource, false);
                 }
                 getDao().create(treatment);
+                recordChange(TreatmentChange.insert(treatment));
                 if (L.isEnabled(L.DATATREATMENTS))
                     log.debug("New record from: " + Source.getString(treatment.source) + " " + treatment.toString());
                 DatabaseHelper.updateEarliestDataChange(treatment.date);
@@ -319,8 +365,10 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
                         boolean historyChange = old.isDataChanging(treatment);
                         long oldDate = old.date;
                         getDao().delete(old); // need to delete/create because date may change too
+                        recordChange(TreatmentChange.delete(oldDate));
                         old.copyFrom(treatment);
                         getDao().create(old);
+                        recordChange(TreatmentChange.insert(old));
                         if (L.isEnabled(L.DATATREATMENTS))
                             log.debug("Updating record by date from: " + Source.getString(treatment.source) + " " + old.toString());
                         if (historyChange) {
@@ -342,8 +390,10 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
                             boolean historyChange = old.isDataChanging(treatment);
                             long oldDate = old.date;
                             getDao().delete(old); // need to delete/create because date may change too
+                            recordChange(TreatmentChange.delete(oldDate));
                             old.copyFrom(treatment);
                             getDao().create(old);
+                            recordChange(TreatmentChange.insert(old));
                             if (L.isEnabled(L.DATATREATMENTS))
                                 log.debug("Updating record by _id from: " + Source.getString(treatment.source) + " " + old.toString());
                             if (historyChange) {
@@ -359,6 +409,7 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
                     }
                 }
                 getDao().create(treatment);
+                recordChange(TreatmentChange.insert(treatment));
                 if (L.isEnabled(L.DATATREATMENTS))
                     log.debug("New record from: " + Source.getString(treatment.source) + " " + treatment.toString());
                 DatabaseHelper.updateEarliestDataChange(treatment.date);
@@ -367,6 +418,7 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
             }
             if (treatment.source == Source.USER) {
                 getDao().create(treatment);
+                recordChange(TreatmentChange.insert(treatment));
                 if (L.isEnabled(L.DATATREATMENTS))
                     log.debug("New record from: " + Source.getString(treatment.source) + " " + treatment.toString());
                 DatabaseHelper.updateEarliestDataChange(treatment.date);
@@ -436,6 +488,7 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
     public void delete(Treatment treatment) {
         try {
             getDao().delete(treatment);
+            recordChange(TreatmentChange.delete(treatment.date));
             DatabaseHelper.updateEarliestDataChange(treatment.date);
             this.scheduleTreatmentChange(treatment);
         } catch (SQLException e) {
@@ -446,6 +499,7 @@ public class TreatmentService extends OrmLiteBaseService<DatabaseHelper> {
     public void update(Treatment treatment) {
         try {
             getDao().update(treatment);
+            recordChange(TreatmentChange.update(treatment));
             DatabaseHelper.updateEarliestDataChange(treatment.date);
         } catch (SQLException e) {
             log.error("Unhandled exception", e);
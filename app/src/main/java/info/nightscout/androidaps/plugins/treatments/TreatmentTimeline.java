@@ -0,0 +1,96 @@
+package info.nightscout.androidaps.plugins.treatments;
+
+import android.support.v4.util.LongSparseArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of treatments sorted by date, newest at index 0 (same order as loaded from db).
+ * Dates are kept in primitive array for binary search so range queries don't need to
+ * scan whole history. Changes are made by creating new timeline.
+ */
+public class TreatmentTimeline {
+    public static final TreatmentTimeline EMPTY = new TreatmentTimeline(new ArrayList<>());
+
+    private final Treatment[] treatments;
+    private final long[] dates; // descending
+
+    public TreatmentTimeline(List<Treatment> list) {
+        treatments = list.toArray(new Treatment[0]);
+        // stable sort keeps db order of treatments with the same date
+        Arrays.sort(treatments, (a, b) -> Long.compare(b.date, a.date));
+        dates = new long[treatments.length];
+        for (int i = 0; i < treatments.length; i++)
+            dates[i] = treatments[i].date;
+    }
+
+    public int size() {
+        return treatments.length;
+    }
+
+    public Treatment get(int index) {
+        return treatments[index];
+    }
+
+    /**
+     * @return index of the newest treatment with date <= time, size() if there is none
+     */
+    public int indexAtOrBefore(long time) {
+        int low = 0;
+        int high = dates.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[mid] > time)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return treatments with from <= date <= to, newest first
+     */
+    public List<Treatment> getInRange(long from, long to) {
+        if (from > to) return new ArrayList<>();
+        int start = indexAtOrBefore(to);
+        int end = indexAtOrBefore(from - 1);
+        List<Treatment> result = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++)
+            result.add(treatments[i]);
+        return result;
+    }
+
+    /**
+     * @param from treatments older than from are dropped
+     * @return new timeline with changes applied in order
+     */
+    public TreatmentTimeline apply(List<TreatmentChange> changes, long from) {
+        LongSparseArray<Treatment> byDate = new LongSparseArray<>(treatments.length + changes.size());
+        for (int i = treatments.length - 1; i >= 0; i--)
+            byDate.append(dates[i], treatments[i]);
+        for (TreatmentChange change : changes) {
+            if (change.type == TreatmentChange.Type.DELETE)
+                byDate.remove(change.date);
+            else
+                byDate.put(change.date, change.treatment);
+        }
+        List<Treatment> list = new ArrayList<>(byDate.size());
+        for (int i = byDate.size() - 1; i >= 0; i--)
+            if (byDate.keyAt(i) >= from)
+                list.add(byDate.valueAt(i));
+        return new TreatmentTimeline(list);
+    }
+
+    /**
+     * @return all treatments, newest first
+     */
+    public List<Treatment> getList() {
+        List<Treatment> result = new ArrayList<>(treatments.length);
+        Collections.addAll(result, treatments);
+        return result;
+    }
+}
@@ -18,6 +18,7 @@ import info.nightscout.androidaps.Constants;
 import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.data.DetailedBolusInfo;
+import info.nightscout.androidaps.data.IntervalIndex;
 import info.nightscout.androidaps.data.Intervals;
 import info.nightscout.androidaps.data.Iob;
 import info.nightscout.androidaps.data.IobTotal;
@@ -75,7 +76,8 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
     private IobTotal lastTreatmentCalculation;
     private IobTotal lastTempBasalsCalculation;
 
-    private final ArrayList<Treatment> treatments = new ArrayList<>();
+    // replaced as a whole on change, readers don't need lock
+    private volatile TreatmentTimeline treatments = TreatmentTimeline.EMPTY;
     private final Intervals<TemporaryBasal> tempBasals = new NonOverlappingIntervals<>();
     private final Intervals<ExtendedBolus> extendedBoluses = new NonOverlappingIntervals<>();
     private final Intervals<TempTarget> tempTargets = new OverlappingIntervals<>();
@@ -113,17 +115,33 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
         return this.service;
     }
 
-    private void initializeTreatmentData() {
-        if (L.isEnabled(L.DATATREATMENTS))
-            log.debug("initializeTreatmentData");
+    private long treatmentDataFromTime() {
         double dia = Constants.defaultDIA;
         if (ConfigBuilderPlugin.getPlugin() != null && ProfileFunctions.getInstance().getProfile() != null)
             dia = ProfileFunctions.getInstance().getProfile().getDia();
-        long fromMills = (long) (System.currentTimeMillis() - 60 * 60 * 1000L * (24 + dia));
-        synchronized (treatments) {
-            treatments.clear();
-            treatments.addAll(getService().getTreatmentDataFromTime(fromMills, false));
+        return (long) (System.currentTimeMillis() - 60 * 60 * 1000L * (24 + dia));
+    }
+
+    private synchronized void initializeTreatmentData() {
+        if (L.isEnabled(L.DATATREATMENTS))
+            log.debug("initializeTreatmentData");
+        // changes made from now on are applied again on top of loaded data, which is harmless
+        getService().takeChanges();
+        treatments = new TreatmentTimeline(getService().getTreatmentDataFromTime(treatmentDataFromTime(), false));
+    }
+
+    // apply changed rows only instead of querying whole period again
+    private synchronized void updateTreatmentData() {
+        List<TreatmentChange> changes = getService().takeChanges();
+        if (changes == null) {
+            initializeTreatmentData();
+            return;
         }
+        if (L.isEnabled(L.DATATREATMENTS))
+            log.debug("updateTreatmentData: " + changes.size() + " changes");
+        if (changes.isEmpty())
+            return;
+        treatments = treatments.apply(changes, treatmentDataFromTime());
     }
 
     private void initializeTempBasalData() {
@@ -134,10 +152,7 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
             dia = ProfileFunctions.getInstance().getProfile().getDia();
         long fromMills = (long) (System.currentTimeMillis() - 60 * 60 * 1000L * (24 + dia));
 
-        synchronized (tempBasals) {
-            tempBasals.reset().add(MainApp.getDbHelper().getTemporaryBasalsDataFromTime(fromMills, false));
-        }
-
+        tempBasals.replace(MainApp.getDbHelper().getTemporaryBasalsDataFromTime(fromMills, false));
     }
 
     private void initializeExtendedBolusData() {
@@ -148,27 +163,20 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
             dia = ProfileFunctions.getInstance().getProfile().getDia();
         long fromMills = (long) (System.currentTimeMillis() - 60 * 60 * 1000L * (24 + dia));
 
-        synchronized (extendedBoluses) {
-            extendedBoluses.reset().add(MainApp.getDbHelper().getExtendedBolusDataFromTime(fromMills, false));
-        }
-
+        extendedBoluses.replace(MainApp.getDbHelper().getExtendedBolusDataFromTime(fromMills, false));
     }
 
     private void initializeTempTargetData() {
         if (L.isEnabled(L.DATATREATMENTS))
             log.debug("initializeTempTargetData");
-        synchronized (tempTargets) {
-            long fromMills = System.currentTimeMillis() - 60 * 60 * 1000L * 24;
-            tempTargets.reset().add(MainApp.getDbHelper().getTemptargetsDataFromTime(fromMills, false));
-        }
+        long fromMills = System.currentTimeMillis() - 60 * 60 * 1000L * 24;
+        tempTargets.replace(MainApp.getDbHelper().getTemptargetsDataFromTime(fromMills, false));
     }
 
     private void initializeProfileSwitchData() {
         if (L.isEnabled(L.DATATREATMENTS))
             log.debug("initializeProfileSwitchData");
-        synchronized (profiles) {
-            profiles.reset().add(MainApp.getDbHelper().getProfileSwitchData(false));
-        }
+        profiles.replace(MainApp.getDbHelper().getProfileSwitchData(false));
     }
 
     @Override
@@ -193,37 +201,47 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
             return total;
 
         double dia = profile.getDia();
-
-        synchronized (treatments) {
-            for (Integer pos = 0; pos < treatments.size(); pos++) {
-                Treatment t = treatments.get(pos);
-                if (!t.isValid) continue;
-                if (t.date > time) continue;
-                Iob tIOB = t.iobCalc(time, dia);
-                total.iob += tIOB.iobContrib;
-                total.activity += tIOB.activityContrib;
-                if (t.insulin > 0 && t.date > total.lastBolusTime)
-                    total.lastBolusTime = t.date;
-                if (!t.isSMB) {
-                    // instead of dividing the DIA that only worked on the bilinear curves,
-                    // multiply the time the treatment is seen active.
-                    long timeSinceTreatment = time - t.date;
-                    long snoozeTime = t.date + (long) (timeSinceTreatment * SP.getDouble(R.string.key_openapsama_bolussnooze_dia_divisor, 2.0));
-                    Iob bIOB = t.iobCalc(snoozeTime, dia);
-                    total.bolussnooze += bIOB.iobContrib;
-                }
+        double divisor = SP.getDouble(R.string.key_openapsama_bolussnooze_dia_divisor, 2.0);
+        // older treatments have zero IOB and zero bolus snooze
+        double activeHours = Math.max(dia, insulinInterface.getDia()) * Math.max(1d, 1d / divisor);
+        long activeFrom = time - (long) (activeHours * T.hours(1).msecs());
+
+        TreatmentTimeline timeline = treatments;
+        int start = timeline.indexAtOrBefore(time);
+        int end = timeline.indexAtOrBefore(activeFrom);
+        for (int pos = start; pos < end; pos++) {
+            Treatment t = timeline.get(pos);
+            if (!t.isValid) continue;
+            Iob tIOB = t.iobCalc(time, dia);
+            total.iob += tIOB.iobContrib;
+            total.activity += tIOB.activityContrib;
+            if (t.insulin > 0 && t.date > total.lastBolusTime)
+                total.lastBolusTime = t.date;
+            if (!t.isSMB) {
+                // instead of dividing the DIA that only worked on the bilinear curves,
+                // multiply the time the treatment is seen active.
+                long timeSinceTreatment = time - t.date;
+                long snoozeTime = t.date + (long) (timeSinceTreatment * divisor);
+                Iob bIOB = t.iobCalc(snoozeTime, dia);
+                total.bolussnooze += bIOB.iobContrib;
             }
         }
+        // last bolus may be outside of active window
+        for (int pos = end; pos < timeline.size() && total.lastBolusTime == 0; pos++) {
+            Treatment t = timeline.get(pos);
+            if (t.isValid && t.insulin > 0)
+                total.lastBolusTime = t.date;
+        }
 
-        if (!pumpInterface.isFakingTempsByExtendedBoluses())
-            synchronized (extendedBoluses) {
-                for (Integer pos = 0; pos < extendedBoluses.size(); pos++) {
-                    ExtendedBolus e = extendedBoluses.get(pos);
-                    if (e.date > time) continue;
-                    IobTotal calc = e.iobCalc(time);
-                    total.plus(calc);
-                }
+        if (!pumpInterface.isFakingTempsByExtendedBoluses()) {
+            IntervalIndex<ExtendedBolus> extendedBolusIndex = extendedBoluses.getIndex();
+            for (int pos = 0; pos < extendedBolusIndex.size(); pos++) {
+                ExtendedBolus e = extendedBolusIndex.get(pos);
+                if (e.date > time) continue;
+                IobTotal calc = e.iobCalc(time);
+                total.plus(calc);
             }
+        }
         return total;
     }
 
@@ -250,24 +268,22 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
         }
         long absorptionTime_ago = now - (Double.valueOf(maxAbsorptionHours * T.hours(1).msecs())).longValue();
 
-        synchronized (treatments) {
-            for (Treatment treatment : treatments) {
-                if (!treatment.isValid)
-                    continue;
-                long t = treatment.date;
+        for (Treatment treatment : treatments.getInRange(Math.min(dia_ago, absorptionTime_ago) + 1, now)) {
+            if (!treatment.isValid)
+                continue;
+            long t = treatment.date;
 
-                if (t > dia_ago && t <= now) {
-                    if (treatment.insulin > 0 && treatment.mealBolus) {
-                        result.boluses += treatment.insulin;
-                    }
+            if (t > dia_ago && t <= now) {
+                if (treatment.insulin > 0 && treatment.mealBolus) {
+                    result.boluses += treatment.insulin;
                 }
+            }
 
-                if (t > absorptionTime_ago && t <= now) {
-                    if (treatment.carbs >= 1) {
-                        result.carbs += treatment.carbs;
-                        if (t > result.lastCarbTime)
-                            result.lastCarbTime = t;
-                    }
+            if (t > absorptionTime_ago && t <= now) {
+                if (treatment.carbs >= 1) {
+                    result.carbs += treatment.carbs;
+                    if (t > result.lastCarbTime)
+                        result.lastCarbTime = t;
                 }
             }
         }
@@ -285,36 +301,35 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
 
     @Override
     public List<Treatment> getTreatmentsFromHistory() {
-        synchronized (treatments) {
-            return new ArrayList<>(treatments);
-        }
+        return treatments.getList();
+    }
+
+    public TreatmentTimeline getTreatmentTimeline() {
+        return treatments;
     }
 
     @Override
     public List<Treatment> getTreatments5MinBackFromHistory(long time) {
         List<Treatment> in5minback = new ArrayList<>();
-        synchronized (treatments) {
-            for (Integer pos = 0; pos < treatments.size(); pos++) {
-                Treatment t = treatments.get(pos);
-                if (!t.isValid)
-                    continue;
-                if (t.date <= time && t.date > time - 5 * 60 * 1000 && t.carbs > 0)
-                    in5minback.add(t);
-            }
-            return in5minback;
+        for (Treatment t : treatments.getInRange(time - 5 * 60 * 1000 + 1, time)) {
+            if (!t.isValid)
+                continue;
+            if (t.carbs > 0)
+                in5minback.add(t);
         }
+        return in5minback;
     }
 
     @Override
     public long getLastBolusTime() {
         long now = System.currentTimeMillis();
         long last = 0;
-        synchronized (treatments) {
-            for (Treatment t : treatments) {
-                if (!t.isValid)
-                    continue;
-                if (t.date > last && t.insulin > 0 && t.isValid && t.date <= now)
-                    last = t.date;
+        TreatmentTimeline timeline = treatments;
+        for (int pos = timeline.indexAtOrBefore(now); pos < timeline.size(); pos++) {
+            Treatment t = timeline.get(pos);
+            if (t.isValid && t.insulin > 0) {
+                last = t.date;
+                break;
             }
         }
         if (L.isEnabled(L.DATATREATMENTS))
@@ -329,9 +344,7 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
 
     @Override
     public TemporaryBasal getRealTempBasalFromHistory(long time) {
-        synchronized (tempBasals) {
-            return tempBasals.getValueByInterval(time);
-        }
+        return tempBasals.getValueByInterval(time);
     }
 
     @Override
@@ -348,7 +361,7 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
     public void onStatusEvent(final EventReloadTreatmentData ev) {
         if (L.isEnabled(L.DATATREATMENTS))
             log.debug("EventReloadTreatmentData");
-        initializeTreatmentData();
+        updateTreatmentData();
         initializeExtendedBolusData();
         updateTotalIOBTreatments();
         MainApp.bus().post(ev.next);
@@ -380,40 +393,38 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
         if (insulinInterface == null)
             return total;
 
-        synchronized (tempBasals) {
-            for (Integer pos = 0; pos < tempBasals.size(); pos++) {
-                TemporaryBasal t = tempBasals.get(pos);
-                if (t.date > time) continue;
-                IobTotal calc;
-                if (truncate && t.end() > truncateTime) {
-                    TemporaryBasal dummyTemp = new TemporaryBasal();
-                    dummyTemp.copyFrom(t);
-                    dummyTemp.cutEndTo(truncateTime);
-                    calc = dummyTemp.iobCalc(time, profile);
-                } else {
-                    calc = t.iobCalc(time, profile);
-                }
-                //log.debug("BasalIOB " + new Date(time) + " >>> " + calc.basaliob);
-                total.plus(calc);
+        IntervalIndex<TemporaryBasal> tempBasalIndex = tempBasals.getIndex();
+        for (int pos = 0; pos < tempBasalIndex.size(); pos++) {
+            TemporaryBasal t = tempBasalIndex.get(pos);
+            if (t.date > time) continue;
+            IobTotal calc;
+            if (truncate && t.end() > truncateTime) {
+                TemporaryBasal dummyTemp = new TemporaryBasal();
+                dummyTemp.copyFrom(t);
+                dummyTemp.cutEndTo(truncateTime);
+                calc = dummyTemp.iobCalc(time, profile);
+            } else {
+                calc = t.iobCalc(time, profile);
             }
+            //log.debug("BasalIOB " + new Date(time) + " >>> " + calc.basaliob);
+            total.plus(calc);
         }
         if (ConfigBuilderPlugin.getPlugin().getActivePump().isFakingTempsByExtendedBoluses()) {
             IobTotal totalExt = new IobTotal(time);
-            synchronized (extendedBoluses) {
-                for (Integer pos = 0; pos < extendedBoluses.size(); pos++) {
-                    ExtendedBolus e = extendedBoluses.get(pos);
-                    if (e.date > time) continue;
-                    IobTotal calc;
-                    if (truncate && e.end() > truncateTime) {
-                        ExtendedBolus dummyExt = new ExtendedBolus();
-                        dummyExt.copyFrom(e);
-                        dummyExt.cutEndTo(truncateTime);
-                        calc = dummyExt.iobCalc(time);
-                    } else {
-                        calc = e.iobCalc(time);
-                    }
-                    totalExt.plus(calc);
+            IntervalIndex<ExtendedBolus> extendedBolusIndex = extendedBoluses.getIndex();
+            for (int pos = 0; pos < extendedBolusIndex.size(); pos++) {
+                ExtendedBolus e = extendedBolusIndex.get(pos);
+                if (e.date > time) continue;
+                IobTotal calc;
+                if (truncate && e.end() > truncateTime) {
+                    ExtendedBolus dummyExt = new ExtendedBolus();
+                    dummyExt.copyFrom(e);
+                    dummyExt.cutEndTo(truncateTime);
+                    calc = dummyExt.iobCalc(time);
+                } else {
+                    calc = e.iobCalc(time);
                 }
+                totalExt.plus(calc);
             }
             // Convert to basal iob
             totalExt.basaliob = totalExt.iob;
@@ -446,9 +457,7 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
 
     @Override
     public ExtendedBolus getExtendedBolusFromHistory(long time) {
-        synchronized (extendedBoluses) {
-            return extendedBoluses.getValueByInterval(time);
-        }
+        return extendedBoluses.getValueByInterval(time);
     }
 
     @Override
@@ -471,16 +480,12 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
 
     @Override
     public Intervals<ExtendedBolus> getExtendedBolusesFromHistory() {
-        synchronized (extendedBoluses) {
-            return new NonOverlappingIntervals<>(extendedBoluses);
-        }
+        return new NonOverlappingIntervals<>(extendedBoluses);
     }
 
     @Override
     public Intervals<TemporaryBasal> getTemporaryBasalsFromHistory() {
-        synchronized (tempBasals) {
-            return new NonOverlappingIntervals<>(tempBasals);
-        }
+        return new NonOverlappingIntervals<>(tempBasals);
     }
 
     @Override
@@ -553,18 +558,15 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
     @Override
     public long oldestDataAvailable() {
         long oldestTime = System.currentTimeMillis();
-        synchronized (tempBasals) {
-            if (tempBasals.size() > 0)
-                oldestTime = Math.min(oldestTime, tempBasals.get(0).date);
-        }
-        synchronized (extendedBoluses) {
-            if (extendedBoluses.size() > 0)
-                oldestTime = Math.min(oldestTime, extendedBoluses.get(0).date);
-        }
-        synchronized (treatments) {
-            if (treatments.size() > 0)
-                oldestTime = Math.min(oldestTime, treatments.get(treatments.size() - 1).date);
-        }
+        IntervalIndex<TemporaryBasal> tempBasalIndex = tempBasals.getIndex();
+        if (tempBasalIndex.size() > 0)
+            oldestTime = Math.min(oldestTime, tempBasalIndex.get(0).date);
+        IntervalIndex<ExtendedBolus> extendedBolusIndex = extendedBoluses.getIndex();
+        if (extendedBolusIndex.size() > 0)
+            oldestTime = Math.min(oldestTime, extendedBolusIndex.get(0).date);
+        TreatmentTimeline timeline = treatments;
+        if (timeline.size() > 0)
+            oldestTime = Math.min(oldestTime, timeline.get(timeline.size() - 1).date);
         oldestTime -= 15 * 60 * 1000L; // allow 15 min before
         return oldestTime;
     }
@@ -579,24 +581,18 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
     @Nullable
     @Override
     public TempTarget getTempTargetFromHistory() {
-        synchronized (tempTargets) {
-            return tempTargets.getValueByInterval(System.currentTimeMillis());
-        }
+        return tempTargets.getValueByInterval(System.currentTimeMillis());
     }
 
     @Nullable
     @Override
     public TempTarget getTempTargetFromHistory(long time) {
-        synchronized (tempTargets) {
-            return tempTargets.getValueByInterval(time);
-        }
+        return tempTargets.getValueByInterval(time);
     }
 
     @Override
     public Intervals<TempTarget> getTempTargetsFromHistory() {
-        synchronized (tempTargets) {
-            return new OverlappingIntervals<>(tempTargets);
-        }
+        return new OverlappingIntervals<>(tempTargets);
     }
 
     @Override
@@ -615,16 +611,12 @@ public class TreatmentsPlugin extends PluginBase implements TreatmentsInterface
 
     @Override
     public ProfileSwitch getProfileSwitchFromHistory(long time) {
-        synchronized (profiles) {
-            return (ProfileSwitch) profiles.getValueToTime(time);
-        }
+        return (ProfileSwitch) profiles.getValueToTime(time);
     }
 
     @Override
     public ProfileIntervals<ProfileSwitch> getProfileSwitchesFromHistory() {
-        synchronized (profiles) {
-            return new ProfileIntervals<>(profiles);
-        }
+        return new ProfileIntervals<>(profiles);
     }
 
     @Override
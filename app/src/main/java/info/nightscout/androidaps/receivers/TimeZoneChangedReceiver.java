@@ -0,0 +1,23 @@
+package info.nightscout.androidaps.receivers;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import info.nightscout.androidaps.logging.L;
+import info.nightscout.androidaps.utils.MidnightTime;
+
+public class TimeZoneChangedReceiver extends BroadcastReceiver {
+
+    private static Logger log = LoggerFactory.getLogger(L.CORE);
+
+    @Override
+    public void onReceive(final Context context, final Intent intent) {
+        if (L.isEnabled(L.CORE))
+            log.debug("Time zone changed: " + intent.getStringExtra("time-zone"));
+        MidnightTime.timeZoneChanged();
+    }
+}
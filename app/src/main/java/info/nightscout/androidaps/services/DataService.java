@@ -5,12 +5,12 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.provider.Telephony;
 
-import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.db.CareportalEvent;
@@ -30,7 +30,6 @@ import info.nightscout.androidaps.plugins.source.SourceDexcomG6Plugin;
 import info.nightscout.androidaps.plugins.source.SourceEversensePlugin;
 import info.nightscout.androidaps.plugins.source.SourceGlimpPlugin;
 import info.nightscout.androidaps.plugins.source.SourceMM640gPlugin;
-import info.nightscout.androidaps.plugins.source.SourceNSClientPlugin;
 import info.nightscout.androidaps.plugins.source.SourcePoctechPlugin;
 import info.nightscout.androidaps.plugins.source.SourceTomatoPlugin;
 import info.nightscout.androidaps.plugins.source.SourceXdripPlugin;
@@ -41,7 +40,7 @@ import info.nightscout.androidaps.utils.SP;
 
 
 public class DataService extends IntentService {
-    private Logger log = LoggerFactory.getLogger(L.DATASERVICE);
+    private static Logger log = LoggerFactory.getLogger(L.DATASERVICE);
 
     public DataService() {
         super("DataService");
@@ -55,12 +54,7 @@ public class DataService extends IntentService {
             log.debug("onHandleIntent " + BundleLogger.log(intent.getExtras()));
         }
 
-        boolean acceptNSData = !SP.getBoolean(R.string.key_ns_upload_only, false);
         Bundle bundles = intent.getExtras();
-        if (bundles != null && bundles.containsKey("islocal")) {
-            acceptNSData = acceptNSData || bundles.getBoolean("islocal");
-        }
-
 
         final String action = intent.getAction();
         if (Intents.ACTION_NEW_BG_ESTIMATE.equals(action)) {
@@ -81,8 +75,6 @@ public class DataService extends IntentService {
             SourceTomatoPlugin.getPlugin().handleNewData(intent);
         } else if (Intents.EVERSENSE_BG.equals(action)) {
             SourceEversensePlugin.getPlugin().handleNewData(intent);
-        } else if (Intents.ACTION_NEW_SGV.equals(action)) {
-            SourceNSClientPlugin.getPlugin().handleNewData(intent);
         } else if (Intents.ACTION_NEW_PROFILE.equals(action)) {
             // always handle Profile if NSProfile is enabled without looking at nsUploadOnly
             NSProfilePlugin.getPlugin().handleNewData(intent);
@@ -99,14 +91,6 @@ public class DataService extends IntentService {
         } else if (Intents.ACTION_REMOVED_FOOD.equals(action)) {
             EventNsFood evt = new EventNsFood(EventNsFood.REMOVE, bundles);
             MainApp.bus().post(evt);
-        } else if (acceptNSData &&
-                (Intents.ACTION_NEW_TREATMENT.equals(action) ||
-                        Intents.ACTION_CHANGED_TREATMENT.equals(action) ||
-                        Intents.ACTION_REMOVED_TREATMENT.equals(action) ||
-                        Intents.ACTION_NEW_CAL.equals(action) ||
-                        Intents.ACTION_NEW_MBG.equals(action))
-                ) {
-            handleNewDataFromNSClient(intent);
         } else if (Telephony.Sms.Intents.SMS_RECEIVED_ACTION.equals(action)) {
             SmsCommunicatorPlugin.getPlugin().handleNewData(intent);
         }
@@ -131,76 +115,60 @@ public class DataService extends IntentService {
         MainApp.bus().register(this);
     }
 
-    private void handleNewDataFromNSClient(Intent intent) {
-        Bundle bundles = intent.getExtras();
-        if (bundles == null) return;
+    /**
+     * Treatments from NSClientService are handled directly on its thread,
+     * without passing them through Intent as string
+     *
+     * @param mode    EventNsTreatment.ADD or EventNsTreatment.UPDATE
+     * @param isLocal record created by AAPS and not uploaded yet, accepted even in upload only mode
+     */
+    public static void handleTreatmentsFromNS(List<JSONObject> treatments, int mode, boolean isLocal) {
+        if (!acceptNSData(isLocal)) return;
         if (L.isEnabled(L.DATASERVICE))
-            log.debug("Got intent: " + intent.getAction());
-
-
-        if (intent.getAction().equals(Intents.ACTION_NEW_TREATMENT) || intent.getAction().equals(Intents.ACTION_CHANGED_TREATMENT)) {
-            try {
-                if (bundles.containsKey("treatment")) {
-                    JSONObject json = new JSONObject(bundles.getString("treatment"));
-                    handleTreatmentFromNS(json, intent);
-                }
-                if (bundles.containsKey("treatments")) {
-                    String trstring = bundles.getString("treatments");
-                    JSONArray jsonArray = new JSONArray(trstring);
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        JSONObject json = jsonArray.getJSONObject(i);
-                        handleTreatmentFromNS(json, intent);
-                    }
-                }
-            } catch (JSONException e) {
-                log.error("Unhandled exception", e);
-            }
+            log.debug("Got " + treatments.size() + " treatments mode: " + mode);
+        try {
+            MainApp.getDbHelper().runInTransaction(() -> {
+                for (JSONObject json : treatments)
+                    handleTreatmentFromNS(json, mode);
+            });
+        } catch (Exception e) {
+            log.error("Unhandled exception", e);
         }
+    }
 
-        if (intent.getAction().equals(Intents.ACTION_REMOVED_TREATMENT)) {
-            try {
-                if (bundles.containsKey("treatment")) {
-                    String trstring = bundles.getString("treatment");
-                    JSONObject json = new JSONObject(trstring);
+    public static void handleRemovedTreatmentsFromNS(List<JSONObject> treatments) {
+        if (!acceptNSData(false)) return;
+        if (L.isEnabled(L.DATASERVICE))
+            log.debug("Got " + treatments.size() + " removed treatments");
+        try {
+            MainApp.getDbHelper().runInTransaction(() -> {
+                for (JSONObject json : treatments)
                     handleRemovedTreatmentFromNS(json);
-                }
-
-                if (bundles.containsKey("treatments")) {
-                    String trstring = bundles.getString("treatments");
-                    JSONArray jsonArray = new JSONArray(trstring);
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        JSONObject json = jsonArray.getJSONObject(i);
-                        handleRemovedTreatmentFromNS(json);
-                    }
-                }
-            } catch (JSONException e) {
-                log.error("Unhandled exception", e);
-            }
+            });
+        } catch (Exception e) {
+            log.error("Unhandled exception", e);
         }
+    }
 
-        if (intent.getAction().equals(Intents.ACTION_NEW_MBG)) {
-            try {
-                if (bundles.containsKey("mbg")) {
-                    String mbgstring = bundles.getString("mbg");
-                    JSONObject mbgJson = new JSONObject(mbgstring);
+    public static void handleMbgsFromNS(List<JSONObject> mbgs) {
+        if (!acceptNSData(false)) return;
+        if (L.isEnabled(L.DATASERVICE))
+            log.debug("Got " + mbgs.size() + " mbgs");
+        try {
+            MainApp.getDbHelper().runInTransaction(() -> {
+                for (JSONObject mbgJson : mbgs)
                     storeMbg(mbgJson);
-                }
-
-                if (bundles.containsKey("mbgs")) {
-                    String sgvstring = bundles.getString("mbgs");
-                    JSONArray jsonArray = new JSONArray(sgvstring);
-                    for (int i = 0; i < jsonArray.length(); i++) {
-                        JSONObject mbgJson = jsonArray.getJSONObject(i);
-                        storeMbg(mbgJson);
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Unhandled exception", e);
-            }
+            });
+        } catch (Exception e) {
+            log.error("Unhandled exception", e);
         }
     }
 
-    private void handleRemovedTreatmentFromNS(JSONObject json) {
+    private static boolean acceptNSData(boolean isLocal) {
+        return isLocal || !SP.getBoolean(R.string.key_ns_upload_only, false);
+    }
+
+    private static void handleRemovedTreatmentFromNS(JSONObject json) {
         // new DB model
         EventNsTreatment evtTreatment = new EventNsTreatment(EventNsTreatment.REMOVE, json);
         MainApp.bus().post(evtTreatment);
@@ -213,9 +181,8 @@ public class DataService extends IntentService {
         MainApp.getDbHelper().deleteProfileSwitchById(_id);
     }
 
-    private void handleTreatmentFromNS(JSONObject json, Intent intent) {
+    private static void handleTreatmentFromNS(JSONObject json, int mode) {
         // new DB model
-        int mode = Intents.ACTION_NEW_TREATMENT.equals(intent.getAction()) ? EventNsTreatment.ADD : EventNsTreatment.UPDATE;
         double insulin = JsonHelper.safeGetDouble(json, "insulin");
         double carbs = JsonHelper.safeGetDouble(json, "carbs");
         String eventType = JsonHelper.safeGetString(json, "eventType");
@@ -264,7 +231,7 @@ public class DataService extends IntentService {
         }
     }
 
-    private void storeMbg(JSONObject mbgJson) {
+    private static void storeMbg(JSONObject mbgJson) {
         NSMbg nsMbg = new NSMbg(mbgJson);
         CareportalEvent careportalEvent = new CareportalEvent(nsMbg);
         MainApp.getDbHelper().createOrUpdate(careportalEvent);
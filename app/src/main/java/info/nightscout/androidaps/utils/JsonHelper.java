@@ -2,11 +2,15 @@ package info.nightscout.androidaps.utils;
 
 import android.support.annotation.Nullable;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * JSonHelper is a Helper class which contains several methods to safely get data from the ggiven JSONObject.
  *
@@ -110,4 +114,17 @@ public class JsonHelper {
 
         return result;
     }
+
+    /**
+     * @return objects of the array, other values are skipped
+     */
+    public static List<JSONObject> toObjectList(JSONArray array) {
+        List<JSONObject> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject object = array.optJSONObject(i);
+            if (object != null)
+                list.add(object);
+        }
+        return list;
+    }
 }
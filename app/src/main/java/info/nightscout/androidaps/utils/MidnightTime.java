@@ -1,16 +1,39 @@
 package info.nightscout.androidaps.utils;
 
-import android.util.LongSparseArray;
-
 import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class MidnightTime {
-    static final LongSparseArray<Long> times = new LongSparseArray<>();
+    // small ring of recently used days, oldest is overwritten
+    private static final int CACHED_DAYS = 8;
+    private static final AtomicReferenceArray<Day> days = new AtomicReferenceArray<>(CACHED_DAYS);
+    private static final AtomicInteger nextSlot = new AtomicInteger();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    // TimeZone.getDefault() clones the zone on every call, keep own instance
+    // and replace it from TimeZoneChangedReceiver
+    private static volatile TimeZone zone = TimeZone.getDefault();
+
+    private static class Day {
+        final long start;
+        final long end; // start of next day, differs from start + 24h on DST change
+        final TimeZone timeZone;
 
-    private static long hits = 0;
-    private static long misses = 0;
+        Day(long start, long end, TimeZone timeZone) {
+            this.start = start;
+            this.end = end;
+            this.timeZone = timeZone;
+        }
 
-    private static final int THRESHOLD = 100000;
+        boolean contains(long time, TimeZone timeZone) {
+            return start <= time && time < end && this.timeZone == timeZone;
+        }
+    }
 
     public static long calc() {
         Calendar c = Calendar.getInstance();
@@ -22,34 +45,52 @@ public class MidnightTime {
     }
 
     public static long calc(long time) {
-        Long m;
-        synchronized (times) {
-            m = times.get(time);
-            if (m != null) {
-                ++hits;
-                return m;
+        TimeZone zone = MidnightTime.zone;
+        for (int i = 0; i < CACHED_DAYS; i++) {
+            Day day = days.get(i);
+            if (day != null && day.contains(time, zone)) {
+                hits.incrementAndGet();
+                return day.start;
             }
-            Calendar c = Calendar.getInstance();
-            c.setTimeInMillis(time);
-            c.set(Calendar.HOUR_OF_DAY, 0);
-            c.set(Calendar.MINUTE, 0);
-            c.set(Calendar.SECOND, 0);
-            c.set(Calendar.MILLISECOND, 0);
-            m = c.getTimeInMillis();
-            times.append(time, m);
-            ++misses;
-            if (times.size() > THRESHOLD) resetCache();
         }
-        return m;
+
+        Calendar c = Calendar.getInstance(zone);
+        c.setTimeInMillis(time);
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        long start = c.getTimeInMillis();
+        c.add(Calendar.DAY_OF_MONTH, 1);
+        long end = c.getTimeInMillis();
+        days.set(nextSlot.getAndIncrement() & (CACHED_DAYS - 1), new Day(start, end, zone));
+        misses.incrementAndGet();
+        return start;
+    }
+
+    /**
+     * Days calculated in previous zone are not used anymore
+     */
+    public static void timeZoneChanged() {
+        zone = TimeZone.getDefault();
+        resetCache();
     }
 
     static void resetCache() {
-        hits = 0;
-        misses = 0;
-        times.clear();
+        hits.set(0);
+        misses.set(0);
+        for (int i = 0; i < CACHED_DAYS; i++)
+            days.set(i, null);
+    }
+
+    static int cachedDays() {
+        int count = 0;
+        for (int i = 0; i < CACHED_DAYS; i++)
+            if (days.get(i) != null) count++;
+        return count;
     }
 
     public static String log() {
-        return "Hits: " + hits + " misses: " + misses + " stored: " + times.size();
+        return "Hits: " + hits.get() + " misses: " + misses.get() + " stored: " + cachedDays();
     }
 }
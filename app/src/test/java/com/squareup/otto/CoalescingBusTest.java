@@ -0,0 +1,150 @@
+package com.squareup.otto;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.nightscout.androidaps.events.CoalescedEvent;
+import info.nightscout.androidaps.events.Event;
+
+public class CoalescingBusTest {
+
+    static class EventProgress extends Event implements CoalescedEvent {
+        final int step;
+
+        EventProgress(int step) {
+            this.step = step;
+        }
+    }
+
+    static class EventOther extends Event implements CoalescedEvent {
+    }
+
+    static class EventData extends Event {
+    }
+
+    public static class Receiver {
+        final List<Object> received = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+
+        @Subscribe
+        public void onStatusEvent(EventProgress ev) {
+            received.add(ev);
+            threads.add(Thread.currentThread());
+        }
+
+        @Subscribe
+        public void onStatusEvent(EventOther ev) {
+            received.add(ev);
+        }
+
+        @Subscribe
+        public void onStatusEvent(EventData ev) {
+            received.add(ev);
+            threads.add(Thread.currentThread());
+        }
+    }
+
+    // executor run manually by test
+    private final List<Runnable> tasks = new ArrayList<>();
+    private CoalescingBus bus;
+
+    @Before
+    public void prepare() {
+        tasks.clear();
+        bus = new CoalescingBus(ThreadEnforcer.ANY, tasks::add);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty())
+            tasks.remove(0).run();
+    }
+
+    @Test
+    public void normalEventsAreDeliveredSynchronously() {
+        Receiver receiver = new Receiver();
+        bus.register(receiver);
+        bus.post(new EventData());
+        Assert.assertEquals(1, receiver.received.size());
+        Assert.assertEquals(Thread.currentThread(), receiver.threads.get(0));
+        Assert.assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void burstIsCoalescedToLatestEvent() {
+        Receiver receiver = new Receiver();
+        bus.register(receiver);
+        for (int i = 0; i < 10; i++)
+            bus.post(new EventProgress(i));
+        Assert.assertEquals(0, receiver.received.size());
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals(1, bus.queueDepth());
+
+        runTasks();
+        Assert.assertEquals(1, receiver.received.size());
+        Assert.assertEquals(9, ((EventProgress) receiver.received.get(0)).step);
+        Assert.assertEquals(0, bus.queueDepth());
+        Assert.assertEquals(1, bus.delivered(EventProgress.class));
+        Assert.assertEquals(9, bus.coalesced(EventProgress.class));
+
+        // queue is scheduled again after drained
+        bus.post(new EventProgress(10));
+        runTasks();
+        Assert.assertEquals(2, receiver.received.size());
+        Assert.assertEquals(10, ((EventProgress) receiver.received.get(1)).step);
+    }
+
+    @Test
+    public void differentEventClassesAreNotMerged() {
+        Receiver receiver = new Receiver();
+        bus.register(receiver);
+        bus.post(new EventProgress(1));
+        bus.post(new EventOther());
+        bus.post(new EventProgress(2));
+        Assert.assertEquals(2, bus.queueDepth());
+        runTasks();
+        Assert.assertEquals(2, receiver.received.size());
+        Assert.assertEquals(0, bus.coalesced(EventOther.class));
+        Assert.assertEquals(1, bus.coalesced(EventProgress.class));
+    }
+
+    @Test
+    public void everyReceiverGetsOwnQueue() {
+        Receiver first = new Receiver();
+        Receiver second = new Receiver();
+        bus.register(first);
+        bus.register(second);
+        bus.post(new EventProgress(1));
+        bus.post(new EventProgress(2));
+        Assert.assertEquals(2, tasks.size());
+        runTasks();
+        Assert.assertEquals(2, ((EventProgress) first.received.get(0)).step);
+        Assert.assertEquals(2, ((EventProgress) second.received.get(0)).step);
+    }
+
+    @Test
+    public void unregisteredReceiverIsNotCalled() {
+        Receiver receiver = new Receiver();
+        bus.register(receiver);
+        bus.post(new EventProgress(1));
+        bus.unregister(receiver);
+        runTasks();
+        Assert.assertEquals(0, receiver.received.size());
+        Assert.assertEquals(0, bus.queueDepth());
+    }
+
+    @Test
+    public void logContainsStatistics() {
+        Receiver receiver = new Receiver();
+        bus.register(receiver);
+        bus.post(new EventProgress(1));
+        bus.post(new EventProgress(2));
+        runTasks();
+        String log = bus.log();
+        Assert.assertTrue(log.contains("Queue depth: 0 max: 1"));
+        Assert.assertTrue(log.contains("EventProgress delivered: 1 coalesced: 1"));
+    }
+}
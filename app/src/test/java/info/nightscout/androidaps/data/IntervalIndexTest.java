@@ -0,0 +1,159 @@
+package info.nightscout.androidaps.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import info.nightscout.androidaps.interfaces.Interval;
+
+public class IntervalIndexTest {
+
+    @Test
+    public void overlappingSearchMatchesLinearScan() {
+        Random random = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            OverlappingIntervals<TestInterval> intervals = new OverlappingIntervals<>();
+            List<TestInterval> list = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                TestInterval interval = new TestInterval(random.nextInt(1000), random.nextInt(5) == 0 ? 0 : random.nextInt(200));
+                intervals.add(interval);
+                list.add(interval);
+            }
+            IntervalIndex<TestInterval> index = intervals.getIndex();
+            for (long time = -10; time < 1300; time++) {
+                TestInterval expected = null;
+                for (int i = index.size() - 1; i >= 0; i--) {
+                    if (index.get(i).match(time)) {
+                        expected = index.get(i);
+                        break;
+                    }
+                }
+                Assert.assertSame(expected, intervals.getValueByInterval(time));
+            }
+        }
+    }
+
+    @Test
+    public void lastStartingAtOrBefore() {
+        NonOverlappingIntervals<TestInterval> intervals = new NonOverlappingIntervals<>();
+        intervals.add(new TestInterval(100, 10));
+        intervals.add(new TestInterval(200, 10));
+
+        Assert.assertEquals(-1, intervals.getIndex().lastStartingAtOrBefore(99));
+        Assert.assertEquals(0, intervals.getIndex().lastStartingAtOrBefore(100));
+        Assert.assertEquals(0, intervals.getIndex().lastStartingAtOrBefore(199));
+        Assert.assertEquals(1, intervals.getIndex().lastStartingAtOrBefore(1000));
+    }
+
+    @Test
+    public void readersNeverSeePartialReplace() throws InterruptedException {
+        final NonOverlappingIntervals<TestInterval> intervals = new NonOverlappingIntervals<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        intervals.replace(data(0));
+
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i < 2000; i++)
+                intervals.replace(data(i % 7));
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20000; i++) {
+                        // interval at 1000 is present in every data set
+                        Assert.assertNotNull(intervals.getValueByInterval(1005));
+                        IntervalIndex<TestInterval> index = intervals.getIndex();
+                        for (int pos = 1; pos < index.size(); pos++)
+                            Assert.assertTrue(index.get(pos - 1).start() < index.get(pos).start());
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }));
+        }
+        writer.start();
+        for (Thread reader : readers) reader.start();
+        writer.join();
+        for (Thread reader : readers) reader.join();
+
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+    }
+
+    private static List<TestInterval> data(int variant) {
+        List<TestInterval> list = new ArrayList<>();
+        for (int i = 0; i < 20 + variant; i++)
+            list.add(new TestInterval(i * 100, 50));
+        return list;
+    }
+
+    static class TestInterval implements Interval {
+        private final long start;
+        private final long duration;
+        private Long cutEnd = null;
+
+        TestInterval(long start, long duration) {
+            this.start = start;
+            this.duration = duration;
+        }
+
+        @Override
+        public long durationInMsec() {
+            return duration;
+        }
+
+        @Override
+        public long start() {
+            return start;
+        }
+
+        @Override
+        public long originalEnd() {
+            return start + duration;
+        }
+
+        @Override
+        public long end() {
+            return cutEnd != null ? cutEnd : originalEnd();
+        }
+
+        @Override
+        public void cutEndTo(long end) {
+            cutEnd = end;
+        }
+
+        @Override
+        public boolean match(long time) {
+            return start() <= time && end() >= time;
+        }
+
+        @Override
+        public boolean before(long time) {
+            return end() < time;
+        }
+
+        @Override
+        public boolean after(long time) {
+            return start() > time;
+        }
+
+        @Override
+        public boolean isInProgress() {
+            return false;
+        }
+
+        @Override
+        public boolean isEndingEvent() {
+            return duration == 0;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+    }
+}
@@ -6,6 +6,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
 import info.nightscout.androidaps.utils.DateUtil;
 
 /**
@@ -25,6 +28,42 @@ public class IobTotalTest {
         Assert.assertEquals(a.iob, b.iob, 0.01d);
     }
 
+    @Test
+    public void copyAllFieldsTest() throws IllegalAccessException {
+        IobTotal a = new IobTotal(now);
+        fillFields(a, 1);
+        a.iobWithZeroTemp = new IobTotal(now + 1);
+        fillFields(a.iobWithZeroTemp, 100);
+
+        IobTotal b = a.copy();
+
+        Assert.assertNotSame(a, b);
+        Assert.assertNotSame(a.iobWithZeroTemp, b.iobWithZeroTemp);
+        assertFieldsEqual(a, b);
+        assertFieldsEqual(a.iobWithZeroTemp, b.iobWithZeroTemp);
+        Assert.assertNull(b.iobWithZeroTemp.iobWithZeroTemp);
+    }
+
+    // every primitive field gets distinct value so missing field in copy() is detected
+    private void fillFields(IobTotal iobTotal, int base) throws IllegalAccessException {
+        int value = base;
+        for (Field field : IobTotal.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            field.setAccessible(true);
+            if (field.getType() == double.class) field.setDouble(iobTotal, value++);
+            else if (field.getType() == long.class) field.setLong(iobTotal, value++);
+        }
+    }
+
+    private void assertFieldsEqual(IobTotal expected, IobTotal actual) throws IllegalAccessException {
+        for (Field field : IobTotal.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            if (field.getType() == IobTotal.class) continue;
+            field.setAccessible(true);
+            Assert.assertEquals(field.getName(), field.get(expected), field.get(actual));
+        }
+    }
+
     @Test
     public void plusTest() {
         IobTotal a = new IobTotal(now);
@@ -0,0 +1,49 @@
+package info.nightscout.androidaps.data;
+
+import android.support.v4.util.LongSparseArray;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProfileScheduleTest {
+
+    @Test
+    public void sameValuesAsLinearScan() {
+        LongSparseArray<Double> array = new LongSparseArray<>();
+        array.put(0, 0.5d);
+        array.put(30 * 60, 0.6d);
+        array.put(2 * 60 * 60 + 15, 0.7d); // not aligned to minute
+        array.put(2 * 60 * 60 + 45, 0.8d); // two blocks within the same minute
+        array.put(23 * 60 * 60, 0.9d);
+        ProfileSchedule schedule = new ProfileSchedule(array);
+
+        Assert.assertEquals(5, schedule.size());
+        for (int seconds = -60; seconds < 25 * 60 * 60; seconds++)
+            Assert.assertEquals("at " + seconds, scan(array, seconds), schedule.valueAt(seconds), 0d);
+    }
+
+    @Test
+    public void singleBlock() {
+        LongSparseArray<Double> array = new LongSparseArray<>();
+        array.put(0, 30d);
+        ProfileSchedule schedule = new ProfileSchedule(array);
+
+        Assert.assertEquals(30d, schedule.valueAt(0), 0d);
+        Assert.assertEquals(30d, schedule.valueAt(12 * 60 * 60), 0d);
+        Assert.assertEquals(30d, schedule.valueAt(24 * 60 * 60 - 1), 0d);
+    }
+
+    // original Profile.getValueToTime() implementation
+    private static double scan(LongSparseArray<Double> array, int timeAsSeconds) {
+        Double lastValue = null;
+        for (int index = 0; index < array.size(); index++) {
+            long tas = array.keyAt(index);
+            double value = array.valueAt(index);
+            if (lastValue == null) lastValue = value;
+            if (timeAsSeconds < tas)
+                break;
+            lastValue = value;
+        }
+        return lastValue;
+    }
+}
@@ -20,6 +20,7 @@ import info.AAPSMocker;
 import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.data.ConstraintChecker;
+import info.nightscout.androidaps.events.EventConfigBuilderChange;
 import info.nightscout.androidaps.plugins.configBuilder.ConfigBuilderPlugin;
 import info.nightscout.androidaps.plugins.constraints.objectives.ObjectivesPlugin;
 import info.nightscout.androidaps.plugins.constraints.safety.SafetyPlugin;
@@ -269,6 +270,31 @@ public class ConstraintsCheckerTest {
 
     }
 
+    @Test
+    public void constraintsPluginsAreCachedOnlyAfterInitialization() {
+        objectivesPlugin.objectives.get(6).setStartedOn(null);
+        ArrayList<PluginBase> allPlugins = new ArrayList<>();
+        allPlugins.add(objectivesPlugin);
+
+        // plugins still being registered, partial list must not be cached
+        when(MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class)).thenReturn(new ArrayList<>());
+        Assert.assertEquals(0, constraintChecker.isAMAModeEnabled().getReasonList().size());
+        when(MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class)).thenReturn(allPlugins);
+        Assert.assertEquals(1, constraintChecker.isAMAModeEnabled().getReasonList().size()); // Objectives
+
+        // all plugins registered, list is cached
+        constraintChecker.initialize();
+        when(MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class)).thenReturn(new ArrayList<>());
+        Assert.assertEquals(1, constraintChecker.isAMAModeEnabled().getReasonList().size()); // Objectives
+
+        // configuration change resolves plugins again
+        constraintChecker.onEventConfigBuilderChange(new EventConfigBuilderChange());
+        Assert.assertEquals(0, constraintChecker.isAMAModeEnabled().getReasonList().size());
+        when(MainApp.getSpecificPluginsListByInterface(ConstraintsInterface.class)).thenReturn(allPlugins);
+        constraintChecker.onEventConfigBuilderChange(new EventConfigBuilderChange());
+        Assert.assertEquals(1, constraintChecker.isAMAModeEnabled().getReasonList().size()); // Objectives
+    }
+
     @Before
     public void prepareMock() throws Exception {
 
@@ -0,0 +1,62 @@
+package info.nightscout.androidaps.plugins.aps.loop;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScriptCacheTest {
+
+    private ScriptReader scriptReader;
+    private Context rhino;
+
+    @Test
+    public void scriptIsReadAndCompiledOnlyOnce() throws IOException {
+        Script first = ScriptCache.getFile(rhino, scriptReader, "test.js");
+        Script second = ScriptCache.getFile(rhino, scriptReader, "test.js");
+
+        Assert.assertSame(first, second);
+        verify(scriptReader, times(1)).readFile("test.js");
+    }
+
+    @Test
+    public void compiledScriptRunsInSeparateScopes() throws IOException {
+        Script script = ScriptCache.getFile(rhino, scriptReader, "test.js");
+
+        Scriptable scope1 = ScriptCache.newScope(rhino);
+        script.exec(rhino, scope1);
+        ScriptCache.getSource(rhino, "counter = counter + 1;", "JavaScript").exec(rhino, scope1);
+
+        Scriptable scope2 = ScriptCache.newScope(rhino);
+        script.exec(rhino, scope2);
+
+        Assert.assertEquals(2d, Context.toNumber(scope1.get("counter", scope1)), 0.001d);
+        Assert.assertEquals(1d, Context.toNumber(scope2.get("counter", scope2)), 0.001d);
+        // standard objects are available through shared scope
+        Assert.assertEquals(3d, Context.toNumber(rhino.evaluateString(scope2, "Math.max(1, 3)", "JavaScript", 0, null)), 0.001d);
+    }
+
+    @Before
+    public void prepare() throws IOException {
+        ScriptCache.clear();
+        scriptReader = mock(ScriptReader.class);
+        when(scriptReader.readFile("test.js")).thenReturn("#!/usr/bin/env node\nvar counter = 1;".getBytes("UTF-8"));
+        rhino = Context.enter();
+        rhino.setOptimizationLevel(-1);
+    }
+
+    @After
+    public void release() {
+        Context.exit();
+    }
+}
@@ -0,0 +1,62 @@
+package info.nightscout.androidaps.plugins.aps.loop;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.NativeJSON;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.Undefined;
+
+public class ScriptParamsTest {
+
+    private Context rhino;
+    private Scriptable scope;
+
+    @Test
+    public void convertedObjectEqualsParsedJSON() throws JSONException {
+        JSONObject json = new JSONObject("{\"glucose\":120,\"delta\":-2.5,\"date\":1546300800000,\"units\":\"mmol/L\",\"temptargetSet\":false,\"iob\":[{\"iob\":1.2},{\"iob\":0.8,\"iobWithZeroTemp\":{\"iob\":0.5}}]}");
+
+        Object converted = ScriptParams.fromJSON(rhino, scope, json);
+        Object parsed = NativeJSON.parse(rhino, scope, json.toString(), (context, scriptable, scriptable1, objects) -> objects[1]);
+
+        Assert.assertEquals(stringify(parsed), stringify(converted));
+    }
+
+    @Test
+    public void scriptSeesSameValues() throws JSONException {
+        JSONArray iobArray = new JSONArray("[{\"iob\":1.5,\"activity\":0.01},{\"iob\":1.0,\"activity\":0.02}]");
+        Function f = rhino.compileFunction(scope, "function f(a) { return (typeof a[0].iob) + ':' + (a[0].iob + a[1].iob) + ':' + a.length; }", "JavaScript", 0, null);
+
+        Object result = f.call(rhino, scope, scope, new Object[]{ScriptParams.fromJSON(rhino, scope, iobArray)});
+
+        Assert.assertEquals("number:2.5:2", Context.toString(result));
+    }
+
+    @Test
+    public void nullIsUndefined() {
+        Assert.assertEquals(Undefined.instance, ScriptParams.fromJSON(rhino, scope, (JSONObject) null));
+        Assert.assertEquals(Undefined.instance, ScriptParams.fromJSON(rhino, scope, (JSONArray) null));
+    }
+
+    private String stringify(Object object) {
+        return NativeJSON.stringify(rhino, scope, object, null, null).toString();
+    }
+
+    @Before
+    public void prepare() {
+        rhino = Context.enter();
+        rhino.setOptimizationLevel(-1);
+        scope = rhino.initStandardObjects();
+    }
+
+    @After
+    public void release() {
+        Context.exit();
+    }
+}
@@ -0,0 +1,91 @@
+package info.nightscout.androidaps.plugins.general.nsclient;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UploadAckTrackerTest {
+
+    @Test
+    public void inFlightRequestsAreLimited() {
+        UploadAckTracker tracker = new UploadAckTracker();
+        assertEquals(UploadAckTracker.INITIAL_BATCH, tracker.nextBatch(100));
+        assertEquals(10, tracker.nextBatch(10));
+
+        for (int i = 0; i < 8; i++)
+            tracker.sent("id" + i, 1000);
+        assertTrue(tracker.isInFlight("id3"));
+        assertEquals(8, tracker.inFlightCount());
+        assertEquals(2, tracker.nextBatch(10));
+
+        for (int i = 0; i < 10; i++)
+            tracker.sent("more" + i, 1000);
+        assertEquals(0, tracker.nextBatch(10));
+    }
+
+    @Test
+    public void ackRemovesRequestAndMeasuresRoundTrip() {
+        UploadAckTracker tracker = new UploadAckTracker();
+        tracker.sent("a", 1000);
+        tracker.sent("b", 1000);
+
+        assertEquals(500, tracker.acked("a", 1500));
+        assertFalse(tracker.isInFlight("a"));
+        assertEquals(500, tracker.averageRoundTrip());
+
+        assertEquals(900, tracker.acked("b", 1900));
+        assertEquals(600, tracker.averageRoundTrip());
+        assertEquals(900, tracker.lastRoundTrip());
+
+        // unknown or duplicate ACK
+        assertEquals(-1, tracker.acked("a", 2000));
+        assertEquals(600, tracker.averageRoundTrip());
+    }
+
+    @Test
+    public void batchFollowsRoundTrip() {
+        UploadAckTracker tracker = new UploadAckTracker();
+        int batch = tracker.nextBatch(1000);
+
+        // fast ACKs grow batch up to maximum
+        for (int i = 0; i < 50; i++) {
+            tracker.sent("fast" + i, 0);
+            tracker.acked("fast" + i, 100);
+            int next = tracker.nextBatch(1000);
+            assertTrue(next >= batch);
+            batch = next;
+        }
+        assertEquals(UploadAckTracker.MAX_BATCH, batch);
+
+        // no ACK, no change
+        assertEquals(batch, tracker.nextBatch(1000));
+
+        // slow ACKs shrink it down to minimum
+        for (int i = 0; i < 50; i++) {
+            tracker.sent("slow" + i, 0);
+            tracker.acked("slow" + i, 20 * 1000);
+            batch = tracker.nextBatch(1000);
+        }
+        assertEquals(UploadAckTracker.MIN_BATCH, batch);
+    }
+
+    @Test
+    public void missingAckExpires() {
+        UploadAckTracker tracker = new UploadAckTracker();
+        tracker.sent("old", 0);
+        tracker.sent("new", UploadAckTracker.ACK_TIMEOUT);
+
+        tracker.expire(UploadAckTracker.ACK_TIMEOUT);
+        assertTrue(tracker.isInFlight("old"));
+
+        tracker.expire(UploadAckTracker.ACK_TIMEOUT + 1);
+        assertFalse(tracker.isInFlight("old"));
+        assertTrue(tracker.isInFlight("new"));
+        assertEquals(UploadAckTracker.INITIAL_BATCH / 2, tracker.nextBatch(1000));
+
+        tracker.reset();
+        assertEquals(0, tracker.inFlightCount());
+    }
+}
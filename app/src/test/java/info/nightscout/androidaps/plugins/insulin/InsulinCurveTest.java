@@ -0,0 +1,51 @@
+package info.nightscout.androidaps.plugins.insulin;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InsulinCurveTest {
+
+    @Test
+    public void interpolatedValuesAreCloseToClosedForm() {
+        int[] peaks = {45, 55, 75, 120};
+        double[] dias = {5 * 60, 6.5 * 60, 8 * 60};
+        for (int peak : peaks) {
+            for (double td : dias) {
+                InsulinCurve curve = new InsulinCurve(peak, td);
+                for (double t = 0; t < td; t += 0.37) {
+                    assertEquals(curve.exactIob(t), curve.iob(t), 1e-4);
+                    assertEquals(curve.exactActivity(t), curve.activity(t), 1e-5);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wholeMinutesAreExact() {
+        InsulinCurve curve = new InsulinCurve(75, 300);
+        assertEquals(1d, curve.iob(0), 1e-12);
+        assertEquals(0d, curve.activity(0), 1e-12);
+        for (int t = 0; t < 300; t++) {
+            assertEquals(curve.exactIob(t), curve.iob(t), 1e-12);
+            assertEquals(curve.exactActivity(t), curve.activity(t), 1e-12);
+        }
+    }
+
+    @Test
+    public void outsideOfTableFallsBackToClosedForm() {
+        InsulinCurve curve = new InsulinCurve(75, 300);
+        assertEquals(curve.exactIob(-10), curve.iob(-10), 0);
+        assertEquals(curve.exactActivity(500), curve.activity(500), 0);
+    }
+
+    @Test
+    public void matchesTest() {
+        InsulinCurve curve = new InsulinCurve(75, 300);
+        assertTrue(curve.matches(75, 300));
+        assertFalse(curve.matches(55, 300));
+        assertFalse(curve.matches(75, 360));
+    }
+}
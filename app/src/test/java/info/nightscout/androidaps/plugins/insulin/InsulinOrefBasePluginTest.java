@@ -77,6 +77,36 @@ public class InsulinOrefBasePluginTest extends InsulinOrefBasePlugin {
     }
 
 
+    @Test
+    public void testIobCalcForParts() {
+        this.peak = 75;
+        this.dia = 5;
+        long time = System.currentTimeMillis();
+
+        long[] dates = new long[60];
+        double[] amounts = new double[60];
+        Iob expected = new Iob();
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = time - i * 5 * 60 * 1000L - 150 * 1000L;
+            amounts[i] = (i % 3 - 1) * 0.05d;
+            Treatment part = new Treatment();
+            part.date = dates[i];
+            part.insulin = amounts[i];
+            expected.plus(this.iobCalcForTreatment(part, time, 0d));
+        }
+
+        double[] result = new double[2];
+        this.iobCalcForParts(dates, amounts, dates.length, time, 0d, result);
+        assertEquals(expected.iobContrib, result[0], 1e-10);
+        assertEquals(expected.activityContrib, result[1], 1e-10);
+
+        // only count parts are used
+        result = new double[2];
+        this.iobCalcForParts(dates, amounts, 0, time, 0d, result);
+        assertEquals(0d, result[0], 0);
+        assertEquals(0d, result[1], 0);
+    }
+
     /**
      * this method is implemented to allow tests of the iobCalcForTreatment calculation
       * @return
@@ -0,0 +1,64 @@
+package info.nightscout.androidaps.plugins.iob.iobCobCalculatorPlugin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.nightscout.androidaps.db.BgReading;
+import info.nightscout.androidaps.plugins.iob.iobCobCalculator.BgTimeSeries;
+import info.nightscout.androidaps.utils.T;
+
+public class BgTimeSeriesTest {
+
+    private List<BgReading> readings(long... minutes) {
+        List<BgReading> list = new ArrayList<>();
+        for (long m : minutes)
+            list.add(new BgReading().date(T.mins(m).msecs()).value(100 + m));
+        return list;
+    }
+
+    @Test
+    public void columnsKeepOrder() {
+        BgTimeSeries series = new BgTimeSeries(readings(20, 15, 10, 5));
+        Assert.assertEquals(4, series.size());
+        Assert.assertEquals(T.mins(20).msecs(), series.date(0));
+        Assert.assertEquals(105, series.value(3), 0.01);
+
+        List<BgReading> list = series.toList();
+        Assert.assertEquals(4, list.size());
+        Assert.assertEquals(T.mins(15).msecs(), list.get(1).date);
+        Assert.assertEquals(115, list.get(1).value, 0.01);
+    }
+
+    @Test
+    public void arraysAreReused() {
+        BgTimeSeries series = new BgTimeSeries();
+        for (int i = 0; i < 1000; i++)
+            series.add(T.mins(5000 - i * 5).msecs(), i);
+        Assert.assertEquals(1000, series.size());
+        Assert.assertEquals(999, series.value(999), 0.01);
+
+        series.set(readings(10, 5));
+        Assert.assertEquals(2, series.size());
+        Assert.assertEquals(T.mins(5).msecs(), series.date(1));
+    }
+
+    @Test
+    public void binarySearchMatchesLinearScan() {
+        BgTimeSeries series = new BgTimeSeries(readings(60, 55, 47, 40, 39, 30, 20, 5));
+        for (long time = 0; time <= T.mins(65).msecs(); time += T.secs(30).msecs()) {
+            int newer = -1;
+            int older = -1;
+            for (int i = 0; i < series.size(); i++) {
+                if (series.date(i) >= time) newer = i;
+                if (series.date(i) <= time && older == -1) older = i;
+            }
+            Assert.assertEquals(newer, series.indexOfNewer(time));
+            Assert.assertEquals(older, series.indexOfOlder(time));
+        }
+        Assert.assertEquals(-1, new BgTimeSeries().indexOfNewer(0));
+        Assert.assertEquals(-1, new BgTimeSeries().indexOfOlder(0));
+    }
+}
@@ -1,6 +1,7 @@
 package info.nightscout.androidaps.plugins.iob.iobCobCalculatorPlugin;
 
 import android.content.Context;
+import android.support.v4.util.LongSparseArray;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -17,6 +18,8 @@ import info.nightscout.androidaps.MainApp;
 import info.nightscout.androidaps.db.BgReading;
 import info.nightscout.androidaps.logging.L;
 import info.nightscout.androidaps.plugins.configBuilder.ConfigBuilderPlugin;
+import info.nightscout.androidaps.plugins.iob.iobCobCalculator.AutosensData;
+import info.nightscout.androidaps.plugins.iob.iobCobCalculator.BgTimeSeries;
 import info.nightscout.androidaps.plugins.iob.iobCobCalculator.IobCobCalculatorPlugin;
 import info.nightscout.androidaps.utils.DateUtil;
 import info.nightscout.androidaps.utils.SP;
@@ -449,6 +452,77 @@ public class IobCobCalculatorPluginTest {
         Assert.assertEquals((Long) T.mins(20).msecs(), iobCobCalculatorPlugin.findPreviousTimeFromBucketedData(T.mins(25).msecs()));
     }
 
+    @Test
+    public void findCalculationStartIndexTest() {
+        List<BgReading> bucketedData = createBucketedData(T.hours(1).msecs(), 50);
+        LongSparseArray<AutosensData> autosensTable = new LongSparseArray<>();
+
+        // empty table -> full walk
+        Assert.assertEquals(bucketedData.size() - 4, iobCobCalculatorPlugin.findCalculationStartIndex(new BgTimeSeries(bucketedData), autosensTable));
+        assertIncrementalEqualsFullWalk(bucketedData, autosensTable);
+
+        // everything calculated -> nothing to do
+        replayFullWalk(bucketedData, autosensTable);
+        Assert.assertEquals(-1, iobCobCalculatorPlugin.findCalculationStartIndex(new BgTimeSeries(bucketedData), autosensTable));
+        assertIncrementalEqualsFullWalk(bucketedData, autosensTable);
+
+        // new BG appended -> exactly one row
+        bucketedData.add(0, new BgReading().date(bucketedData.get(0).date + T.mins(5).msecs()).value(100));
+        Assert.assertEquals(0, iobCobCalculatorPlugin.findCalculationStartIndex(new BgTimeSeries(bucketedData), autosensTable));
+        assertIncrementalEqualsFullWalk(bucketedData, autosensTable);
+        replayFullWalk(bucketedData, autosensTable);
+
+        // back-dated treatment invalidates last 30 min -> bounded window
+        long invalidateFrom = bucketedData.get(6).date;
+        for (int index = autosensTable.size() - 1; index >= 0; index--) {
+            if (autosensTable.keyAt(index) > invalidateFrom)
+                autosensTable.removeAt(index);
+            else
+                break;
+        }
+        Assert.assertEquals(5, iobCobCalculatorPlugin.findCalculationStartIndex(new BgTimeSeries(bucketedData), autosensTable));
+        assertIncrementalEqualsFullWalk(bucketedData, autosensTable);
+
+        // bucketed data shifted (not aligned with cache) -> full walk
+        List<BgReading> shifted = createBucketedData(T.hours(1).msecs() + T.mins(2).msecs(), 50);
+        Assert.assertEquals(shifted.size() - 4, iobCobCalculatorPlugin.findCalculationStartIndex(new BgTimeSeries(shifted), autosensTable));
+        assertIncrementalEqualsFullWalk(shifted, autosensTable);
+    }
+
+    // newest first, same as IobCobCalculatorPlugin.bucketed_data
+    private List<BgReading> createBucketedData(long oldest, int count) {
+        List<BgReading> list = new ArrayList<>();
+        for (int i = count - 1; i >= 0; i--)
+            list.add(new BgReading().date(oldest + T.mins(5).msecs() * i).value(100 + i));
+        return list;
+    }
+
+    // rows the original full walk calculates are the rows missing in the table
+    private List<Long> rowsCalculatedByFullWalk(List<BgReading> bucketedData, LongSparseArray<AutosensData> autosensTable) {
+        List<Long> rows = new ArrayList<>();
+        for (int i = bucketedData.size() - 4; i >= 0; i--) {
+            long bgTime = IobCobCalculatorPlugin.roundUpTime(bucketedData.get(i).date);
+            if (autosensTable.get(bgTime) == null)
+                rows.add(bgTime);
+        }
+        return rows;
+    }
+
+    private void replayFullWalk(List<BgReading> bucketedData, LongSparseArray<AutosensData> autosensTable) {
+        for (Long bgTime : rowsCalculatedByFullWalk(bucketedData, autosensTable)) {
+            AutosensData autosensData = new AutosensData();
+            autosensData.time = bgTime;
+            autosensTable.put(bgTime, autosensData);
+        }
+    }
+
+    private void assertIncrementalEqualsFullWalk(List<BgReading> bucketedData, LongSparseArray<AutosensData> autosensTable) {
+        List<Long> incremental = new ArrayList<>();
+        for (int i = iobCobCalculatorPlugin.findCalculationStartIndex(new BgTimeSeries(bucketedData), autosensTable); i >= 0; i--)
+            incremental.add(IobCobCalculatorPlugin.roundUpTime(bucketedData.get(i).date));
+        Assert.assertEquals(rowsCalculatedByFullWalk(bucketedData, autosensTable), incremental);
+    }
+
     @Before
     public void doMock() {
         AAPSMocker.mockMainApp();
@@ -0,0 +1,70 @@
+package info.nightscout.androidaps.plugins.pump.combo.ruffyscripter.commands;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class InputPlannerTest {
+
+    // value displayed by the pump after pressing up or down once
+    private static double pressBasal(double rate, boolean up) {
+        if (up) {
+            if (rate == 0) return 0.05;
+            return rate < 1 - 0.001 ? rate + 0.01 : rate + 0.05;
+        } else {
+            return rate > 1 + 0.001 ? rate - 0.05 : rate - 0.01;
+        }
+    }
+
+    private static double simulateBasal(double current, long steps) {
+        double rate = current;
+        for (int i = 0; i < Math.abs(steps); i++)
+            rate = pressBasal(rate, steps > 0);
+        return rate;
+    }
+
+    @Test
+    public void basalRateReachesRequestedValue() {
+        double[] rates = {0, 0.05, 0.06, 0.5, 0.99, 1.0, 1.05, 1.5, 3.25};
+        for (double current : rates) {
+            for (double requested : rates) {
+                if (requested == 0) continue; // pump doesn't allow to go down to 0
+                long steps = InputPlanner.basalRateSteps(current, requested);
+                assertEquals(current + " -> " + requested, requested, simulateBasal(current, steps), 0.001);
+            }
+        }
+    }
+
+    @Test
+    public void basalRateStepCount() {
+        assertEquals(0, InputPlanner.basalRateSteps(0.5, 0.5));
+        assertEquals(1, InputPlanner.basalRateSteps(0, 0.05));
+        assertEquals(50, InputPlanner.basalRateSteps(0.5, 1));
+        assertEquals(2, InputPlanner.basalRateSteps(1, 1.1));
+        assertEquals(-12, InputPlanner.basalRateSteps(1.1, 0.9));
+    }
+
+    @Test
+    public void tbrPercentage() {
+        assertEquals(0, InputPlanner.tbrPercentageSteps(100, 100));
+        assertEquals(5, InputPlanner.tbrPercentageSteps(100, 150));
+        assertEquals(-10, InputPlanner.tbrPercentageSteps(100, 0));
+    }
+
+    @Test
+    public void tbrDuration() {
+        assertEquals(0, InputPlanner.tbrDurationSteps(30, 30));
+        assertEquals(3, InputPlanner.tbrDurationSteps(15, 60));
+        assertEquals(-2, InputPlanner.tbrDurationSteps(60, 30));
+        for (long current = 15; current <= 24 * 60; current += 15)
+            for (long requested = 15; requested <= 24 * 60; requested += 15)
+                assertEquals(requested, current + InputPlanner.tbrDurationSteps(current, requested) * 15);
+    }
+
+    @Test
+    public void bolus() {
+        assertEquals(1, InputPlanner.bolusSteps(0.1));
+        assertEquals(25, InputPlanner.bolusSteps(2.5));
+        assertEquals(3, InputPlanner.bolusSteps(0.30000000000000004));
+    }
+}
@@ -0,0 +1,153 @@
+package info.nightscout.androidaps.plugins.pump.danaR.comm;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import info.nightscout.androidaps.utils.CRC;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class FrameDecoderTest {
+
+    private static byte[] frame(int command, int dataLength, int seed) {
+        byte[] frame = new byte[dataLength + 10];
+        frame[0] = (byte) 0x7E;
+        frame[1] = (byte) 0x7E;
+        frame[2] = (byte) (dataLength + 3);
+        frame[3] = (byte) 0xF1;
+        frame[4] = (byte) (command >> 8 & 0xFF);
+        frame[5] = (byte) (command & 0xFF);
+        for (int i = 0; i < dataLength; i++)
+            frame[6 + i] = (byte) (seed + i);
+        short crc = CRC.getCrc16(frame, 3, dataLength + 3);
+        frame[dataLength + 6] = (byte) (crc >> 8 & 0xFF);
+        frame[dataLength + 7] = (byte) (crc & 0xFF);
+        frame[dataLength + 8] = (byte) 0x2E;
+        frame[dataLength + 9] = (byte) 0x2E;
+        return frame;
+    }
+
+    @Test
+    public void singleFrame() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] frame = frame(0x41F2, 14, 1);
+        decoder.append(frame, 0, frame.length);
+        byte[] decoded = decoder.nextFrame();
+        assertArrayEquals(frame, decoded);
+        assertEquals(0x41F2, FrameDecoder.command(decoded));
+        assertNull(decoder.nextFrame());
+        assertEquals(0, decoder.available());
+    }
+
+    @Test
+    public void fragmentedFrame() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] frame = frame(0x3101, 20, 5);
+        for (int i = 0; i < frame.length - 1; i++) {
+            decoder.append(frame, i, 1);
+            assertNull(decoder.nextFrame());
+        }
+        decoder.append(frame, frame.length - 1, 1);
+        assertArrayEquals(frame, decoder.nextFrame());
+    }
+
+    @Test
+    public void concatenatedFrames() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] first = frame(0x0202, 2, 0);
+        byte[] second = frame(0x020B, 30, 7);
+        byte[] third = frame(0xF0F1, 0, 0);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(first);
+        stream.write(second);
+        stream.write(third, 0, 4); // incomplete
+        byte[] chunk = stream.toByteArray();
+        decoder.append(chunk, 0, chunk.length);
+
+        assertArrayEquals(first, decoder.nextFrame());
+        assertArrayEquals(second, decoder.nextFrame());
+        assertNull(decoder.nextFrame());
+
+        decoder.append(third, 4, third.length - 4);
+        assertArrayEquals(third, decoder.nextFrame());
+        assertNull(decoder.nextFrame());
+    }
+
+    @Test
+    public void longStreamReadInChunks() throws Exception {
+        // like history download: many records, chunks not aligned with frames
+        ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+        byte[][] frames = new byte[2000][];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = frame(0x41F2, i % 250, i);
+            recorded.write(frames[i]);
+        }
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(recorded.toByteArray()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 333));
+            }
+        };
+
+        FrameDecoder decoder = new FrameDecoder();
+        int decoded = 0;
+        while (decoder.read(inputStream) >= 0) {
+            byte[] frame;
+            while ((frame = decoder.nextFrame()) != null) {
+                assertArrayEquals(frames[decoded], frame);
+                decoded++;
+            }
+        }
+        assertEquals(frames.length, decoded);
+        assertEquals(0, decoder.available());
+    }
+
+    @Test
+    public void crcError() throws IOException {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] frame = frame(0x0202, 2, 0);
+        frame[6]++;
+        decoder.append(frame, 0, frame.length);
+        try {
+            decoder.nextFrame();
+            fail();
+        } catch (FrameDecoder.FrameException e) {
+            assertEquals("crc error", e.reason);
+        }
+    }
+
+    @Test
+    public void wrongEnd() {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] frame = frame(0x0202, 2, 0);
+        frame[frame.length - 1] = 0;
+        decoder.append(frame, 0, frame.length);
+        try {
+            decoder.nextFrame();
+            fail();
+        } catch (FrameDecoder.FrameException e) {
+            assertEquals("wrong packet", e.reason);
+        }
+    }
+
+    @Test
+    public void wrongBeginning() {
+        FrameDecoder decoder = new FrameDecoder();
+        byte[] frame = frame(0x0202, 2, 0);
+        byte[] shifted = Arrays.copyOfRange(frame, 1, frame.length);
+        decoder.append(shifted, 0, shifted.length);
+        try {
+            decoder.nextFrame();
+            fail();
+        } catch (FrameDecoder.FrameException e) {
+            assertEquals("Wrong beginning of packet", e.reason);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package info.nightscout.androidaps.plugins.pump.insight.connection_service;
+
+import org.junit.Test;
+
+import info.nightscout.androidaps.plugins.pump.insight.app_layer.history.ReadHistoryEventsMessage;
+import info.nightscout.androidaps.plugins.pump.insight.app_layer.history.StartReadingHistoryMessage;
+import info.nightscout.androidaps.plugins.pump.insight.app_layer.history.StopReadingHistoryMessage;
+import info.nightscout.androidaps.plugins.pump.insight.exceptions.app_layer_errors.ReadingHistoryAlreadyStartedException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class MessageQueueTest {
+
+    @Test
+    public void requestsWithSamePriorityAreSentInOrder() throws Exception {
+        MessageQueue messageQueue = new MessageQueue();
+        MessageRequest<StartReadingHistoryMessage> start = new MessageRequest<>(new StartReadingHistoryMessage());
+        MessageRequest<ReadHistoryEventsMessage> read = new MessageRequest<>(new ReadHistoryEventsMessage());
+        MessageRequest<StopReadingHistoryMessage> stop = new MessageRequest<>(new StopReadingHistoryMessage());
+        messageQueue.enqueueRequest(start);
+        messageQueue.enqueueRequest(read);
+        messageQueue.enqueueRequest(stop);
+
+        messageQueue.nextRequest();
+        assertSame(start, messageQueue.getActiveRequest());
+        messageQueue.completeActiveRequest(start.getRequest());
+        assertSame(start.getRequest(), start.await());
+        assertNull(messageQueue.getActiveRequest());
+
+        messageQueue.nextRequest();
+        assertSame(read, messageQueue.getActiveRequest());
+        messageQueue.completeActiveRequest(read.getRequest());
+
+        messageQueue.nextRequest();
+        assertSame(stop, messageQueue.getActiveRequest());
+        assertFalse(messageQueue.hasPendingMessages());
+    }
+
+    @Test
+    public void failedStartOfReadingHistoryIsNotFollowedByRead() {
+        // LocalInsightPlugin.readHistory() requests read only after start succeeded
+        MessageQueue messageQueue = new MessageQueue();
+        MessageRequest<StartReadingHistoryMessage> start = new MessageRequest<>(new StartReadingHistoryMessage());
+        messageQueue.enqueueRequest(start);
+        messageQueue.nextRequest();
+        assertSame(start, messageQueue.getActiveRequest());
+
+        Exception error = new ReadingHistoryAlreadyStartedException(0);
+        messageQueue.completeActiveRequest(error);
+        try {
+            start.await();
+            fail();
+        } catch (Exception e) {
+            assertSame(error, e);
+        }
+
+        // nothing is sent after the failed start
+        assertFalse(messageQueue.hasPendingMessages());
+        messageQueue.nextRequest();
+        assertNull(messageQueue.getActiveRequest());
+    }
+
+    @Test
+    public void pendingRequestsFailWithException() {
+        MessageQueue messageQueue = new MessageQueue();
+        MessageRequest<ReadHistoryEventsMessage> read = new MessageRequest<>(new ReadHistoryEventsMessage());
+        messageQueue.enqueueRequest(read);
+        Exception exception = new Exception();
+        messageQueue.completePendingRequests(exception);
+        try {
+            read.await();
+        } catch (Exception e) {
+            assertSame(exception, e);
+        }
+        assertEquals(exception, read.getException());
+        assertFalse(messageQueue.hasPendingMessages());
+    }
+}
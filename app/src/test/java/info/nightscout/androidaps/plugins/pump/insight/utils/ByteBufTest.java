@@ -0,0 +1,63 @@
+package info.nightscout.androidaps.plugins.pump.insight.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ByteBufTest {
+
+    @Test
+    public void readsFromCurrentPosition() {
+        ByteBuf byteBuf = ByteBuf.from(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertEquals(1, byteBuf.readByte());
+        assertEquals(0x0302, byteBuf.readUInt16LE());
+        assertEquals(7, byteBuf.getUInt8(3));
+        assertEquals(0x07060504L, byteBuf.getUInt32LE());
+        assertArrayEquals(new byte[]{6, 5}, byteBuf.getBytesLE(1, 2));
+        byteBuf.shift(1);
+        assertArrayEquals(new byte[]{5, 6}, byteBuf.readBytes(2));
+        assertEquals(3, byteBuf.getSize());
+        assertArrayEquals(new byte[]{7, 8, 9}, byteBuf.getBytes());
+        assertArrayEquals(new byte[]{7, 8, 9}, byteBuf.readBytes());
+        assertEquals(0, byteBuf.getSize());
+    }
+
+    @Test
+    public void writeAfterReadReusesSpace() {
+        // like receive buffer in InsightConnectionService
+        ByteBuf byteBuf = new ByteBuf(8);
+        for (int round = 0; round < 100; round++) {
+            byteBuf.putBytes(new byte[]{(byte) round, 1, 2});
+            byteBuf.putUInt16LE(round);
+            assertEquals(round & 0xFF, byteBuf.readUInt8());
+            assertArrayEquals(new byte[]{1, 2}, byteBuf.readBytes(2));
+            byteBuf.putBytesLE(new byte[]{3, 4});
+            assertEquals(round, byteBuf.readUInt16LE());
+            assertEquals((short) 0x0403, byteBuf.readShort());
+            assertEquals(0, byteBuf.getSize());
+        }
+    }
+
+    @Test
+    public void partialReadKeepsRemainingData() {
+        ByteBuf byteBuf = new ByteBuf(6);
+        byteBuf.putBytes(new byte[]{1, 2, 3, 4});
+        byteBuf.shift(3);
+        byteBuf.putBytes(new byte[]{5, 6, 7, 8, 9}); // doesn't fit behind read data
+        assertArrayEquals(new byte[]{4, 5, 6, 7, 8, 9}, byteBuf.getBytes());
+        assertArrayEquals(new byte[]{6, 7}, byteBuf.getBytes(2, 2));
+    }
+
+    @Test
+    public void decimals() {
+        ByteBuf byteBuf = new ByteBuf(64);
+        byteBuf.putUInt16Decimal(1.25);
+        byteBuf.putUInt32Decimal1000(0.125);
+        byteBuf.putBoolean(true);
+        assertEquals(1.25, byteBuf.readUInt16Decimal(), 0.001);
+        assertEquals(0.125, byteBuf.readUInt32Decimal1000(), 0.0001);
+        assertEquals(true, byteBuf.readBoolean());
+        assertEquals(0, byteBuf.getSize());
+    }
+}
@@ -0,0 +1,84 @@
+package info.nightscout.androidaps.plugins.pump.insight.utils.crypto;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CipherContextTest {
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        return bytes;
+    }
+
+    // expected values produced by previous implementation with TwofishEngine and CBCBlockCipher
+    @Test
+    public void knownAnswer() {
+        CipherContext cipher = new CipherContext(new byte[16]);
+        byte[] nonce = new byte[13];
+        assertArrayEquals(fromHex("3ada6352813230bb972b0ef178da4fec5ce8d82c4dcb248b0bd54b89149331a2"),
+                cipher.encryptDataCTR(new byte[32], nonce));
+        assertArrayEquals(fromHex("29aa127be38f5230"),
+                cipher.produceCCMTag(nonce, new byte[100], new byte[21]));
+    }
+
+    @Test
+    public void decryptsEncryptedData() {
+        Random random = new Random(1);
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        CipherContext cipher = new CipherContext(key);
+        for (int length = 0; length < 70; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            byte[] nonce = new byte[13];
+            random.nextBytes(nonce);
+            byte[] encrypted = cipher.encryptDataCTR(data, nonce);
+            assertEquals(length, encrypted.length);
+            assertArrayEquals(data, cipher.encryptDataCTR(encrypted, nonce));
+        }
+    }
+
+    @Test
+    public void writesIntoCallerBuffers() {
+        CipherContext cipher = new CipherContext(new byte[16]);
+        byte[] nonce = new byte[13];
+        byte[] result = new byte[40];
+        cipher.encryptDataCTR(new byte[32], 0, 32, nonce, result, 4);
+        assertArrayEquals(cipher.encryptDataCTR(new byte[32], nonce), Arrays.copyOfRange(result, 4, 36));
+        byte[] tag = new byte[10];
+        cipher.produceCCMTag(nonce, new byte[100], new byte[21], tag, 2);
+        assertArrayEquals(fromHex("29aa127be38f5230"), Arrays.copyOfRange(tag, 2, 10));
+    }
+
+    @Test
+    public void tagDependsOnContent() {
+        CipherContext cipher = new CipherContext(new byte[16]);
+        byte[] nonce = new byte[13];
+        byte[] payload = new byte[20];
+        byte[] header = new byte[21];
+        byte[] tag = cipher.produceCCMTag(nonce, payload, header);
+        payload[19] = 1;
+        assertFalse(Arrays.equals(tag, cipher.produceCCMTag(nonce, payload, header)));
+        payload[19] = 0;
+        header[0] = 1;
+        assertFalse(Arrays.equals(tag, cipher.produceCCMTag(nonce, payload, header)));
+    }
+
+    @Test
+    public void hasKey() {
+        byte[] key = new byte[16];
+        CipherContext cipher = new CipherContext(key);
+        key[0] = 1; // context keeps its own copy
+        assertFalse(cipher.hasKey(key));
+        assertTrue(cipher.hasKey(new byte[16]));
+    }
+}
@@ -0,0 +1,52 @@
+package info.nightscout.androidaps.plugins.sensitivity;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DeviationWindowTest {
+
+    @Test
+    public void behavesLikeList() {
+        DeviationWindow window = new DeviationWindow(4);
+        List<Double> list = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            double value = (i * 37 % 23) - 11;
+            window.add(value);
+            list.add(value);
+            // sometimes two values are added per step and only one removed
+            if (i % 24 == 0) {
+                window.add(0d);
+                list.add(0d);
+            }
+            if (window.size() > 96) {
+                window.removeOldest();
+                list.remove(0);
+            }
+            Assert.assertEquals(list.size(), window.size());
+        }
+        double[] expected = new double[list.size()];
+        for (int i = 0; i < list.size(); i++)
+            expected[i] = list.get(i);
+        Arrays.sort(expected);
+        Assert.assertArrayEquals(expected, window.sorted(), 0d);
+    }
+
+    @Test
+    public void sortedViewIsRefreshedAfterChange() {
+        DeviationWindow window = new DeviationWindow(2);
+        window.add(3d);
+        window.add(1d);
+        Assert.assertArrayEquals(new double[]{1d, 3d}, window.sorted(), 0d);
+        window.add(2d);
+        window.removeOldest();
+        Assert.assertArrayEquals(new double[]{1d, 2d}, window.sorted(), 0d);
+        window.clear();
+        Assert.assertEquals(0, window.sorted().length);
+        window.removeOldest();
+        Assert.assertEquals(0, window.size());
+    }
+}
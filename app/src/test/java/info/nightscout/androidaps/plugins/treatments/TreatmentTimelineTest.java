@@ -0,0 +1,93 @@
+package info.nightscout.androidaps.plugins.treatments;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TreatmentTimelineTest {
+
+    @Test
+    public void sortedNewestFirst() {
+        TreatmentTimeline timeline = new TreatmentTimeline(list(1000, 3000, 2000));
+
+        Assert.assertEquals(3, timeline.size());
+        Assert.assertEquals(3000, timeline.get(0).date);
+        Assert.assertEquals(1000, timeline.get(2).date);
+        Assert.assertEquals(3000, timeline.getList().get(0).date);
+    }
+
+    @Test
+    public void indexAtOrBefore() {
+        TreatmentTimeline timeline = new TreatmentTimeline(list(4000, 3000, 2000, 2000, 1000));
+
+        Assert.assertEquals(0, timeline.indexAtOrBefore(5000));
+        Assert.assertEquals(0, timeline.indexAtOrBefore(4000));
+        Assert.assertEquals(1, timeline.indexAtOrBefore(3999));
+        Assert.assertEquals(2, timeline.indexAtOrBefore(2000));
+        Assert.assertEquals(4, timeline.indexAtOrBefore(1999));
+        Assert.assertEquals(5, timeline.indexAtOrBefore(999));
+        Assert.assertEquals(0, TreatmentTimeline.EMPTY.indexAtOrBefore(1000));
+    }
+
+    @Test
+    public void getInRangeMatchesLinearScan() {
+        List<Treatment> treatments = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            treatments.add(treatment(i * 7 % 61 * 1000));
+        TreatmentTimeline timeline = new TreatmentTimeline(treatments);
+
+        for (long from = -1000; from < 62000; from += 500) {
+            for (long to = from - 1000; to < 62000; to += 1500) {
+                List<Treatment> range = timeline.getInRange(from, to);
+                int expected = 0;
+                for (Treatment t : treatments)
+                    if (t.date >= from && t.date <= to) expected++;
+                Assert.assertEquals(expected, range.size());
+                for (int i = 0; i < range.size(); i++) {
+                    Assert.assertTrue(range.get(i).date >= from && range.get(i).date <= to);
+                    if (i > 0)
+                        Assert.assertTrue(range.get(i - 1).date >= range.get(i).date);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void applyChanges() {
+        TreatmentTimeline timeline = new TreatmentTimeline(list(1000, 2000, 3000));
+        Treatment updated = treatment(2000);
+        updated.carbs = 10;
+        List<TreatmentChange> changes = new ArrayList<>();
+        changes.add(TreatmentChange.insert(treatment(4000)));
+        changes.add(TreatmentChange.update(updated));
+        // date change is recorded as delete + insert
+        changes.add(TreatmentChange.delete(3000));
+        changes.add(TreatmentChange.insert(treatment(3500)));
+        changes.add(TreatmentChange.delete(9999));
+
+        TreatmentTimeline applied = timeline.apply(changes, 1500);
+
+        Assert.assertEquals(3, applied.size());
+        Assert.assertEquals(4000, applied.get(0).date);
+        Assert.assertEquals(3500, applied.get(1).date);
+        Assert.assertSame(updated, applied.get(2));
+        // original is not modified
+        Assert.assertEquals(3, timeline.size());
+        Assert.assertEquals(3000, timeline.get(0).date);
+    }
+
+    private static List<Treatment> list(long... dates) {
+        List<Treatment> list = new ArrayList<>();
+        for (long date : dates)
+            list.add(treatment(date));
+        return list;
+    }
+
+    private static Treatment treatment(long date) {
+        Treatment t = new Treatment();
+        t.date = date;
+        return t;
+    }
+}
@@ -1,9 +1,12 @@
 package info.nightscout.androidaps.utils;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 /**
@@ -28,4 +31,14 @@ public class JsonHelperTest {
         assertEquals(0, JsonHelper.safeGetInt(object, "notexisting"));
         assertEquals(4, JsonHelper.safeGetInt(object, "i"));
     }
+
+    @Test
+    public void toObjectListTest() throws JSONException {
+        JSONArray array = new JSONArray("[{\"a\":1},5,{\"b\":2}]");
+        List<JSONObject> list = JsonHelper.toObjectList(array);
+        assertEquals(2, list.size());
+        assertEquals(1, JsonHelper.safeGetInt(list.get(0), "a"));
+        assertEquals(2, JsonHelper.safeGetInt(list.get(1), "b"));
+        assertEquals(0, JsonHelper.toObjectList(new JSONArray()).size());
+    }
 }
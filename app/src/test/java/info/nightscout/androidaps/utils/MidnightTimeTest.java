@@ -10,6 +10,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.TimeZone;
 
 import info.AAPSMocker;
 import info.nightscout.androidaps.MainApp;
@@ -58,7 +59,58 @@ public class MidnightTimeTest {
         long now = DateUtil.now();
         MidnightTime.calc(now);
         MidnightTime.resetCache();
-        Assert.assertEquals(0, MidnightTime.times.size());
+        Assert.assertEquals(0, MidnightTime.cachedDays());
+    }
+
+    @Test
+    public void wholeDayIsServedFromCache() {
+        MidnightTime.resetCache();
+        long midnight = MidnightTime.calc(DateUtil.now());
+        Assert.assertEquals(midnight, MidnightTime.calc(midnight));
+        Assert.assertEquals(midnight, MidnightTime.calc(midnight + T.hours(12).msecs()));
+        Assert.assertEquals(1, MidnightTime.cachedDays());
+        Assert.assertTrue(MidnightTime.log().startsWith("Hits: 2 misses: 1"));
+
+        // next and previous day are different entries
+        long nextMidnight = MidnightTime.calc(midnight + T.hours(26).msecs());
+        Assert.assertTrue(nextMidnight > midnight);
+        Assert.assertEquals(nextMidnight, MidnightTime.calc(nextMidnight));
+        Assert.assertTrue(MidnightTime.calc(midnight - 1) < midnight);
+        Assert.assertEquals(3, MidnightTime.cachedDays());
+    }
+
+    @Test
+    public void timezoneChangeIsDetected() {
+        TimeZone original = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            MidnightTime.timeZoneChanged();
+            long time = 1546344000000L; // 2019-01-01 12:00 UTC
+            Assert.assertEquals(1546300800000L, MidnightTime.calc(time));
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT+05:00"));
+            MidnightTime.timeZoneChanged();
+            Assert.assertEquals(0, MidnightTime.cachedDays());
+            Assert.assertEquals(1546282800000L, MidnightTime.calc(time));
+        } finally {
+            TimeZone.setDefault(original);
+            MidnightTime.timeZoneChanged();
+        }
+    }
+
+    @Test
+    public void dstDayHasCorrectLength() {
+        TimeZone original = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/Prague"));
+            MidnightTime.timeZoneChanged();
+            long midnight = MidnightTime.calc(1553990400000L); // 2019-03-31 01:00 CET, 23h day
+            long nextMidnight = MidnightTime.calc(midnight + T.hours(23).msecs());
+            Assert.assertEquals(T.hours(23).msecs(), nextMidnight - midnight);
+            Assert.assertEquals(midnight, MidnightTime.calc(nextMidnight - 1));
+        } finally {
+            TimeZone.setDefault(original);
+            MidnightTime.timeZoneChanged();
+        }
     }
     @Test
     public void log() {
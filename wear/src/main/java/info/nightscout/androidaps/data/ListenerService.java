@@ -84,6 +84,7 @@ public class ListenerService extends WearableListenerService implements GoogleAp
 
     GoogleApiClient googleApiClient;
     private long lastRequest = 0;
+    private static long lastBgSequence = -1;
     private DismissThread confirmThread;
     private DismissThread bolusprogressThread;
     private static final String TAG = "ListenerService";
@@ -539,6 +540,20 @@ public class ListenerService extends WearableListenerService implements GoogleAp
                 } else if (path.equals(ACTION_CANCELNOTIFICATION_REQUEST_PATH)) {
                     String actionstring = DataMapItem.fromDataItem(event.getDataItem()).getDataMap().getString("actionstring");
                     cancelNotificationRequest(actionstring);
+                } else if (path.equals(WEARABLE_DATA_PATH)) {
+                    dataMap = DataMapItem.fromDataItem(event.getDataItem()).getDataMap();
+                    if (WatchDataProtocol.isGap(dataMap, lastBgSequence)) {
+                        // some readings were missed, show the new one and ask for whole history
+                        // sequence is not advanced so next message asks again until full history arrives
+                        Log.d(TAG, logPrefix + "BG sequence gap: " + lastBgSequence + " -> " + WatchDataProtocol.sequence(dataMap));
+                        requestData();
+                    } else {
+                        lastBgSequence = WatchDataProtocol.sequence(dataMap);
+                    }
+                    Intent messageIntent = new Intent();
+                    messageIntent.setAction(Intent.ACTION_SEND);
+                    messageIntent.putExtra("data", dataMap.toBundle());
+                    LocalBroadcastManager.getInstance(this).sendBroadcast(messageIntent);
                 } else {
                     dataMap = DataMapItem.fromDataItem(event.getDataItem()).getDataMap();
                     Intent messageIntent = new Intent();
@@ -0,0 +1,160 @@
+package info.nightscout.androidaps.data;
+
+import com.google.android.gms.wearable.DataMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Decoding of BG and basal data sent by WatchUpdaterService of the phone app.
+ * <p>
+ * Series are packed as one primitive array per field instead of DataMap per point.
+ * BG messages are numbered and carry only readings not sent before,
+ * whole history comes again only after watch reports a gap by requesting resend.
+ */
+public class WatchDataProtocol {
+    // must match WatchUpdaterService
+    public static final int VERSION = 2;
+
+    private static final int BOLUS_SMB = 1;
+    private static final int BOLUS_VALID = 2;
+
+    public static boolean isSupported(DataMap dataMap) {
+        return dataMap.getInt("protocol", 0) == VERSION;
+    }
+
+    public static long sequence(DataMap dataMap) {
+        return dataMap.getLong("seq", -1);
+    }
+
+    /**
+     * @return true if message contains whole BG history instead of new readings only
+     */
+    public static boolean isFull(DataMap dataMap) {
+        return dataMap.getBoolean("bgFull", false);
+    }
+
+    /**
+     * @return true if BG message doesn't follow the last received one
+     */
+    public static boolean isGap(DataMap dataMap, long lastSequence) {
+        return isSupported(dataMap) && !isFull(dataMap) && sequence(dataMap) != lastSequence + 1;
+    }
+
+    public static ArrayList<BgWatchData> bgs(DataMap dataMap) {
+        ArrayList<BgWatchData> bgs = new ArrayList<>();
+        long[] timestamps = dataMap.getLongArray("bgTimestamps");
+        float[] values = dataMap.getFloatArray("bgValues");
+        if (!isSupported(dataMap) || timestamps == null || values == null)
+            return bgs;
+        double high = dataMap.getDouble("high");
+        double low = dataMap.getDouble("low");
+        for (int i = 0; i < timestamps.length; i++)
+            bgs.add(new BgWatchData(values[i], high, low, timestamps[i], 0));
+        return bgs;
+    }
+
+    /**
+     * Replace content of bgDataList by full history or append new readings
+     */
+    public static void mergeBgs(DataMap dataMap, Collection<BgWatchData> bgDataList) {
+        if (isFull(dataMap))
+            bgDataList.clear();
+        long last = 0;
+        for (BgWatchData bg : bgDataList)
+            last = Math.max(last, bg.timestamp);
+        for (BgWatchData bg : bgs(dataMap)) {
+            if (bg.timestamp > last) { // Ignore duplicates.
+                bgDataList.add(bg);
+                last = bg.timestamp;
+            }
+        }
+    }
+
+    /**
+     * @return null if message doesn't contain temps
+     */
+    public static ArrayList<TempWatchData> temps(DataMap dataMap) {
+        long[] starts = dataMap.getLongArray("tempStart");
+        long[] ends = dataMap.getLongArray("tempEnd");
+        float[] startBasals = dataMap.getFloatArray("tempStartBasal");
+        float[] endBasals = dataMap.getFloatArray("tempEndBasal");
+        float[] amounts = dataMap.getFloatArray("tempAmount");
+        if (!isSupported(dataMap) || starts == null || ends == null || startBasals == null || endBasals == null || amounts == null)
+            return null;
+        ArrayList<TempWatchData> temps = new ArrayList<>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            TempWatchData twd = new TempWatchData();
+            twd.startTime = starts[i];
+            twd.startBasal = startBasals[i];
+            twd.endTime = ends[i];
+            twd.endBasal = endBasals[i];
+            twd.amount = amounts[i];
+            temps.add(twd);
+        }
+        return temps;
+    }
+
+    /**
+     * @return null if message doesn't contain basals
+     */
+    public static ArrayList<BasalWatchData> basals(DataMap dataMap) {
+        long[] starts = dataMap.getLongArray("basalStart");
+        long[] ends = dataMap.getLongArray("basalEnd");
+        float[] amounts = dataMap.getFloatArray("basalAmount");
+        if (!isSupported(dataMap) || starts == null || ends == null || amounts == null)
+            return null;
+        ArrayList<BasalWatchData> basals = new ArrayList<>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            BasalWatchData bwd = new BasalWatchData();
+            bwd.startTime = starts[i];
+            bwd.endTime = ends[i];
+            bwd.amount = amounts[i];
+            basals.add(bwd);
+        }
+        return basals;
+    }
+
+    /**
+     * @return null if message doesn't contain boluses
+     */
+    public static ArrayList<BolusWatchData> boluses(DataMap dataMap) {
+        long[] dates = dataMap.getLongArray("bolusDate");
+        float[] insulin = dataMap.getFloatArray("bolusInsulin");
+        float[] carbs = dataMap.getFloatArray("bolusCarbs");
+        byte[] flags = dataMap.getByteArray("bolusFlags");
+        if (!isSupported(dataMap) || dates == null || insulin == null || carbs == null || flags == null)
+            return null;
+        ArrayList<BolusWatchData> boluses = new ArrayList<>(dates.length);
+        for (int i = 0; i < dates.length; i++) {
+            BolusWatchData bwd = new BolusWatchData();
+            bwd.date = dates[i];
+            bwd.bolus = insulin[i];
+            bwd.carbs = carbs[i];
+            bwd.isSMB = (flags[i] & BOLUS_SMB) != 0;
+            bwd.isValid = (flags[i] & BOLUS_VALID) != 0;
+            boluses.add(bwd);
+        }
+        return boluses;
+    }
+
+    /**
+     * @return null if message doesn't contain predictions
+     */
+    public static ArrayList<BgWatchData> predictions(DataMap dataMap) {
+        long[] timestamps = dataMap.getLongArray("predictionTimestamp");
+        float[] values = dataMap.getFloatArray("predictionSgv");
+        ArrayList<Integer> colors = dataMap.getIntegerArrayList("predictionColor");
+        if (!isSupported(dataMap) || timestamps == null || values == null || colors == null)
+            return null;
+        ArrayList<BgWatchData> predictions = new ArrayList<>(timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            BgWatchData bwd = new BgWatchData();
+            bwd.timestamp = timestamps[i];
+            bwd.sgv = values[i];
+            bwd.color = colors.get(i);
+            predictions.add(bwd);
+        }
+        return predictions;
+    }
+}
@@ -46,6 +46,7 @@ import info.nightscout.androidaps.data.BgWatchData;
 import info.nightscout.androidaps.data.BolusWatchData;
 import info.nightscout.androidaps.data.ListenerService;
 import info.nightscout.androidaps.data.TempWatchData;
+import info.nightscout.androidaps.data.WatchDataProtocol;
 import info.nightscout.androidaps.interaction.menus.MainMenuActivity;
 import lecho.lib.hellocharts.view.LineChartView;
 
@@ -344,8 +345,8 @@ public class BIGChart extends WatchFace implements SharedPreferences.OnSharedPre
                 setColor();
 
                 //start animation?
-                // dataMap.getDataMapArrayList("entries") == null -> not on "resend data".
-                if (!lowResMode && (sharedPrefs.getBoolean("animation", false) && dataMap.getDataMapArrayList("entries") == null && (sgvString.equals("100") || sgvString.equals("5.5") || sgvString.equals("5,5")))) {
+                // !WatchDataProtocol.isFull(dataMap) -> not on "resend data".
+                if (!lowResMode && (sharedPrefs.getBoolean("animation", false) && !WatchDataProtocol.isFull(dataMap) && (sgvString.equals("100") || sgvString.equals("5.5") || sgvString.equals("5,5")))) {
                     startAnimation();
                 }
             }
@@ -384,53 +385,21 @@ public class BIGChart extends WatchFace implements SharedPreferences.OnSharedPre
     }
 
     private void loadBasalsAndTemps(DataMap dataMap) {
-        ArrayList<DataMap> temps = dataMap.getDataMapArrayList("temps");
+        ArrayList<TempWatchData> temps = WatchDataProtocol.temps(dataMap);
         if (temps != null) {
-            tempWatchDataList = new ArrayList<>();
-            for (DataMap temp : temps) {
-                TempWatchData twd = new TempWatchData();
-                twd.startTime = temp.getLong("starttime");
-                twd.startBasal =  temp.getDouble("startBasal");
-                twd.endTime = temp.getLong("endtime");
-                twd.endBasal = temp.getDouble("endbasal");
-                twd.amount = temp.getDouble("amount");
-                tempWatchDataList.add(twd);
-            }
+            tempWatchDataList = temps;
         }
-        ArrayList<DataMap> basals = dataMap.getDataMapArrayList("basals");
+        ArrayList<BasalWatchData> basals = WatchDataProtocol.basals(dataMap);
         if (basals != null) {
-            basalWatchDataList = new ArrayList<>();
-            for (DataMap basal : basals) {
-                BasalWatchData bwd = new BasalWatchData();
-                bwd.startTime = basal.getLong("starttime");
-                bwd.endTime = basal.getLong("endtime");
-                bwd.amount = basal.getDouble("amount");
-                basalWatchDataList.add(bwd);
-            }
+            basalWatchDataList = basals;
         }
-        ArrayList<DataMap> boluses = dataMap.getDataMapArrayList("boluses");
+        ArrayList<BolusWatchData> boluses = WatchDataProtocol.boluses(dataMap);
         if (boluses != null) {
-            bolusWatchDataList = new ArrayList<>();
-            for (DataMap bolus : boluses) {
-                BolusWatchData bwd = new BolusWatchData();
-                bwd.date = bolus.getLong("date");
-                bwd.bolus = bolus.getDouble("bolus");
-                bwd.carbs = bolus.getDouble("carbs");
-                bwd.isSMB = bolus.getBoolean("isSMB");
-                bwd.isValid = bolus.getBoolean("isValid");
-                bolusWatchDataList.add(bwd);
-            }
+            bolusWatchDataList = boluses;
         }
-        ArrayList<DataMap> predictions = dataMap.getDataMapArrayList("predictions");
-        if (boluses != null) {
-            predictionList = new ArrayList<>();
-            for (DataMap prediction : predictions) {
-                BgWatchData bwd = new BgWatchData();
-                bwd.timestamp = prediction.getLong("timestamp");
-                bwd.sgv = prediction.getDouble("sgv");
-                bwd.color = prediction.getInt("color");
-                predictionList.add(bwd);
-            }
+        ArrayList<BgWatchData> predictions = WatchDataProtocol.predictions(dataMap);
+        if (predictions != null) {
+            predictionList = predictions;
         }
     }
 
@@ -642,32 +611,7 @@ public class BIGChart extends WatchFace implements SharedPreferences.OnSharedPre
 
     public void addToWatchSet(DataMap dataMap) {
 
-        ArrayList<DataMap> entries = dataMap.getDataMapArrayList("entries");
-        if (entries != null) {
-            bgDataList = new ArrayList<BgWatchData>();
-            for (DataMap entry : entries) {
-                double sgv = entry.getDouble("sgvDouble");
-                double high = entry.getDouble("high");
-                double low = entry.getDouble("low");
-                long timestamp = entry.getLong("timestamp");
-                int color = entry.getInt("color", 0);
-                bgDataList.add(new BgWatchData(sgv, high, low, timestamp, color));
-            }
-        } else {
-            double sgv = dataMap.getDouble("sgvDouble");
-            double high = dataMap.getDouble("high");
-            double low = dataMap.getDouble("low");
-            long timestamp = dataMap.getLong("timestamp");
-            int color = dataMap.getInt("color", 0);
-
-            final int size = bgDataList.size();
-            if (size > 0) {
-                if (bgDataList.get(size - 1).timestamp == timestamp)
-                    return; // Ignore duplicates.
-            }
-
-            bgDataList.add(new BgWatchData(sgv, high, low, timestamp, color));
-        }
+        WatchDataProtocol.mergeBgs(dataMap, bgDataList);
 
         for (int i = 0; i < bgDataList.size(); i++) {
             if (bgDataList.get(i).timestamp < (System.currentTimeMillis() - (1000 * 60 * 60 * 5))) {
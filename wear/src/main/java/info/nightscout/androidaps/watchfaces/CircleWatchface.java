@@ -38,6 +38,7 @@ import java.util.TreeSet;
 
 import info.nightscout.androidaps.R;
 import info.nightscout.androidaps.data.BgWatchData;
+import info.nightscout.androidaps.data.WatchDataProtocol;
 import info.nightscout.androidaps.interaction.menus.MainMenuActivity;
 
 
@@ -535,8 +536,8 @@ public class CircleWatchface extends WatchFace implements SharedPreferences.OnSh
 
 
                 //start animation?
-                // dataMap.getDataMapArrayList("entries") == null -> not on "resend data".
-                if (sharedPrefs.getBoolean("animation", false) && dataMap.getDataMapArrayList("entries") == null && (getSgvString().equals("100") || getSgvString().equals("5.5") || getSgvString().equals("5,5"))) {
+                // !WatchDataProtocol.isFull(dataMap) -> not on "resend data".
+                if (sharedPrefs.getBoolean("animation", false) && !WatchDataProtocol.isFull(dataMap) && (getSgvString().equals("100") || getSgvString().equals("5.5") || getSgvString().equals("5,5"))) {
                     startAnimation();
                 }
 
@@ -567,26 +568,16 @@ public class CircleWatchface extends WatchFace implements SharedPreferences.OnSh
         }
 
         Log.d("CircleWatchface", "start addToWatchSet");
-        ArrayList<DataMap> entries = dataMap.getDataMapArrayList("entries");
-        if (entries == null) {
-            double sgv = dataMap.getDouble("sgvDouble");
-            double high = dataMap.getDouble("high");
-            double low = dataMap.getDouble("low");
-            long timestamp = dataMap.getLong("timestamp");
-            int color = dataMap.getInt("color", 0);
-            bgDataList.add(new BgWatchData(sgv, high, low, timestamp, color));
+        ArrayList<BgWatchData> entries = WatchDataProtocol.bgs(dataMap);
+        if (!WatchDataProtocol.isFull(dataMap)) {
+            bgDataList.addAll(entries);
         } else if (!sharedPrefs.getBoolean("animation", false)) {
             // don't load history at once if animations are set (less resource consumption)
             Log.d("addToWatchSet", "entries.size(): " + entries.size());
 
-            for (DataMap entry : entries) {
-                double sgv = entry.getDouble("sgvDouble");
-                double high = entry.getDouble("high");
-                double low = entry.getDouble("low");
-                long timestamp = entry.getLong("timestamp");
-                int color = entry.getInt("color", 0);
-                bgDataList.add(new BgWatchData(sgv, high, low, timestamp, color));
-            }
+            // full history replaces readings possibly removed on the phone
+            bgDataList.clear();
+            bgDataList.addAll(entries);
         } else
 
             Log.d("addToWatchSet", "start removing bgDataList.size(): " + bgDataList.size());
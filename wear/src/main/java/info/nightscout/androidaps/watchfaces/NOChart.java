@@ -48,6 +48,7 @@ import info.nightscout.androidaps.data.BasalWatchData;
 import info.nightscout.androidaps.data.BgWatchData;
 import info.nightscout.androidaps.data.ListenerService;
 import info.nightscout.androidaps.data.TempWatchData;
+import info.nightscout.androidaps.data.WatchDataProtocol;
 import info.nightscout.androidaps.interaction.menus.MainMenuActivity;
 import lecho.lib.hellocharts.view.LineChartView;
 
@@ -306,8 +307,8 @@ public class NOChart extends WatchFace implements SharedPreferences.OnSharedPref
                 setColor();
 
                 //start animation?
-                // dataMap.getDataMapArrayList("entries") == null -> not on "resend data".
-                if (!lowResMode && (sharedPrefs.getBoolean("animation", false) && dataMap.getDataMapArrayList("entries") == null && (sgvString.equals("100") || sgvString.equals("5.5") || sgvString.equals("5,5")))) {
+                // !WatchDataProtocol.isFull(dataMap) -> not on "resend data".
+                if (!lowResMode && (sharedPrefs.getBoolean("animation", false) && !WatchDataProtocol.isFull(dataMap) && (sgvString.equals("100") || sgvString.equals("5.5") || sgvString.equals("5,5")))) {
                     startAnimation();
                 }
             }
@@ -344,29 +345,13 @@ public class NOChart extends WatchFace implements SharedPreferences.OnSharedPref
     }
 
     private void loadBasalsAndTemps(DataMap dataMap) {
-        ArrayList<DataMap> temps = dataMap.getDataMapArrayList("temps");
+        ArrayList<TempWatchData> temps = WatchDataProtocol.temps(dataMap);
         if (temps != null) {
-            tempWatchDataList = new ArrayList<>();
-            for (DataMap temp : temps) {
-                TempWatchData twd = new TempWatchData();
-                twd.startTime = temp.getLong("starttime");
-                twd.startBasal =  temp.getDouble("startBasal");
-                twd.endTime = temp.getLong("endtime");
-                twd.endBasal = temp.getDouble("endbasal");
-                twd.amount = temp.getDouble("amount");
-                tempWatchDataList.add(twd);
-            }
+            tempWatchDataList = temps;
         }
-        ArrayList<DataMap> basals = dataMap.getDataMapArrayList("basals");
+        ArrayList<BasalWatchData> basals = WatchDataProtocol.basals(dataMap);
         if (basals != null) {
-            basalWatchDataList = new ArrayList<>();
-            for (DataMap basal : basals) {
-                BasalWatchData bwd = new BasalWatchData();
-                bwd.startTime = basal.getLong("starttime");
-                bwd.endTime = basal.getLong("endtime");
-                bwd.amount = basal.getDouble("amount");
-                basalWatchDataList.add(bwd);
-            }
+            basalWatchDataList = basals;
         }
     }
 
@@ -0,0 +1,115 @@
+package info.nightscout.androidaps.data;
+
+import com.google.android.gms.wearable.DataMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+public class WatchDataProtocolTest {
+
+    private static DataMap bgMessage(long seq, boolean full, long... timestamps) {
+        DataMap dataMap = new DataMap();
+        dataMap.putInt("protocol", WatchDataProtocol.VERSION);
+        dataMap.putLong("seq", seq);
+        dataMap.putBoolean("bgFull", full);
+        float[] values = new float[timestamps.length];
+        for (int i = 0; i < timestamps.length; i++)
+            values[i] = 100 + i;
+        dataMap.putLongArray("bgTimestamps", timestamps);
+        dataMap.putFloatArray("bgValues", values);
+        dataMap.putDouble("high", 180);
+        dataMap.putDouble("low", 70);
+        return dataMap;
+    }
+
+    @Test
+    public void isGap() {
+        Assert.assertFalse(WatchDataProtocol.isGap(bgMessage(5, false, 1000), 4));
+        Assert.assertTrue(WatchDataProtocol.isGap(bgMessage(6, false, 1000), 4));
+        Assert.assertTrue(WatchDataProtocol.isGap(bgMessage(1, false, 1000), 4));
+        // full history fills any gap
+        Assert.assertFalse(WatchDataProtocol.isGap(bgMessage(9, true, 1000), 4));
+        // old protocol is not numbered
+        DataMap old = bgMessage(9, false, 1000);
+        old.putInt("protocol", WatchDataProtocol.VERSION - 1);
+        Assert.assertFalse(WatchDataProtocol.isGap(old, 4));
+    }
+
+    @Test
+    public void bgs() {
+        ArrayList<BgWatchData> bgs = WatchDataProtocol.bgs(bgMessage(1, true, 1000, 2000));
+        Assert.assertEquals(2, bgs.size());
+        Assert.assertEquals(1000, bgs.get(0).timestamp);
+        Assert.assertEquals(100, bgs.get(0).sgv, 0.01);
+        Assert.assertEquals(180, bgs.get(0).high, 0.01);
+        Assert.assertEquals(70, bgs.get(0).low, 0.01);
+        Assert.assertEquals(101, bgs.get(1).sgv, 0.01);
+
+        Assert.assertEquals(0, WatchDataProtocol.bgs(new DataMap()).size());
+    }
+
+    @Test
+    public void mergeBgsAppendsNewReadingsOnly() {
+        List<BgWatchData> list = new ArrayList<>(WatchDataProtocol.bgs(bgMessage(1, true, 1000, 2000)));
+        WatchDataProtocol.mergeBgs(bgMessage(2, false, 2000, 3000), list);
+        Assert.assertEquals(3, list.size());
+        Assert.assertEquals(3000, list.get(2).timestamp);
+    }
+
+    @Test
+    public void mergeBgsReplacesListByFullHistory() {
+        TreeSet<BgWatchData> list = new TreeSet<>(WatchDataProtocol.bgs(bgMessage(1, true, 1000, 2000, 3000)));
+        // reading 2000 was removed on the phone
+        WatchDataProtocol.mergeBgs(bgMessage(2, true, 1000, 3000), list);
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals(3000, list.first().timestamp);
+        Assert.assertEquals(1000, list.last().timestamp);
+    }
+
+    @Test
+    public void bolusFlags() {
+        DataMap dataMap = new DataMap();
+        dataMap.putInt("protocol", WatchDataProtocol.VERSION);
+        dataMap.putLongArray("bolusDate", new long[]{1000, 2000, 3000});
+        dataMap.putFloatArray("bolusInsulin", new float[]{1f, 0.2f, 0f});
+        dataMap.putFloatArray("bolusCarbs", new float[]{0f, 0f, 20f});
+        dataMap.putByteArray("bolusFlags", new byte[]{2, 3, 0});
+
+        ArrayList<BolusWatchData> boluses = WatchDataProtocol.boluses(dataMap);
+        Assert.assertEquals(3, boluses.size());
+        Assert.assertFalse(boluses.get(0).isSMB);
+        Assert.assertTrue(boluses.get(0).isValid);
+        Assert.assertEquals(1, boluses.get(0).bolus, 0.01);
+        Assert.assertTrue(boluses.get(1).isSMB);
+        Assert.assertTrue(boluses.get(1).isValid);
+        Assert.assertFalse(boluses.get(2).isSMB);
+        Assert.assertFalse(boluses.get(2).isValid);
+        Assert.assertEquals(20, boluses.get(2).carbs, 0.01);
+        Assert.assertEquals(3000, boluses.get(2).date);
+
+        dataMap.remove("bolusFlags");
+        Assert.assertNull(WatchDataProtocol.boluses(dataMap));
+    }
+
+    @Test
+    public void predictions() {
+        DataMap dataMap = new DataMap();
+        dataMap.putInt("protocol", WatchDataProtocol.VERSION);
+        dataMap.putLongArray("predictionTimestamp", new long[]{1000, 2000});
+        dataMap.putFloatArray("predictionSgv", new float[]{120f, 130f});
+        dataMap.putIntegerArrayList("predictionColor", new ArrayList<>(Arrays.asList(0xff0000, 0x00ff00)));
+
+        ArrayList<BgWatchData> predictions = WatchDataProtocol.predictions(dataMap);
+        Assert.assertEquals(2, predictions.size());
+        Assert.assertEquals(2000, predictions.get(1).timestamp);
+        Assert.assertEquals(130, predictions.get(1).sgv, 0.01);
+        Assert.assertEquals(0x00ff00, predictions.get(1).color);
+
+        Assert.assertNull(WatchDataProtocol.predictions(new DataMap()));
+    }
+}